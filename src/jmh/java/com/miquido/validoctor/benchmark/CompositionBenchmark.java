@@ -0,0 +1,120 @@
+package com.miquido.validoctor.benchmark;
+
+import com.miquido.validoctor.ReadMeCaseTest;
+import com.miquido.validoctor.ReadMeCaseTest.Product;
+import com.miquido.validoctor.TestClasses.TestClass;
+import com.miquido.validoctor.TestClasses.TestInsideClass;
+import com.miquido.validoctor.Validoctor;
+import com.miquido.validoctor.definition.Rule;
+import com.miquido.validoctor.definition.Rules;
+import com.miquido.validoctor.result.Diagnosis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.miquido.validoctor.definition.Rules.notNull;
+import static com.miquido.validoctor.definition.Rules.numberPositive;
+import static com.miquido.validoctor.definition.Rules.stringMaxLength;
+import static com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty;
+
+/**
+ * Examination with rule wrappers, nested definitions and the README product model.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompositionBenchmark {
+
+  @Param({"true", "false"})
+  public boolean valid;
+
+  private TestClass patient;
+  private Product product;
+  private Rule<TestClass> chainedRule;
+  private Rule<TestClass> conditionalRule;
+  private Rule<TestClass> batchRule;
+  private Rule<TestClass> nestedRule;
+  private Rule<Product>[] productRules;
+  private Rule<Product>[] compiledProductRules;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    Validoctor.setThrowing(false);
+    patient = Patients.testClass(valid);
+    product = Patients.product(valid);
+    chainedRule = Validoctor.rulesFor(TestClass.class)
+        .field("name", Rules.chained(notNull(), stringTrimmedNotEmpty(), stringMaxLength(40)))
+        .build();
+    conditionalRule = Validoctor.rulesFor(TestClass.class)
+        .field("kcal", Rules.conditional(Objects::nonNull, numberPositive()))
+        .build();
+    batchRule = Validoctor.rulesFor(TestClass.class)
+        .field("name", Rules.batch(notNull(), stringTrimmedNotEmpty(), stringMaxLength(40)))
+        .build();
+    Rule<TestInsideClass> insideRule = Validoctor.rulesFor(TestInsideClass.class)
+        .field("name", notNull(), stringTrimmedNotEmpty())
+        .field("score", numberPositive())
+        .build();
+    nestedRule = Validoctor.rulesFor(TestClass.class)
+        .field("inside", notNull(), insideRule)
+        .build();
+    ReadMeCaseTest readMe = new ReadMeCaseTest();
+    productRules = new Rule[] {readMe.nullityRules(product), readMe.validityRules(product)};
+    compiledProductRules = new Rule[] {Validoctor.compile(productRules[0]), Validoctor.compile(productRules[1])};
+  }
+
+  @Benchmark
+  public Diagnosis chained() {
+    return Validoctor.examine(patient, chainedRule);
+  }
+
+  @Benchmark
+  public Diagnosis conditional() {
+    return Validoctor.examine(patient, conditionalRule);
+  }
+
+  @Benchmark
+  public Diagnosis batch() {
+    return Validoctor.examine(patient, batchRule);
+  }
+
+  @Benchmark
+  public Diagnosis nestedDefinition() {
+    return Validoctor.examine(patient, nestedRule);
+  }
+
+  @Benchmark
+  public Diagnosis readMeProduct() {
+    return Validoctor.examine(product, productRules);
+  }
+
+  @Benchmark
+  public boolean readMeProductIsValid() {
+    return Validoctor.isValid(product, productRules);
+  }
+
+  @Benchmark
+  public Diagnosis readMeProductCompiled() {
+    return Validoctor.examine(product, compiledProductRules);
+  }
+
+  @Benchmark
+  public boolean readMeProductCompiledIsValid() {
+    return Validoctor.isValid(product, compiledProductRules);
+  }
+}
@@ -0,0 +1,124 @@
+package com.miquido.validoctor.benchmark;
+
+import com.miquido.validoctor.TestClasses.ArrayTestClass;
+import com.miquido.validoctor.TestClasses.StreamingTestClass;
+import com.miquido.validoctor.TestClasses.TestClass;
+import com.miquido.validoctor.TestClasses.TestInsideClass;
+import com.miquido.validoctor.Validoctor;
+import com.miquido.validoctor.definition.Rule;
+import com.miquido.validoctor.result.Diagnosis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.miquido.validoctor.definition.Rules.notNull;
+import static com.miquido.validoctor.definition.Rules.numberInRange;
+import static com.miquido.validoctor.definition.Rules.numberNonNegative;
+import static com.miquido.validoctor.definition.Rules.numberPositive;
+import static com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty;
+
+/**
+ * Examination of elements of collections of growing size, sequentially and in parallel, and of primitive arrays
+ * compared to lists of the same boxed values and to a column of the same values.
+ * In invalid patients every tenth element is invalid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ElementsBenchmark {
+
+  @Param({"10", "1000", "100000", "1000000"})
+  public int size;
+
+  @Param({"true", "false"})
+  public boolean valid;
+
+  private TestClass patient;
+  private Rule<TestClass> elementsRule;
+  private Rule<TestClass> parallelElementsRule;
+  private ArrayTestClass arrayPatient;
+  private Rule<ArrayTestClass> arrayElementsRule;
+  private StreamingTestClass listPatient;
+  private Rule<StreamingTestClass> listElementsRule;
+  private int[] column;
+  private Rule<Integer> columnNonNegative;
+  private Rule<Integer> columnInRange;
+
+  @Setup
+  public void setUp() {
+    Validoctor.setThrowing(false);
+    patient = new TestClass("name", "sku1234567", "description", 1f, 1f, 1, null, null,
+        Patients.insideList(size, valid));
+    Rule<TestInsideClass> insideRule = Validoctor.rulesFor(TestInsideClass.class)
+        .field("name", notNull(), stringTrimmedNotEmpty())
+        .field("score", numberPositive())
+        .build();
+    elementsRule = Validoctor.rulesFor(TestClass.class)
+        .elements("insideList", notNull(), insideRule)
+        .build();
+    parallelElementsRule = Validoctor.rulesFor(TestClass.class)
+        .parallelElements("insideList", 10_000, notNull(), insideRule)
+        .build();
+    int[] ints = new int[size];
+    for (int i = 0; i < size; i++) {
+      ints[i] = !valid && i % 10 == 0 ? -i : i;
+    }
+    arrayPatient = new ArrayTestClass(ints, null, null, null);
+    arrayElementsRule = Validoctor.rulesFor(ArrayTestClass.class)
+        .elements("ints", numberNonNegative(), numberInRange(0, Integer.MAX_VALUE))
+        .build();
+    listPatient = new StreamingTestClass(Arrays.stream(ints).boxed().collect(Collectors.toList()), null, null, null);
+    listElementsRule = Validoctor.rulesFor(StreamingTestClass.class)
+        .elements("iterable", numberNonNegative(), numberInRange(0, Integer.MAX_VALUE))
+        .build();
+    column = ints;
+    columnNonNegative = numberNonNegative();
+    columnInRange = numberInRange(0, Integer.MAX_VALUE);
+  }
+
+  @Benchmark
+  public Diagnosis elements() {
+    return Validoctor.examine(patient, elementsRule);
+  }
+
+  @Benchmark
+  public Diagnosis parallelElements() {
+    return Validoctor.examine(patient, parallelElementsRule);
+  }
+
+  @Benchmark
+  public boolean elementsIsValid() {
+    return Validoctor.isValid(patient, elementsRule);
+  }
+
+  @Benchmark
+  public Diagnosis primitiveArrayElements() {
+    return Validoctor.examine(arrayPatient, arrayElementsRule);
+  }
+
+  @Benchmark
+  public Diagnosis boxedListElements() {
+    return Validoctor.examine(listPatient, listElementsRule);
+  }
+
+  @Benchmark
+  public BitSet primitiveColumn() {
+    return Validoctor.examineColumn(column, columnNonNegative, columnInRange);
+  }
+}
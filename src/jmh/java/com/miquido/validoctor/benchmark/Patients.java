@@ -0,0 +1,52 @@
+package com.miquido.validoctor.benchmark;
+
+import com.miquido.validoctor.ReadMeCaseTest.Comment;
+import com.miquido.validoctor.ReadMeCaseTest.NutritionFacts;
+import com.miquido.validoctor.ReadMeCaseTest.Product;
+import com.miquido.validoctor.TestClasses.TestClass;
+import com.miquido.validoctor.TestClasses.TestInsideClass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Valid and invalid patients shared by benchmarks, built from test models.
+ */
+final class Patients {
+
+  private Patients() {}
+
+  static TestClass testClass(boolean valid) {
+    return valid
+        ? new TestClass("name", "sku1234567", "description", 1.5f, 2f, 100,
+            new TestInsideClass("inside", 1.0, 2.0, Collections.singletonList("a")),
+            new HashSet<>(Arrays.asList(1, 2, 3)), insideList(10, true))
+        : new TestClass("  ", "sku", "", -1.5f, -2f, -100,
+            new TestInsideClass(null, -1.0, 0.0, null),
+            new HashSet<>(Arrays.asList(0, -1, 7)), insideList(10, false));
+  }
+
+  /**
+   * @param size size of the list
+   * @param valid if false, every tenth element is invalid
+   * @return list of elements
+   */
+  static List<TestInsideClass> insideList(int size, boolean valid) {
+    List<TestInsideClass> list = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      list.add(valid || i % 10 != 0 ? new TestInsideClass("element" + i, i + 1) : new TestInsideClass(" ", -i));
+    }
+    return list;
+  }
+
+  static Product product(boolean valid) {
+    return valid
+        ? new Product("name", "sku1234567", "description", 1.0f, 1000f, new NutritionFacts(150, 34.6, 12.7, 5.6),
+            false, true, Arrays.asList(new Comment(1L, "ok"), new Comment(2L, "fine")), Arrays.asList(1, 2, 3))
+        : new Product(" ", "sku-1", null, -1.0f, null, new NutritionFacts(-150, 34.6, -12.7, 5.6),
+            null, true, Arrays.asList(new Comment(-1L, " "), null), Arrays.asList(1, null, 7));
+  }
+}
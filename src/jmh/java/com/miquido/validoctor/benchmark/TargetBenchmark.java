@@ -0,0 +1,107 @@
+package com.miquido.validoctor.benchmark;
+
+import com.miquido.validoctor.TestClasses.TestClass;
+import com.miquido.validoctor.Validoctor;
+import com.miquido.validoctor.definition.Rule;
+import com.miquido.validoctor.result.Diagnosis;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.miquido.validoctor.definition.Rules.notNull;
+import static com.miquido.validoctor.definition.Rules.numberPositive;
+import static com.miquido.validoctor.definition.Rules.stringAlphanumeric;
+import static com.miquido.validoctor.definition.Rules.stringExactLength;
+import static com.miquido.validoctor.definition.Rules.stringMaxLength;
+import static com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty;
+
+/**
+ * Examination of each kind of rule target: single fields, multiple and reduced fields, fields selected by type
+ * and the enclosing object itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TargetBenchmark {
+
+  @Param({"true", "false"})
+  public boolean valid;
+
+  private TestClass patient;
+  private Rule<TestClass> fieldRule;
+  private Rule<TestClass> fieldsRule;
+  private Rule<TestClass> reducedFieldsRule;
+  private Rule<TestClass> enclosingObjectRule;
+  private Rule<TestClass> allTypedRule;
+  private Rule<TestClass> allAssignableRule;
+
+  @Setup
+  public void setUp() {
+    Validoctor.setThrowing(false);
+    patient = Patients.testClass(valid);
+    fieldRule = Validoctor.rulesFor(TestClass.class)
+        .field("name", notNull(), stringTrimmedNotEmpty(), stringMaxLength(40))
+        .field("skuId", stringExactLength(10), stringAlphanumeric())
+        .field("kcal", notNull(), numberPositive())
+        .build();
+    fieldsRule = Validoctor.rulesFor(TestClass.class)
+        .fields(Arrays.asList("name", "skuId", "description"), notNull(), stringTrimmedNotEmpty())
+        .build();
+    reducedFieldsRule = Validoctor.rulesFor(TestClass.class)
+        .<Float>reducedFields("weightKg", "volumeL", (weight, volume) -> weight + volume, numberPositive())
+        .build();
+    enclosingObjectRule = Validoctor.rulesFor(TestClass.class)
+        .rule("DESCRIPTION_REQUIRED", "description", p -> p.description != null && !p.description.isEmpty())
+        .build();
+    allTypedRule = Validoctor.rulesFor(TestClass.class)
+        .allTyped(String.class, notNull(), stringTrimmedNotEmpty())
+        .build();
+    allAssignableRule = Validoctor.rulesFor(TestClass.class)
+        .allAssignable(Number.class, numberPositive())
+        .build();
+  }
+
+  @Benchmark
+  public Diagnosis field() {
+    return Validoctor.examine(patient, fieldRule);
+  }
+
+  @Benchmark
+  public Diagnosis fields() {
+    return Validoctor.examine(patient, fieldsRule);
+  }
+
+  @Benchmark
+  public Diagnosis reducedFields() {
+    return Validoctor.examine(patient, reducedFieldsRule);
+  }
+
+  @Benchmark
+  public Diagnosis rule() {
+    return Validoctor.examine(patient, enclosingObjectRule);
+  }
+
+  @Benchmark
+  public Diagnosis allTyped() {
+    return Validoctor.examine(patient, allTypedRule);
+  }
+
+  @Benchmark
+  public Diagnosis allAssignable() {
+    return Validoctor.examine(patient, allAssignableRule);
+  }
+}
@@ -0,0 +1,195 @@
+package com.miquido.validoctor;
+
+import com.miquido.validoctor.definition.Rule;
+import com.miquido.validoctor.result.BulkDiagnosis;
+import com.miquido.validoctor.result.Diagnosis;
+import com.miquido.validoctor.result.DiagnosisSink;
+import com.miquido.validoctor.result.LookupScope;
+import com.miquido.validoctor.result.PathContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Examination of an array of patients split into chunks executed in parallel.<br>
+ * Size of the chunks is adapted to the cost of examining a single patient, measured on the first few patients,
+ * so that each task does enough work to outweigh the cost of scheduling it. When patients are examined with
+ * lookups, chunks are also large enough to fill whole batches of keys, and time spent loading them is not counted.
+ */
+final class BulkExamination<T> {
+
+  private static final int SAMPLE_SIZE = 16;
+  private static final long TARGET_CHUNK_NANOS = 500_000;
+
+  private final T[] patients;
+  private final Rule<T>[] rules;
+  private final Map<Integer, Diagnosis> invalidDiagnoses = new ConcurrentHashMap<>();
+
+  BulkExamination(T[] patients, Rule<T>[] rules) {
+    this.patients = patients;
+    this.rules = rules;
+  }
+
+  BulkDiagnosis execute(Executor executor) {
+    int sampled = Math.min(SAMPLE_SIZE, patients.length);
+    long nanos;
+    int patientsPerBatch;
+    LookupScope lookups = LookupScope.open(true);
+    try {
+      long start = System.nanoTime();
+      examineRange(0, sampled, lookups);
+      nanos = System.nanoTime() - start - lookups.loadingNanos(); //loading is paid per batch, not per patient
+      patientsPerBatch = lookups.patientsPerBatch(sampled);
+    } finally {
+      lookups.close();
+    }
+    long nanosPerPatient = Math.max(1, nanos / Math.max(1, sampled));
+    int chunkSize = (int) Math.max(1, Math.min(patients.length, TARGET_CHUNK_NANOS / nanosPerPatient));
+    if (patientsPerBatch > 0) {
+      //chunks fill whole batches, as each chunk loads its keys on its own
+      chunkSize = (int) Math.min(Integer.MAX_VALUE, ((long) chunkSize + patientsPerBatch - 1) / patientsPerBatch
+          * patientsPerBatch);
+    }
+
+    if (sampled < patients.length) {
+      if (executor instanceof ForkJoinPool) {
+        ((ForkJoinPool) executor).invoke(new RangeExamination(sampled, patients.length, chunkSize));
+      } else {
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = sampled; from < patients.length; from += chunkSize) {
+          int chunkFrom = from;
+          int chunkTo = Math.min(patients.length, from + chunkSize);
+          chunks.add(CompletableFuture.runAsync(() -> examineRange(chunkFrom, chunkTo), executor));
+        }
+        try {
+          CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+          throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+      }
+    }
+    return new BulkDiagnosis(patients.length, invalidDiagnoses);
+  }
+
+  /**
+   * @param patients spliterator of patients
+   * @return remaining patients of the spliterator, put right into an array of their exact size if it is known
+   */
+  static Object[] drain(Spliterator<?> patients) {
+    long size = patients.getExactSizeIfKnown();
+    if (size < 0 || size > Integer.MAX_VALUE - 8) {
+      List<Object> list = new ArrayList<>();
+      patients.forEachRemaining(list::add);
+      return list.toArray();
+    }
+    Object[] array = new Object[(int) size];
+    int[] count = {0};
+    patients.forEachRemaining(patient -> array[count[0]++] = patient);
+    return count[0] == array.length ? array : Arrays.copyOf(array, count[0]);
+  }
+
+  /**
+   * Examines patients of the range in one {@link LookupScope}, so lookups of all of them are loaded in batches.
+   * Patients that passed assuming their lookups pass and invalid ones whose violations depend on lookups are settled
+   * once the lookups are loaded, and only those whose lookups turn out to fail where they were assumed to pass are
+   * examined again.
+   */
+  private void examineRange(int from, int to) {
+    LookupScope lookups = LookupScope.open(true);
+    try {
+      examineRange(from, to, lookups);
+    } finally {
+      lookups.close();
+    }
+  }
+
+  private void examineRange(int from, int to, LookupScope lookups) {
+    List<Unsettled> unsettled = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      T patient = patients[i];
+      int pending = lookups.pending();
+      //valid patients, which usually are the vast majority, are only checked, without building their diagnoses
+      if (Validoctor.isValid(patient, rules)) {
+        if (lookups.pending() != pending) {
+          unsettled.add(new Unsettled(i, null, pending, lookups.pending()));
+        }
+      } else if (lookups.isEmpty()) {
+        invalidDiagnoses.put(i, Validoctor.diagnose(patient, "", rules));
+      } else {
+        DiagnosisSink sink = new DiagnosisSink();
+        pending = lookups.pending();
+        Validoctor.applyAll(patient, new PathContext(""), sink, rules);
+        unsettled.add(new Unsettled(i, sink, pending, lookups.pending()));
+      }
+    }
+    if (!unsettled.isEmpty()) {
+      lookups.dispatch();
+      lookups.settle();
+      for (Unsettled patient : unsettled) {
+        if (!lookups.holds(patient.pendingFrom, patient.pendingTo)) {
+          //examined again with loaded values, as lookups it was examined with were assumed to pass
+          Diagnosis diagnosis = Validoctor.diagnose(patients[patient.index], "", rules);
+          if (!diagnosis.isValid()) {
+            invalidDiagnoses.put(patient.index, diagnosis);
+          }
+        } else if (patient.sink != null) {
+          invalidDiagnoses.put(patient.index, patient.sink.toDiagnosis());
+        }
+      }
+    }
+  }
+
+  /**
+   * Patient of a range whose examination waits for lookups of the range to be loaded.
+   */
+  private static final class Unsettled {
+    private final int index;
+    private final DiagnosisSink sink;
+    private final int pendingFrom;
+    private final int pendingTo;
+
+    /**
+     * @param sink sink holding violations of the patient, or null if it passed the rules
+     */
+    Unsettled(int index, DiagnosisSink sink, int pendingFrom, int pendingTo) {
+      this.index = index;
+      this.sink = sink;
+      this.pendingFrom = pendingFrom;
+      this.pendingTo = pendingTo;
+    }
+  }
+
+  private final class RangeExamination extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+
+    RangeExamination(int from, int to, int chunkSize) {
+      this.from = from;
+      this.to = to;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected void compute() {
+      int chunks = (to - from + chunkSize - 1) / chunkSize;
+      if (chunks == 1) {
+        examineRange(from, to);
+      } else {
+        int middle = from + chunks / 2 * chunkSize; //split at a chunk boundary, so that all chunks but last are full
+        invokeAll(new RangeExamination(from, middle, chunkSize), new RangeExamination(middle, to, chunkSize));
+      }
+    }
+  }
+}
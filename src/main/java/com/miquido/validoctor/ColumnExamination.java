@@ -0,0 +1,67 @@
+package com.miquido.validoctor;
+
+import com.miquido.validoctor.definition.NumericRule;
+import com.miquido.validoctor.definition.Rule;
+
+import java.util.BitSet;
+import java.util.function.IntFunction;
+
+/**
+ * Examination of a column of values, one rule at a time.<br>
+ * {@link NumericRule NumericRules} test whole columns of primitive values in their own loops, without boxing, which
+ * the JIT can unroll for rules comparing values with constants. Other rules are given boxed values.
+ */
+final class ColumnExamination {
+
+  private ColumnExamination() {}
+
+  static BitSet examine(int[] values, Rule<Integer>[] rules) {
+    return examine(values, values.length, rules, i -> values[i]);
+  }
+
+  static BitSet examine(long[] values, Rule<Long>[] rules) {
+    return examine(values, values.length, rules, i -> values[i]);
+  }
+
+  static BitSet examine(double[] values, Rule<Double>[] rules) {
+    return examine(values, values.length, rules, i -> values[i]);
+  }
+
+  static BitSet examine(byte[] values, Rule<Byte>[] rules) {
+    return examine(values, values.length, rules, i -> values[i]);
+  }
+
+  static <T> BitSet examine(T[] values, Rule<T>[] rules) {
+    BitSet violations = new BitSet(values.length);
+    for (Rule<T> rule : rules) {
+      for (int i = 0; i < values.length; i++) {
+        if (!violations.get(i) && !rule.passes(values[i])) {
+          violations.set(i);
+        }
+      }
+    }
+    return violations;
+  }
+
+  /**
+   * @param values numeric primitive array
+   * @param length length of the array
+   * @param rules rules to test values with
+   * @param boxed function boxing value at an index, for rules other than numeric ones
+   */
+  private static <T> BitSet examine(Object values, int length, Rule<T>[] rules, IntFunction<T> boxed) {
+    BitSet violations = new BitSet(length);
+    for (Rule<T> rule : rules) {
+      if (rule instanceof NumericRule) {
+        ((NumericRule<?>) rule).testColumn(values, violations);
+      } else {
+        for (int i = 0; i < length; i++) {
+          if (!rule.passes(boxed.apply(i))) {
+            violations.set(i);
+          }
+        }
+      }
+    }
+    return violations;
+  }
+}
@@ -1,16 +1,30 @@
 package com.miquido.validoctor;
 
+import com.miquido.validoctor.definition.AsyncRule;
+import com.miquido.validoctor.definition.CompiledRule;
 import com.miquido.validoctor.definition.Rule;
 import com.miquido.validoctor.definition.RuleBuilder;
 import com.miquido.validoctor.definition.Rules;
-import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.AsyncDiagnosisSink;
+import com.miquido.validoctor.result.BulkDiagnosis;
 import com.miquido.validoctor.result.Diagnosis;
 import com.miquido.validoctor.result.DiagnosisException;
+import com.miquido.validoctor.result.DiagnosisSink;
+import com.miquido.validoctor.result.LookupScope;
+import com.miquido.validoctor.result.PathContext;
 
-import java.util.Arrays;
-import java.util.Set;
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public class Validoctor {
 
@@ -18,6 +32,7 @@ public class Validoctor {
 
   private static boolean throwing = false;
   private static Function<Diagnosis, RuntimeException> exceptionFactory = DiagnosisException::new;
+  private static volatile Executor asyncExecutor;
 
   /**
    * Set whether Validoctor should throw exceptions on failed examinations, or just return the {@link Diagnosis}.
@@ -34,6 +49,16 @@ public class Validoctor {
     exceptionFactory = factory;
   }
 
+  /**
+   * Set executor that {@link AsyncRule AsyncRules} run their blocking parts on during
+   * {@link Validoctor#examineAsync(Object, Rule[]) asynchronous examinations}. By default, they run on virtual threads
+   * if the runtime supports them, and on a pool of daemon threads otherwise.
+   * @param executor executor to use, or null to restore the default
+   */
+  public static void setAsyncExecutor(Executor executor) {
+    asyncExecutor = executor;
+  }
+
   /**
    * Starts rules building for given Patient class.<br>
    * After rules for patient and its fields are defined in the builder call {@link RuleBuilder#build()}
@@ -47,6 +72,38 @@ public class Validoctor {
     return new RuleBuilder<>(clazz);
   }
 
+  /**
+   * Same as {@link Validoctor#rulesFor(Class)}, but fields of the patient class are resolved with the specified lookup
+   * instead of reflection with suppressed access checks. Use it when patient class is in a module that does not open
+   * its package to validoctor. Private fields are accessible only to a lookup obtained in the patient class itself,
+   * with {@code MethodHandles.lookup()} called in its code, or to one made with
+   * {@code MethodHandles.privateLookupIn(clazz, lookup)} on Java 9+; lookups of other classes, even in the same
+   * package, give access to non-private fields only.<br>
+   * Fields are resolved when rules are being built, so unknown or inaccessible fields cause
+   * an {@link IllegalArgumentException} right away instead of failing examinations.
+   * @param clazz class of patient
+   * @param lookup lookup with access to fields of patient class
+   * @param <Patient> type of patient
+   * @return builder
+   */
+  public static <Patient> RuleBuilder<Patient> rulesFor(Class<Patient> clazz, MethodHandles.Lookup lookup) {
+    return new RuleBuilder<>(clazz, lookup);
+  }
+
+  /**
+   * Compiles a rule, most usefully one built with {@link RuleBuilder#build()}, into a rule specialized for its tree of
+   * nested rules. The compiled rule checks patients with a single method handle composed from the whole tree, so the
+   * JIT can inline field reads, predicates, conditions and dependencies instead of dispatching through the tree.
+   * Only patients violating it are then examined by the original rule, to report their violations.<br>
+   * Compiled rule gives identical results. It pays off for rules used on many patients, most of which are valid.
+   * @param rule rule to compile
+   * @param <Patient> type of patient
+   * @return compiled rule
+   */
+  public static <Patient> Rule<Patient> compile(Rule<Patient> rule) {
+    return rule instanceof CompiledRule ? rule : new CompiledRule<>(rule);
+  }
+
   /**
    * Examines the patient object with given rules. Those may be predefined simple rules from
    * {@link Rules} or composites made with {@link Validoctor#rulesFor(Class)},
@@ -72,25 +129,305 @@ public class Validoctor {
    */
   @SafeVarargs
   public static <Patient> Diagnosis examine(Patient patient, String patientName, Rule<Patient>... rules) {
-    Set<Ailment> ailments = Arrays.stream(rules)
-        .flatMap(rule ->
-            rule.apply(patient).stream()
-                .map(ailment -> {
-                  if (patientName == null) {
-                    return ailment;
-                  } else {
-                    String field = ailment.field == null ? patientName
-                        : patientName.isEmpty() ? ailment.field : patientName + "." + ailment.field;
-                    return new Ailment(field, ailment.ailments);
-                  }
-                })
-        )
-        .collect(Collectors.toSet());
-    Diagnosis diagnosis = new Diagnosis(ailments);
+    Diagnosis diagnosis = diagnose(patient, patientName, rules);
     if (throwing && !diagnosis.isValid()) {
       throw exceptionFactory.apply(diagnosis);
     } else {
       return diagnosis;
     }
   }
+
+  /**
+   * Examines all patients from the collection with given rules, splitting the work across
+   * {@link ForkJoinPool#commonPool() common fork/join pool}.
+   * @see Validoctor#examineAll(Object[], Executor, Rule[])
+   * @param patients objects to examine
+   * @param rules vararg list of rules to apply to each patient
+   * @param <Patient> type of patient
+   * @return diagnoses of patients, indexed by their position in iteration order of the collection
+   */
+  @SafeVarargs
+  public static <Patient> BulkDiagnosis examineAll(Collection<? extends Patient> patients, Rule<Patient>... rules) {
+    return examineAll(patients, ForkJoinPool.commonPool(), rules);
+  }
+
+  /**
+   * Same as {@link Validoctor#examineAll(Collection, Rule[])}, but work is split across specified executor.
+   * @see Validoctor#examineAll(Object[], Executor, Rule[])
+   */
+  @SafeVarargs
+  @SuppressWarnings("unchecked")
+  public static <Patient> BulkDiagnosis examineAll(Collection<? extends Patient> patients, Executor executor,
+                                                   Rule<Patient>... rules) {
+    return examineAll((Patient[]) patients.toArray(), executor, rules);
+  }
+
+  /**
+   * Same as {@link Validoctor#examineAll(Collection, Rule[])}, but for patients supplied by a spliterator.
+   * Patients of a {@link Spliterator#SIZED sized} spliterator are drained straight into an array of their count.
+   * @see Validoctor#examineAll(Object[], Executor, Rule[])
+   */
+  @SafeVarargs
+  @SuppressWarnings("unchecked")
+  public static <Patient> BulkDiagnosis examineAll(Spliterator<? extends Patient> patients, Executor executor,
+                                                   Rule<Patient>... rules) {
+    return examineAll((Patient[]) BulkExamination.drain(patients), executor, rules);
+  }
+
+  /**
+   * Same as {@link Validoctor#examineAll(Collection, Rule[])}, but for an array of patients.
+   * @see Validoctor#examineAll(Object[], Executor, Rule[])
+   */
+  @SafeVarargs
+  public static <Patient> BulkDiagnosis examineAll(Patient[] patients, Rule<Patient>... rules) {
+    return examineAll(patients, ForkJoinPool.commonPool(), rules);
+  }
+
+  /**
+   * Examines all patients from the array with given rules, splitting the work across specified executor.
+   * Fork/join pools get recursively split tasks, other executors get tasks for consecutive chunks of patients.
+   * Chunk size is adapted to measured cost of examining a single patient.<br>
+   * Only diagnoses of invalid patients are stored in the result - valid ones are just marked as valid.<br>
+   * Never throws on violations, regardless of {@link Validoctor#setThrowing(boolean) throwing} setting.
+   * @param patients objects to examine
+   * @param executor executor to run examinations on
+   * @param rules vararg list of rules to apply to each patient
+   * @param <Patient> type of patient
+   * @return diagnoses of patients, indexed by their position in the array
+   */
+  @SafeVarargs
+  public static <Patient> BulkDiagnosis examineAll(Patient[] patients, Executor executor, Rule<Patient>... rules) {
+    return new BulkExamination<>(patients, rules).execute(executor);
+  }
+
+  /**
+   * Examines a column of values, testing each rule on all of them in a loop before moving to the next rule.
+   * {@link com.miquido.validoctor.definition.NumericRule NumericRules}, like {@link Rules#numberInRange(Number, Number)}
+   * or {@link Rules#numberNonNegative()}, test the values without boxing; other rules are given boxed values.<br>
+   * No {@link Diagnosis} is built and violations never throw, regardless of
+   * {@link Validoctor#setThrowing(boolean) throwing} setting.
+   * @param values column of values to examine
+   * @param rules vararg list of rules to apply to each value
+   * @return indexes of values violating any of the rules
+   */
+  @SafeVarargs
+  public static BitSet examineColumn(double[] values, Rule<Double>... rules) {
+    return ColumnExamination.examine(values, rules);
+  }
+
+  /**
+   * Same as {@link Validoctor#examineColumn(double[], Rule[])}, but for a column of {@code long} values.
+   */
+  @SafeVarargs
+  public static BitSet examineColumn(long[] values, Rule<Long>... rules) {
+    return ColumnExamination.examine(values, rules);
+  }
+
+  /**
+   * Same as {@link Validoctor#examineColumn(double[], Rule[])}, but for a column of {@code int} values.
+   */
+  @SafeVarargs
+  public static BitSet examineColumn(int[] values, Rule<Integer>... rules) {
+    return ColumnExamination.examine(values, rules);
+  }
+
+  /**
+   * Same as {@link Validoctor#examineColumn(double[], Rule[])}, but for a column of {@code byte} values.
+   */
+  @SafeVarargs
+  public static BitSet examineColumn(byte[] values, Rule<Byte>... rules) {
+    return ColumnExamination.examine(values, rules);
+  }
+
+  /**
+   * Same as {@link Validoctor#examineColumn(double[], Rule[])}, but for a column of objects, like strings. Each rule
+   * skips values that already violated one of the previous rules.
+   */
+  @SafeVarargs
+  public static <Patient> BitSet examineColumn(Patient[] values, Rule<Patient>... rules) {
+    return ColumnExamination.examine(values, rules);
+  }
+
+  /**
+   * Examines the patient without blocking on {@link AsyncRule AsyncRules}. Async rules passed here or attached to
+   * fields and elements of rules built with {@link RuleBuilder} are started without waiting for each other, on
+   * the executor set with {@link Validoctor#setAsyncExecutor(Executor)}.<br>
+   * Rules that depend on a rule holding async rules, like rules chained after them, are deferred too, and applied on
+   * the same executor once the async rules complete.
+   * If Validoctor is {@link Validoctor#setThrowing(boolean) throwing}, the future completes exceptionally on violations.
+   * @param patient object to examine
+   * @param rules vararg list of rules to apply
+   * @param <Patient> type of patient
+   * @return future of diagnosis, completed once all started async rules complete
+   */
+  @SafeVarargs
+  public static <Patient> CompletableFuture<Diagnosis> examineAsync(Patient patient, Rule<Patient>... rules) {
+    return examineAsync(patient, Duration.ZERO, rules);
+  }
+
+  /**
+   * Same as {@link Validoctor#examineAsync(Object, Rule[])}, but async rules that do not complete within the deadline
+   * are reported as {@link AsyncDiagnosisSink#TIMED_OUT} violations of the fields they were attached to.
+   * @param patient object to examine
+   * @param deadline time to wait for async rules, counted from the start of the examination; zero waits indefinitely
+   * @param rules vararg list of rules to apply
+   * @param <Patient> type of patient
+   * @return future of diagnosis, completed once all started async rules complete or the deadline passes
+   */
+  @SafeVarargs
+  public static <Patient> CompletableFuture<Diagnosis> examineAsync(Patient patient, Duration deadline,
+                                                                   Rule<Patient>... rules) {
+    long start = System.nanoTime();
+    Executor executor = asyncExecutor;
+    AsyncDiagnosisSink sink = new AsyncDiagnosisSink(executor != null ? executor : DefaultAsyncExecutor.INSTANCE);
+    PathContext path = new PathContext("");
+    LookupScope lookups = LookupScope.open(false);
+    try {
+      applyAll(patient, path, sink, rules);
+    } catch (RuntimeException e) {
+      CompletableFuture<Diagnosis> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    } finally {
+      lookups.close();
+    }
+    if (!lookups.isEmpty()) {
+      CompletableFuture.runAsync(lookups::dispatch, sink.getExecutor()); //failures complete the requested values
+    }
+    long timeout = deadline.isZero() ? 0 : Math.max(1, deadline.toNanos() - (System.nanoTime() - start));
+    return sink.toDiagnosisAsync(timeout, TimeUnit.NANOSECONDS).thenApply(diagnosis -> {
+      if (throwing && !diagnosis.isValid()) {
+        throw exceptionFactory.apply(diagnosis);
+      }
+      return diagnosis;
+    });
+  }
+
+  /**
+   * Examines the patient, never throwing on violations.
+   */
+  static <Patient> Diagnosis diagnose(Patient patient, String patientName, Rule<Patient>[] rules) {
+    Examination examination = Examination.start(patientName);
+    LookupScope current = LookupScope.current();
+    //violations deferred to an optimistic scope of another examination would be reported after this one is done
+    LookupScope lookups = current == null || current.isOptimistic() ? LookupScope.open(true) : null;
+    Diagnosis diagnosis;
+    try {
+      applyAll(patient, examination.path, examination.sink, rules);
+      if (lookups != null && !lookups.isEmpty()) {
+        lookups.dispatch();
+        lookups.settle();
+        if (!lookups.holds(0, lookups.pending())) {
+          //violations of lookups that passed while collecting their keys were not reported, so it is repeated
+          examination.sink.clear();
+          examination.path.reset(patientName);
+          applyAll(patient, examination.path, examination.sink, rules);
+        }
+      }
+      diagnosis = examination.sink.toDiagnosis();
+    } finally {
+      if (lookups != null) {
+        lookups.close();
+      }
+      examination.finish();
+    }
+    return diagnosis;
+  }
+
+  /**
+   * Checks whether patient passes all given rules, without building a {@link Diagnosis}. Examination stops
+   * at the first violation found, and no violation messages nor field names are built, so this is the cheapest way
+   * to examine a patient when only the verdict matters.<br>
+   * Never throws on violations, regardless of {@link Validoctor#setThrowing(boolean) throwing} setting.
+   * @param patient object to examine
+   * @param rules vararg list of rules to apply
+   * @param <Patient> type of patient
+   * @return true if patient does not violate any of the rules
+   */
+  @SafeVarargs
+  public static <Patient> boolean isValid(Patient patient, Rule<Patient>... rules) {
+    if (LookupScope.current() != null) {
+      return passesAll(patient, rules);
+    }
+    LookupScope lookups = LookupScope.open(true);
+    try {
+      if (!passesAll(patient, rules)) {
+        return false;
+      }
+      if (lookups.isEmpty()) {
+        return true;
+      }
+      //lookup rules passed while collecting their keys, so their tests are run on loaded values
+      lookups.dispatch();
+      lookups.settle();
+      return lookups.holds(0, lookups.pending());
+    } finally {
+      lookups.close();
+    }
+  }
+
+  /**
+   * Applies the rules, deferring violations of async rules if the sink and current {@link LookupScope} allow it.
+   */
+  static <Patient> void applyAll(Patient patient, PathContext path, AilmentSink sink, Rule<Patient>[] rules) {
+    for (Rule<Patient> rule : rules) {
+      AsyncRule.apply(rule, patient, path, sink);
+    }
+  }
+
+  private static <Patient> boolean passesAll(Patient patient, Rule<Patient>[] rules) {
+    for (Rule<Patient> rule : rules) {
+      if (!rule.passes(patient)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Default executor of async rules, running each task on a new virtual thread if the runtime supports them.
+   */
+  private static final class DefaultAsyncExecutor {
+    private static final Executor INSTANCE = create();
+
+    private static Executor create() {
+      try {
+        return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+        return Executors.newCachedThreadPool(runnable -> {
+          Thread thread = new Thread(runnable, "validoctor-async");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+    }
+  }
+
+  /**
+   * Path and sink of an examination. They are reused by subsequent examinations on the same thread,
+   * so that examining valid patients allocates nothing but the resulting Diagnosis.
+   */
+  private static final class Examination {
+    private static final ThreadLocal<Examination> CURRENT = ThreadLocal.withInitial(Examination::new);
+
+    private final PathContext path = new PathContext();
+    private final DiagnosisSink sink = new DiagnosisSink();
+    private boolean inProgress;
+
+    static Examination start(String patientName) {
+      Examination examination = CURRENT.get();
+      if (examination.inProgress) {
+        //examination started from within a rule of another one
+        examination = new Examination();
+      }
+      examination.inProgress = true;
+      examination.path.reset(patientName);
+      return examination;
+    }
+
+    void finish() {
+      sink.clear(); //in case examination was interrupted by an exception
+      inProgress = false;
+    }
+  }
 }
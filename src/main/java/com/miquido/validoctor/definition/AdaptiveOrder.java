@@ -0,0 +1,136 @@
+package com.miquido.validoctor.definition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiPredicate;
+
+/**
+ * Order of fail-fast tests of a patient adapted to the patients actually tested: elements that are cheap and fail
+ * often are tested first.<br>
+ * Every {@value #SAMPLE_INTERVAL}th test on average is timed, and after every {@value #REORDER_INTERVAL} timed tests
+ * elements are ordered by their average time per failure. The new order replaces the old one in a single volatile
+ * write, so tests running concurrently are never blocked and always see a complete order. Statistics are halved on
+ * each reordering, so the order follows changes of traffic.
+ * @param <T> type of patient
+ * @param <E> type of tested elements
+ */
+final class AdaptiveOrder<T, E> {
+
+  static final int SAMPLE_INTERVAL = 16;
+  static final int REORDER_INTERVAL = 64;
+
+  private final List<E> elements;
+  private final BiPredicate<E, T> test;
+  private final AtomicLongArray nanos;
+  private final AtomicLongArray samples;
+  private final AtomicLongArray failures;
+  private final AtomicInteger sampled = new AtomicInteger();
+  private volatile int[] order;
+
+  /**
+   * @param elements elements in initial order
+   * @param test test of an element on a patient
+   */
+  AdaptiveOrder(List<E> elements, BiPredicate<E, T> test) {
+    this.elements = elements;
+    this.test = test;
+    this.nanos = new AtomicLongArray(elements.size());
+    this.samples = new AtomicLongArray(elements.size());
+    this.failures = new AtomicLongArray(elements.size());
+    int[] initialOrder = new int[elements.size()];
+    for (int i = 0; i < initialOrder.length; i++) {
+      initialOrder[i] = i;
+    }
+    this.order = initialOrder;
+  }
+
+  /**
+   * @param patient patient to test
+   * @return true if patient passes tests of all elements, stopping at first failure
+   */
+  boolean allPass(T patient) {
+    int[] current = order;
+    if (ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL) == 0) {
+      return sampledAllPass(patient, current);
+    }
+    for (int index : current) {
+      if (!test.test(elements.get(index), patient)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return elements in current order
+   */
+  List<E> current() {
+    int[] current = order;
+    List<E> ordered = new ArrayList<>(current.length);
+    for (int index : current) {
+      ordered.add(elements.get(index));
+    }
+    return ordered;
+  }
+
+  private boolean sampledAllPass(T patient, int[] current) {
+    boolean passed = true;
+    for (int index : current) {
+      long start = System.nanoTime();
+      passed = test.test(elements.get(index), patient);
+      nanos.addAndGet(index, System.nanoTime() - start);
+      samples.incrementAndGet(index);
+      if (!passed) {
+        failures.incrementAndGet(index);
+        break;
+      }
+    }
+    if (sampled.incrementAndGet() % REORDER_INTERVAL == 0) {
+      reorder(current);
+    }
+    return passed;
+  }
+
+  /**
+   * Orders elements that failed by time per failure, then the ones never timed, as they were, then the ones that
+   * never failed by their average time. Concurrent reorderings may overwrite each other, which is harmless, as each
+   * writes a complete order.
+   */
+  private void reorder(int[] current) {
+    List<Integer> indexes = new ArrayList<>(current.length);
+    for (int index : current) {
+      indexes.add(index);
+    }
+    indexes.sort(Comparator.comparingInt(this::tier).thenComparingDouble(this::score));
+    int[] reordered = new int[current.length];
+    for (int i = 0; i < reordered.length; i++) {
+      reordered[i] = indexes.get(i);
+    }
+    for (int index = 0; index < elements.size(); index++) {
+      nanos.set(index, nanos.get(index) / 2);
+      samples.set(index, samples.get(index) / 2);
+      failures.set(index, failures.get(index) / 2);
+    }
+    order = reordered;
+  }
+
+  private int tier(int index) {
+    if (failures.get(index) > 0) {
+      return 0;
+    }
+    return samples.get(index) == 0 ? 1 : 2;
+  }
+
+  private double score(int index) {
+    long failed = failures.get(index);
+    long timed = samples.get(index);
+    if (failed > 0) {
+      return (double) nanos.get(index) / failed;
+    }
+    return timed == 0 ? 0 : (double) nanos.get(index) / timed;
+  }
+}
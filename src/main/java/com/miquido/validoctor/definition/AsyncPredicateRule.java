@@ -0,0 +1,94 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.MessageCodes;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Async rule created with {@link Rules#async(String, Predicate)} or
+ * {@link Rules#asyncLookup(String, java.util.function.Function)}.<br>
+ * Its dependency, if async as well, is awaited without blocking.
+ * @param <T> type of patient
+ */
+public class AsyncPredicateRule<T> implements AsyncRule<T> {
+
+  private final String violationMessage;
+  private final BiFunction<T, Executor, CompletableFuture<Boolean>> test;
+  private final Predicate<T> condition;
+  private final Rule<T> dependency;
+
+  /**
+   * @param violationMessage message reported on violation
+   * @param test starts test of a patient on the executor, completing with true if the patient passed it
+   */
+  public AsyncPredicateRule(String violationMessage, BiFunction<T, Executor, CompletableFuture<Boolean>> test) {
+    this(violationMessage, test, SharedCondition.always(), null);
+  }
+
+  public AsyncPredicateRule(String violationMessage, BiFunction<T, Executor, CompletableFuture<Boolean>> test,
+                            Predicate<T> condition, Rule<T> dependency) {
+    MessageCodes.register(violationMessage); //registered early, so that messages of rules get the smallest codes
+    this.violationMessage = violationMessage;
+    this.test = test;
+    this.condition = condition;
+    this.dependency = dependency;
+  }
+
+  @Override
+  public CompletableFuture<Set<Ailment>> applyAsync(T patient, Executor executor) {
+    if (!condition.test(patient)) {
+      return CompletableFuture.completedFuture(Collections.emptySet());
+    }
+    CompletableFuture<Set<Ailment>> dependencyAilments;
+    if (dependency == null) {
+      dependencyAilments = CompletableFuture.completedFuture(Collections.emptySet());
+    } else if (dependency instanceof AsyncRule) {
+      dependencyAilments = ((AsyncRule<T>) dependency).applyAsync(patient, executor);
+    } else {
+      dependencyAilments = CompletableFuture.completedFuture(dependency.apply(patient));
+    }
+    return dependencyAilments.thenCompose(ailments -> !ailments.isEmpty()
+        ? CompletableFuture.completedFuture(ailments)
+        : test.apply(patient, executor).thenApply(passed -> passed
+            ? Collections.<Ailment>emptySet()
+            : Collections.singleton(new Ailment(null, violationMessage))));
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    return apply(patient).isEmpty();
+  }
+
+  @Override
+  public int estimatedCost() {
+    return EXPENSIVE_COST;
+  }
+
+  /**
+   * @return condition patient has to meet for the rule and its dependency to be applied
+   */
+  Predicate<T> getCondition() {
+    return condition;
+  }
+
+  @Override
+  public Rule<T> withCondition(Predicate<T> condition) {
+    return new AsyncPredicateRule<>(violationMessage, test, condition, dependency);
+  }
+
+  @Override
+  public Rule<T> withDependency(Rule<T> previousRule) {
+    return new AsyncPredicateRule<>(violationMessage, test, condition, previousRule);
+  }
+
+  @Override
+  public Rule<T> withViolationMessage(String violationMessage) {
+    return new AsyncPredicateRule<>(violationMessage, test, condition, dependency);
+  }
+}
@@ -0,0 +1,65 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.Validoctor;
+import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.AsyncDiagnosisSink;
+import com.miquido.validoctor.result.DiagnosisSink;
+import com.miquido.validoctor.result.LookupScope;
+import com.miquido.validoctor.result.PathContext;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Rule whose test completes asynchronously, like a lookup in a store.<br>
+ * It fits anywhere a {@link Rule} does. During {@link Validoctor#examineAsync(Object, Rule[]) asynchronous examination}
+ * async rules passed to it directly, attached to fields and elements with {@link RuleBuilder} or nested in chains and
+ * dependencies are started without waiting for each other, and their violations are collected when all of them
+ * complete. Anywhere else, like in {@link Validoctor#examine(Object, Rule[])}, they are waited for - though in
+ * synchronous examinations not before the examination is done, as lookups are loaded in batches then.
+ * @param <T> type of patient
+ */
+public interface AsyncRule<T> extends Rule<T> {
+
+  /**
+   * @param patient patient to examine
+   * @param executor executor to run blocking parts of the test on
+   * @return future of ailments found in the patient, with field names relative to it
+   */
+  CompletableFuture<Set<Ailment>> applyAsync(T patient, Executor executor);
+
+  /**
+   * Runs the test on the calling thread and waits for it to complete.
+   */
+  @Override
+  default Set<Ailment> apply(T patient) {
+    return applyAsync(patient, Runnable::run).join();
+  }
+
+  /**
+   * Applies the rule, or, if it is async and the sink collects violations of asynchronous examination, starts it and
+   * defers its violations to the sink. In a synchronous examination collecting lookups in an optimistic
+   * {@link LookupScope}, violations of async rules are deferred to the scope until their lookups are loaded.
+   * @param rule rule to apply
+   * @param patient patient to apply the rule to
+   * @param path path to the patient
+   * @param sink sink to report violations to
+   * @return true if no violations were reported; deferred rules are assumed to pass
+   */
+  static <T> boolean apply(Rule<T> rule, T patient, PathContext path, AilmentSink sink) {
+    if (rule instanceof AsyncRule) {
+      if (sink instanceof AsyncDiagnosisSink) {
+        AsyncDiagnosisSink asyncSink = (AsyncDiagnosisSink) sink;
+        asyncSink.defer(path, ((AsyncRule<T>) rule).applyAsync(patient, asyncSink.getExecutor()));
+        return true;
+      }
+      LookupScope lookups = sink instanceof DiagnosisSink ? LookupScope.current() : null;
+      if (lookups != null && lookups.isOptimistic()) {
+        return lookups.defer(path, ((AsyncRule<T>) rule).applyAsync(patient, Runnable::run), (DiagnosisSink) sink);
+      }
+    }
+    return rule.apply(patient, path, sink);
+  }
+}
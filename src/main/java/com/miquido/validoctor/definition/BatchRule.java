@@ -1,51 +1,119 @@
 package com.miquido.validoctor.definition;
 
 import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentCollector;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
 
-import java.util.Collections;
+import java.lang.invoke.MethodHandle;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class BatchRule<T> implements Rule<T> {
 
     private final List<Rule<T>> rules;
     private final Predicate<T> condition;
     private final Rule<T> dependency;
+    private final AdaptiveOrder<T, Rule<T>> adaptiveOrder;
 
     public BatchRule(List<Rule<T>> rules) {
-        this(rules, obj -> true, null);
+        this(rules, SharedCondition.always(), null);
     }
 
     public BatchRule(List<Rule<T>> rules, Predicate<T> condition, Rule<T> dependency) {
+        this(rules, condition, dependency, false);
+    }
+
+    private BatchRule(List<Rule<T>> rules, Predicate<T> condition, Rule<T> dependency, boolean adaptive) {
         this.rules = rules;
         this.condition = condition;
         this.dependency = dependency;
+        this.adaptiveOrder = adaptive ? new AdaptiveOrder<>(rules, Rule::passes) : null;
+    }
+
+    /**
+     * Creates batch that adapts order of its rules in {@link Rule#passes(Object)} to examined patients, as described
+     * in {@link Rules#adaptive(Rule)}.
+     * @return adaptive batch with the same rules, condition and dependency
+     */
+    public BatchRule<T> adaptive() {
+        return new BatchRule<>(rules, condition, dependency, true);
     }
 
     @Override
     public Set<Ailment> apply(T patient) {
-        boolean conditionMet = condition.test(patient);
-        Set<Ailment> dependencyAilments = dependency == null || !conditionMet
-            ? Collections.emptySet() : dependency.apply(patient);
-        if (conditionMet && dependencyAilments.isEmpty()) {
-            return rules.stream()
-                .flatMap(re -> re.apply(patient).stream())
-                .collect(Collectors.toSet());
-        } else {
-            return dependencyAilments;
+        AilmentCollector collector = new AilmentCollector();
+        apply(patient, new PathContext(), collector);
+        return collector.getAilments();
+    }
+
+    @Override
+    public boolean apply(T patient, PathContext path, AilmentSink sink) {
+        if (!SharedCondition.test(condition, patient, path)) {
+            return true;
+        } else if (dependency != null && !Dependencies.apply(this, dependency, patient, path, sink)) {
+            return false;
+        }
+        boolean passed = true;
+        for (int i = 0; i < rules.size(); i++) {
+            passed &= AsyncRule.apply(rules.get(i), patient, path, sink);
+        }
+        return passed;
+    }
+
+    @Override
+    public boolean passes(T patient) {
+        if (!condition.test(patient)) {
+            return true;
+        } else if (dependency != null && !dependency.passes(patient)) {
+            return false;
         }
+        if (adaptiveOrder != null) {
+            return adaptiveOrder.allPass(patient);
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            if (!rules.get(i).passes(patient)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public MethodHandle passesHandle() {
+        if (adaptiveOrder != null) {
+            return RuleHandles.passes(this); //order changes at runtime, so it cannot be composed into a fixed handle
+        }
+        MethodHandle rulesHandle = RuleHandles.all(rules);
+        return RuleHandles.when(condition,
+            dependency == null ? rulesHandle : RuleHandles.and(dependency.passesHandle(), rulesHandle));
+    }
+
+    @Override
+    public int estimatedCost() {
+        int cost = dependency == null ? 0 : dependency.estimatedCost();
+        for (int i = 0; i < rules.size(); i++) {
+            cost += rules.get(i).estimatedCost();
+        }
+        return cost;
+    }
+
+    /**
+     * @return condition patient has to meet for the rules and the dependency to be applied
+     */
+    Predicate<T> getCondition() {
+        return condition;
     }
 
     @Override
     public Rule<T> withCondition(Predicate<T> condition) {
-        return new BatchRule<>(rules, condition, dependency);
+        return new BatchRule<>(rules, condition, dependency, adaptiveOrder != null);
     }
 
     @Override
     public Rule<T> withDependency(Rule<T> previousRule) {
-        return new BatchRule<>(rules, condition, previousRule);
+        return new BatchRule<>(rules, condition, previousRule, adaptiveOrder != null);
     }
 
     /**
@@ -0,0 +1,247 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.LookupScope;
+import com.miquido.validoctor.result.MessageCodes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Rule looking up values of keys, like ids of referenced entities, with a bulk loader, and testing the values found.
+ * <br>
+ * Keys requested in one {@link LookupScope}, that is one examination or one chunk of a bulk examination, are merged
+ * into calls of the loader for at most {@code maxBatchSize} keys each, instead of one call per examined key, and each
+ * key is loaded at most once per scope. Outside of any scope, each key is loaded with its own call.
+ * @param <K> type of keys, which are the patients of this rule
+ * @param <V> type of looked up values
+ */
+public class BatchingLookupRule<K, V> implements AsyncRule<K> {
+
+  public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+  private final String violationMessage;
+  private final Function<Set<K>, Map<K, V>> loader;
+  private final Predicate<V> test;
+  private final int maxBatchSize;
+  private final Predicate<K> condition;
+  private final Rule<K> dependency;
+
+  /**
+   * @param violationMessage message reported if the value of a key fails the test
+   * @param loader loads values of a set of keys, leaving keys without value out of the resulting map
+   * @param test test of a looked up value, given null for keys without value
+   * @param maxBatchSize maximum number of keys loaded with one call of the loader
+   */
+  public BatchingLookupRule(String violationMessage, Function<Set<K>, Map<K, V>> loader, Predicate<V> test,
+                            int maxBatchSize) {
+    this(violationMessage, loader, test, maxBatchSize, SharedCondition.always(), null);
+  }
+
+  public BatchingLookupRule(String violationMessage, Function<Set<K>, Map<K, V>> loader, Predicate<V> test,
+                            int maxBatchSize, Predicate<K> condition, Rule<K> dependency) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("maxBatchSize must be positive, was " + maxBatchSize);
+    }
+    MessageCodes.register(violationMessage); //registered early, so that messages of rules get the smallest codes
+    this.violationMessage = violationMessage;
+    this.loader = loader;
+    this.test = test;
+    this.maxBatchSize = maxBatchSize;
+    this.condition = condition;
+    this.dependency = dependency;
+  }
+
+  /**
+   * Requests the key from batch of the current scope, so the returned future completes when the scope is dispatched.
+   */
+  @Override
+  public CompletableFuture<Set<Ailment>> applyAsync(K patient, Executor executor) {
+    if (!condition.test(patient)) {
+      return CompletableFuture.completedFuture(Collections.emptySet());
+    }
+    LookupScope scope = LookupScope.current();
+    CompletableFuture<Set<Ailment>> dependencyAilments;
+    if (dependency == null) {
+      dependencyAilments = CompletableFuture.completedFuture(Collections.emptySet());
+    } else if (dependency instanceof AsyncRule) {
+      dependencyAilments = ((AsyncRule<K>) dependency).applyAsync(patient, executor);
+    } else {
+      dependencyAilments = CompletableFuture.completedFuture(dependency.apply(patient));
+    }
+    return dependencyAilments.thenCompose(ailments -> {
+      if (!ailments.isEmpty()) {
+        return CompletableFuture.completedFuture(ailments);
+      }
+      CompletableFuture<V> value = scope != null
+          ? batchOf(scope).request(patient)
+          : CompletableFuture.supplyAsync(() -> loader.apply(Collections.singleton(patient)).get(patient), executor);
+      return value.thenApply(this::ailmentsOf);
+    });
+  }
+
+  @Override
+  public Set<Ailment> apply(K patient) {
+    if (!condition.test(patient)) {
+      return Collections.emptySet();
+    }
+    if (dependency != null) {
+      Set<Ailment> dependencyAilments = dependency.apply(patient);
+      if (!dependencyAilments.isEmpty()) {
+        return dependencyAilments;
+      }
+    }
+    return lookupPasses(patient) ? Collections.emptySet() : Collections.singleton(new Ailment(null, violationMessage));
+  }
+
+  @Override
+  public boolean passes(K patient) {
+    if (!condition.test(patient)) {
+      return true;
+    } else if (dependency != null && !dependency.passes(patient)) {
+      return false;
+    } else {
+      return lookupPasses(patient);
+    }
+  }
+
+  @Override
+  public int estimatedCost() {
+    return dependency == null ? EXPENSIVE_COST : EXPENSIVE_COST + dependency.estimatedCost();
+  }
+
+  /**
+   * @return condition patient has to meet for the rule and its dependency to be applied
+   */
+  Predicate<K> getCondition() {
+    return condition;
+  }
+
+  @Override
+  public Rule<K> withCondition(Predicate<K> condition) {
+    return new BatchingLookupRule<>(violationMessage, loader, test, maxBatchSize, condition, dependency);
+  }
+
+  @Override
+  public Rule<K> withDependency(Rule<K> previousRule) {
+    return new BatchingLookupRule<>(violationMessage, loader, test, maxBatchSize, condition, previousRule);
+  }
+
+  @Override
+  public Rule<K> withViolationMessage(String violationMessage) {
+    return new BatchingLookupRule<>(violationMessage, loader, test, maxBatchSize, condition, dependency);
+  }
+
+  /**
+   * In an optimistic scope only requests the key and passes, assuming the test passes once the key is loaded.
+   */
+  private boolean lookupPasses(K patient) {
+    LookupScope scope = LookupScope.current();
+    if (scope == null) {
+      return test.test(loader.apply(Collections.singleton(patient)).get(patient));
+    }
+    Batch<K, V> batch = batchOf(scope);
+    CompletableFuture<V> value = batch.request(patient);
+    if (scope.isOptimistic()) {
+      scope.assume(() -> test.test(value.join()));
+      return true;
+    }
+    if (!value.isDone()) {
+      batch.dispatch(); //waited for before the scope is dispatched, as by a rule depending on this one
+    }
+    return test.test(value.join());
+  }
+
+  private Set<Ailment> ailmentsOf(V value) {
+    return test.test(value) ? Collections.emptySet() : Collections.singleton(new Ailment(null, violationMessage));
+  }
+
+  private Batch<K, V> batchOf(LookupScope scope) {
+    return scope.batch(this, () -> new Batch<>(scope, loader, maxBatchSize));
+  }
+
+  /**
+   * Keys requested by the rule in one scope, with futures of their values cached for the lifetime of the scope.
+   */
+  private static final class Batch<K, V> implements LookupScope.Batch {
+    private final LookupScope scope;
+    private final Function<Set<K>, Map<K, V>> loader;
+    private final int maxBatchSize;
+    private final Map<K, CompletableFuture<V>> values = new HashMap<>();
+    private List<K> queued = new ArrayList<>();
+
+    Batch(LookupScope scope, Function<Set<K>, Map<K, V>> loader, int maxBatchSize) {
+      this.scope = scope;
+      this.loader = loader;
+      this.maxBatchSize = maxBatchSize;
+    }
+
+    CompletableFuture<V> request(K key) {
+      CompletableFuture<V> value;
+      boolean full;
+      synchronized (this) {
+        value = values.get(key);
+        if (value != null) {
+          return value;
+        }
+        value = new CompletableFuture<>();
+        values.put(key, value);
+        queued.add(key);
+        full = queued.size() >= maxBatchSize;
+      }
+      if (full || scope.isDispatched()) {
+        dispatch();
+      }
+      return value;
+    }
+
+    @Override
+    public void dispatch() {
+      List<K> keys;
+      List<CompletableFuture<V>> futures;
+      synchronized (this) {
+        if (queued.isEmpty()) {
+          return;
+        }
+        keys = queued;
+        queued = new ArrayList<>();
+        futures = new ArrayList<>(keys.size());
+        for (K key : keys) {
+          futures.add(values.get(key));
+        }
+      }
+      Map<K, V> loaded;
+      long start = System.nanoTime();
+      try {
+        loaded = loader.apply(new LinkedHashSet<>(keys));
+      } catch (RuntimeException e) {
+        futures.forEach(future -> future.completeExceptionally(e));
+        throw e;
+      } finally {
+        scope.loaded(System.nanoTime() - start);
+      }
+      for (int i = 0; i < keys.size(); i++) {
+        futures.get(i).complete(loaded.get(keys.get(i)));
+      }
+    }
+
+    @Override
+    public synchronized int keys() {
+      return values.size();
+    }
+
+    @Override
+    public int maxSize() {
+      return maxBatchSize;
+    }
+  }
+}
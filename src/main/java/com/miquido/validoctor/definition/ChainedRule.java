@@ -0,0 +1,197 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentCollector;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Rule applying its rules sequentially, stopping at the first one that fails, created with
+ * {@link Rules#chained(Rule[])}.<br>
+ * Rules are applied in a loop rather than through nested dependencies, and results of all but the last one are
+ * remembered for the patient during the examination, so that chains starting with the same rules test them once.<br>
+ * As if each rule depended on the previous one, a rule whose condition is not met is skipped together with all the
+ * rules before it.
+ * @param <T> type of patient
+ */
+public class ChainedRule<T> implements Rule<T> {
+
+  private static final Predicate<Object> UNKNOWN = patient -> true;
+
+  private final List<Rule<T>> rules;
+  private final Predicate<T> condition;
+  private final List<Predicate<T>> gates;
+  private final boolean gated;
+
+  public ChainedRule(List<Rule<T>> rules) {
+    this(rules, null);
+  }
+
+  /**
+   * @param rules rules to apply sequentially
+   * @param condition condition patient has to meet for the rules to be applied, or null if they always apply
+   */
+  public ChainedRule(List<Rule<T>> rules, Predicate<T> condition) {
+    this.rules = flatten(rules);
+    this.condition = condition;
+    this.gates = new ArrayList<>(this.rules.size());
+    boolean anyGate = false;
+    for (int i = 0; i < this.rules.size(); i++) {
+      Predicate<T> gate = gateOf(this.rules.get(i));
+      gate = gate == UNKNOWN ? null : gate;
+      gates.add(gate);
+      anyGate |= i > 0 && gate != null;
+    }
+    this.gated = anyGate;
+  }
+
+  /**
+   * @param rule rule to chain after other rules
+   * @return true if it is known whether the rule skips its dependency when its condition is not met, so it can be
+   * chained in a loop; other rules are chained with {@link Rule#withDependency(Rule)}
+   */
+  static boolean canFollow(Rule<?> rule) {
+    return gateOf(rule) != UNKNOWN;
+  }
+
+  @Override
+  public Set<Ailment> apply(T patient) {
+    AilmentCollector collector = new AilmentCollector();
+    apply(patient, new PathContext(), collector);
+    return collector.getAilments();
+  }
+
+  @Override
+  public boolean apply(T patient, PathContext path, AilmentSink sink) {
+    if (condition != null && !SharedCondition.test(condition, patient, path)) {
+      return true;
+    }
+    int first = firstApplied(patient, path);
+    int last = rules.size() - 1;
+    for (int i = first; i < last; i++) {
+      if (!Dependencies.apply(this, rules.get(i), patient, path, sink)) {
+        return false;
+      }
+    }
+    return first > last || AsyncRule.apply(rules.get(last), patient, path, sink);
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    if (condition != null && !condition.test(patient)) {
+      return true;
+    }
+    for (int i = firstApplied(patient, null); i < rules.size(); i++) {
+      if (!rules.get(i).passes(patient)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public MethodHandle passesHandle() {
+    if (gated) {
+      return RuleHandles.passes(this); //rules applied depend on conditions of the ones after them
+    }
+    MethodHandle rulesHandle = RuleHandles.all(rules);
+    return condition == null ? rulesHandle : RuleHandles.when(condition, rulesHandle);
+  }
+
+  @Override
+  public int estimatedCost() {
+    int cost = 0;
+    for (int i = 0; i < rules.size(); i++) {
+      cost += rules.get(i).estimatedCost();
+    }
+    return cost;
+  }
+
+  @Override
+  public Rule<T> withCondition(Predicate<T> condition) {
+    return new ChainedRule<>(rules, condition);
+  }
+
+  @Override
+  public Rule<T> withDependency(Rule<T> previousRule) {
+    List<Rule<T>> dependentRules = new ArrayList<>(rules.size() + 1);
+    dependentRules.add(previousRule);
+    dependentRules.addAll(rules);
+    return new ChainedRule<>(dependentRules, condition);
+  }
+
+  /**
+   * Creates chain whose last rule has specified violationMessage.
+   * @see Rule#withViolationMessage(String)
+   */
+  @Override
+  public Rule<T> withViolationMessage(String violationMessage) {
+    List<Rule<T>> namedRules = new ArrayList<>(rules);
+    int last = namedRules.size() - 1;
+    namedRules.set(last, namedRules.get(last).withViolationMessage(violationMessage));
+    return new ChainedRule<>(namedRules, condition);
+  }
+
+  /**
+   * @param patient patient to examine
+   * @param path path to the patient, or null outside of examination
+   * @return index of the first rule to apply: the one after the last rule whose condition the patient does not meet
+   */
+  private int firstApplied(T patient, PathContext path) {
+    if (gated) {
+      for (int i = rules.size() - 1; i > 0; i--) {
+        Predicate<T> gate = gates.get(i);
+        if (gate != null && !(path == null ? gate.test(patient) : SharedCondition.test(gate, patient, path))) {
+          return i + 1;
+        }
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return condition that skips the rule together with its dependency, null if the rule has none, or
+   * {@link ChainedRule#UNKNOWN} if the rule may handle dependencies in its own way
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> Predicate<T> gateOf(Rule<T> rule) {
+    Predicate<T> gate;
+    if (rule instanceof SimpleRule) {
+      gate = ((SimpleRule<T>) rule).getCondition();
+    } else if (rule instanceof BatchRule) {
+      gate = ((BatchRule<T>) rule).getCondition();
+    } else if (rule instanceof AsyncPredicateRule) {
+      gate = ((AsyncPredicateRule<T>) rule).getCondition();
+    } else if (rule instanceof BatchingLookupRule) {
+      gate = (Predicate<T>) ((BatchingLookupRule<?, ?>) rule).getCondition();
+    } else if (rule instanceof ChainedRule) {
+      gate = ((ChainedRule<T>) rule).condition;
+    } else if (rule instanceof NumericRule || rule instanceof ExaminationDefinition) {
+      gate = null; //numeric rules have no condition, definitions apply their dependency regardless of theirs
+    } else {
+      return (Predicate<T>) UNKNOWN;
+    }
+    return gate == SharedCondition.always() ? null : gate;
+  }
+
+  /**
+   * Splices rules of unconditional chains into the list, so that nested chains are applied in one loop.
+   */
+  private static <T> List<Rule<T>> flatten(List<Rule<T>> rules) {
+    List<Rule<T>> flat = new ArrayList<>(rules.size());
+    for (Rule<T> rule : rules) {
+      if (rule instanceof ChainedRule && ((ChainedRule<T>) rule).condition == null) {
+        flat.addAll(((ChainedRule<T>) rule).rules);
+      } else {
+        flat.add(rule);
+      }
+    }
+    return flat;
+  }
+}
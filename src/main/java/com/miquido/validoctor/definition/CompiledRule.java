@@ -0,0 +1,71 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.Validoctor;
+import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Rule specialized for the tree of rules it wraps, created by {@link Validoctor#compile(Rule)}.<br>
+ * {@link Rule#passesHandle() Handles} of all nested rules are composed into a single method handle, with fields read
+ * directly and predicates, conditions and dependencies bound as constants, which the JIT compiles as a whole instead of
+ * dispatching through the tree. Patients passing it need nothing more; only violating ones are examined by the wrapped
+ * rule, to report their violations. Results are identical to results of the wrapped rule.
+ * @param <T> type of patient
+ */
+public final class CompiledRule<T> implements Rule<T> {
+
+  private final Rule<T> rule;
+  private final MethodHandle passes;
+
+  public CompiledRule(Rule<T> rule) {
+    this.rule = rule;
+    this.passes = rule.passesHandle().asType(RuleHandles.PASSES_TYPE);
+  }
+
+  @Override
+  public Set<Ailment> apply(T patient) {
+    return passes(patient) ? Collections.emptySet() : rule.apply(patient);
+  }
+
+  @Override
+  public boolean apply(T patient, PathContext path, AilmentSink sink) {
+    return passes(patient) || rule.apply(patient, path, sink);
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    try {
+      return (boolean) passes.invokeExact((Object) patient);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public MethodHandle passesHandle() {
+    return passes;
+  }
+
+  @Override
+  public Rule<T> withCondition(Predicate<T> condition) {
+    return new CompiledRule<>(rule.withCondition(condition));
+  }
+
+  @Override
+  public Rule<T> withDependency(Rule<T> previousRule) {
+    return new CompiledRule<>(rule.withDependency(previousRule));
+  }
+
+  @Override
+  public Rule<T> withViolationMessage(String violationMessage) {
+    return new CompiledRule<>(rule.withViolationMessage(violationMessage));
+  }
+}
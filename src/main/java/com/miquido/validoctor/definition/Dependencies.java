@@ -0,0 +1,161 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentCollector;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.AsyncDiagnosisSink;
+import com.miquido.validoctor.result.DiagnosisSink;
+import com.miquido.validoctor.result.LookupScope;
+import com.miquido.validoctor.result.PathContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Application of rules that other rules depend on, memoized per patient and position in the examined object, so that
+ * a rule that many others depend on reports its violations and tests its predicate only once.<br>
+ * When the result of the rule waits for lookups of an optimistic {@link LookupScope}, the dependent rule is deferred
+ * to the scope, to be applied once the lookups are loaded. In asynchronous examinations, async rules of the rule are
+ * deferred to the examination, and so is the dependent rule, applied on its executor once they complete.
+ */
+final class Dependencies {
+
+  private Dependencies() {}
+
+  /**
+   * @param dependent rule depending on the dependency, applied again at the same position if it is deferred
+   * @param dependency rule others depend on
+   * @param patient patient to apply the rule to
+   * @param path path to the patient, remembering results of rules applied at its current position
+   * @param sink sink to report violations to
+   * @return true if the patient passes the rule; false also if the dependent rule was deferred
+   */
+  static <T> boolean apply(Rule<T> dependent, Rule<T> dependency, T patient, PathContext path, AilmentSink sink) {
+    Boolean passed = path.recall(dependency, patient);
+    if (passed != null) {
+      return passed;
+    } else if (sink instanceof AsyncDiagnosisSink) {
+      return applyAsync(dependent, dependency, patient, path, (AsyncDiagnosisSink) sink);
+    }
+    LookupScope lookups = sink instanceof DiagnosisSink ? LookupScope.current() : null;
+    if (lookups == null || !lookups.isOptimistic()) {
+      passed = dependency.apply(patient, path, sink);
+      path.remember(dependency, patient, passed);
+      return passed;
+    }
+    int pending = lookups.pending();
+    passed = AsyncRule.apply(dependency, patient, path, sink);
+    if (lookups.pending() == pending) {
+      path.remember(dependency, patient, passed);
+      return passed;
+    }
+    PathContext resumed = path.copy();
+    lookups.deferDependent(pending, passed, dependencyPassed -> {
+      resumed.remember(dependency, patient, dependencyPassed);
+      return dependent.apply(patient, resumed, sink);
+    });
+    return false;
+  }
+
+  private static <T> boolean applyAsync(Rule<T> dependent, Rule<T> dependency, T patient, PathContext path,
+                                        AsyncDiagnosisSink sink) {
+    DependencySink dependencySink = new DependencySink(sink);
+    boolean passed = AsyncRule.apply(dependency, patient, path, dependencySink);
+    if (!passed || dependencySink.deferred.isEmpty()) {
+      path.remember(dependency, patient, passed);
+      return passed;
+    }
+    List<CompletableFuture<Set<Ailment>>> deferred = dependencySink.deferred;
+    LookupScope lookups = LookupScope.current();
+    //failures and timeouts of the dependency are reported by its own futures
+    CompletableFuture<Boolean> completed = CompletableFuture.allOf(deferred.toArray(new CompletableFuture<?>[0]))
+        .handle((ignored, failure) -> failure == null);
+    //deferred as a whole, so that it is waited for until the deadline of the examination, like rules it depends on
+    sink.defer(path, completed.thenComposeAsync(dependencyCompleted -> {
+      for (CompletableFuture<Set<Ailment>> ailments : deferred) {
+        if (!dependencyCompleted || !ailments.join().isEmpty()) {
+          return CompletableFuture.completedFuture(Collections.<Ailment>emptySet());
+        }
+      }
+      PathContext resumed = new PathContext();
+      resumed.remember(dependency, patient, true);
+      ResumedSink resumedSink = new ResumedSink(sink);
+      LookupScope previous = LookupScope.enter(lookups);
+      try {
+        dependent.apply(patient, resumed, resumedSink);
+      } finally {
+        LookupScope.enter(previous);
+      }
+      return resumedSink.getAilments();
+    }, sink.getExecutor()));
+    return false;
+  }
+
+  /**
+   * Sink passing violations of a dependency on to the sink of the examination, keeping futures of its async rules.
+   */
+  private static final class DependencySink extends AsyncDiagnosisSink {
+    private final AsyncDiagnosisSink target;
+    private final List<CompletableFuture<Set<Ailment>>> deferred = new ArrayList<>(1);
+
+    DependencySink(AsyncDiagnosisSink target) {
+      super(target.getExecutor());
+      this.target = target;
+    }
+
+    @Override
+    public void report(PathContext path, String ailment) {
+      target.report(path, ailment);
+    }
+
+    @Override
+    public void defer(PathContext path, CompletableFuture<Set<Ailment>> ailments) {
+      deferred.add(ailments);
+      target.defer(path, ailments);
+    }
+  }
+
+  /**
+   * Sink of a dependent rule applied once its dependency completed, collecting its violations, deferred ones included,
+   * with field names relative to its patient.
+   */
+  private static final class ResumedSink extends AsyncDiagnosisSink {
+    private final AilmentCollector reported = new AilmentCollector();
+    private final List<CompletableFuture<Set<Ailment>>> deferred = new ArrayList<>();
+
+    ResumedSink(AsyncDiagnosisSink target) {
+      super(target.getExecutor());
+    }
+
+    @Override
+    public void report(PathContext path, String ailment) {
+      reported.report(path, ailment);
+    }
+
+    @Override
+    public void defer(PathContext path, CompletableFuture<Set<Ailment>> ailments) {
+      String field = path.render();
+      deferred.add(field == null ? ailments : ailments.thenApply(found -> {
+        Set<Ailment> relative = new HashSet<>();
+        for (Ailment ailment : found) {
+          relative.add(new Ailment(ailment.field == null ? field : field + "." + ailment.field, ailment.ailments));
+        }
+        return relative;
+      }));
+    }
+
+    CompletableFuture<Set<Ailment>> getAilments() {
+      return CompletableFuture.allOf(deferred.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+        Set<Ailment> ailments = new HashSet<>(reported.getAilments());
+        for (CompletableFuture<Set<Ailment>> found : deferred) {
+          ailments.addAll(found.join());
+        }
+        return ailments;
+      });
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.miquido.validoctor.definition;
+
+import java.util.function.DoublePredicate;
+
+/**
+ * Rule testing a {@code double} value of numeric patients. Null patients pass it, other numbers are converted with
+ * {@link Number#doubleValue()}.
+ * @param <T> type of patient
+ */
+public final class DoubleRule<T extends Number> extends NumericRule<T> {
+
+  private final DoublePredicate predicate;
+
+  public DoubleRule(String violationMessage, DoublePredicate predicate) {
+    super(violationMessage);
+    this.predicate = predicate;
+  }
+
+  public DoublePredicate getPredicate() {
+    return predicate;
+  }
+
+  @Override
+  public boolean testInt(int value) {
+    return predicate.test(value);
+  }
+
+  @Override
+  public boolean testLong(long value) {
+    return predicate.test(value);
+  }
+
+  @Override
+  public boolean testDouble(double value) {
+    return predicate.test(value);
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    return patient == null || predicate.test(patient.doubleValue());
+  }
+
+  @Override
+  public Rule<T> withViolationMessage(String violationMessage) {
+    return new DoubleRule<>(violationMessage, predicate);
+  }
+}
@@ -2,58 +2,128 @@ package com.miquido.validoctor.definition;
 
 import com.miquido.validoctor.execution.RuleExecution;
 import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentCollector;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.AsyncDiagnosisSink;
+import com.miquido.validoctor.result.MessageCodes;
+import com.miquido.validoctor.result.PathContext;
 
-import java.util.Collections;
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class ExaminationDefinition<T> implements Rule<T> {
 
   private final List<RuleExecution<T, ?>> ruleExecutions;
   private final Predicate<T> condition;
   private final Rule<T> dependency;
+  private final AdaptiveOrder<T, RuleExecution<T, ?>> adaptiveOrder;
   private String messageOverride;
 
   public ExaminationDefinition(List<RuleExecution<T, ?>> ruleExecutions) {
-    this(ruleExecutions, obj -> true, null);
+    this(ruleExecutions, SharedCondition.always(), null);
   }
 
   public ExaminationDefinition(List<RuleExecution<T, ?>> ruleExecutions, Predicate<T> condition, Rule<T> dependency) {
+    this(ruleExecutions, condition, dependency, false);
+  }
+
+  private ExaminationDefinition(List<RuleExecution<T, ?>> ruleExecutions, Predicate<T> condition, Rule<T> dependency,
+                                boolean adaptive) {
     this.ruleExecutions = ruleExecutions;
     this.condition = condition;
     this.dependency = dependency;
+    this.adaptiveOrder = adaptive ? new AdaptiveOrder<>(ruleExecutions, RuleExecution::passes) : null;
+  }
+
+  /**
+   * Creates definition that adapts order of its executions in {@link Rule#passes(Object)} to examined patients, as
+   * described in {@link Rules#adaptive(Rule)}.
+   * @return adaptive definition with the same executions, condition and dependency
+   */
+  public ExaminationDefinition<T> adaptive() {
+    ExaminationDefinition<T> adaptive = new ExaminationDefinition<>(ruleExecutions, condition, dependency, true);
+    adaptive.messageOverride = messageOverride;
+    return adaptive;
   }
 
   @Override
   public Set<Ailment> apply(T patient) {
-    Set<Ailment> dependencyAilments = dependency == null ? Collections.emptySet() : dependency.apply(patient);
-    if (condition.test(patient) && dependencyAilments.isEmpty()) {
-      return ruleExecutions.stream()
-          .flatMap(re -> re.perform(patient).stream())
-          .map(ailment -> {
-            if (messageOverride != null) return new Ailment(ailment.field, messageOverride);
-            else return ailment;
-          })
-          .collect(Collectors.toSet());
-    } else {
-      return dependencyAilments;
+    AilmentCollector collector = new AilmentCollector();
+    apply(patient, new PathContext(), collector);
+    return collector.getAilments();
+  }
+
+  @Override
+  public boolean apply(T patient, PathContext path, AilmentSink sink) {
+    boolean dependencyPassed = dependency == null || Dependencies.apply(this, dependency, patient, path, sink);
+    if (!SharedCondition.test(condition, patient, path) || !dependencyPassed) {
+      return dependencyPassed;
+    }
+    AilmentSink executionsSink = messageOverride == null ? sink
+        : sink instanceof AsyncDiagnosisSink ? ((AsyncDiagnosisSink) sink).withMessage(messageOverride)
+        : (ailmentPath, ailment) -> sink.report(ailmentPath, messageOverride);
+    boolean passed = true;
+    for (int i = 0; i < ruleExecutions.size(); i++) {
+      passed &= ruleExecutions.get(i).perform(patient, path, executionsSink);
+    }
+    return passed;
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    boolean dependencyPassed = dependency == null || dependency.passes(patient);
+    if (!condition.test(patient) || !dependencyPassed) {
+      return dependencyPassed;
+    }
+    if (adaptiveOrder != null) {
+      return adaptiveOrder.allPass(patient);
+    }
+    for (int i = 0; i < ruleExecutions.size(); i++) {
+      if (!ruleExecutions.get(i).passes(patient)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public MethodHandle passesHandle() {
+    if (adaptiveOrder != null) {
+      return RuleHandles.passes(this); //order changes at runtime, so it cannot be composed into a fixed handle
+    }
+    List<MethodHandle> executionHandles = new ArrayList<>(ruleExecutions.size());
+    for (RuleExecution<T, ?> execution : ruleExecutions) {
+      executionHandles.add(execution.passesHandle());
+    }
+    MethodHandle handle = RuleHandles.when(condition, RuleHandles.allHandles(executionHandles));
+    return dependency == null ? handle : RuleHandles.and(dependency.passesHandle(), handle);
+  }
+
+  @Override
+  public int estimatedCost() {
+    int cost = dependency == null ? 0 : dependency.estimatedCost();
+    for (int i = 0; i < ruleExecutions.size(); i++) {
+      cost += ruleExecutions.get(i).estimatedCost();
     }
+    return cost;
   }
 
   @Override
   public Rule<T> withCondition(Predicate<T> condition) {
-    return new ExaminationDefinition<>(ruleExecutions, condition, dependency);
+    return new ExaminationDefinition<>(ruleExecutions, condition, dependency, adaptiveOrder != null);
   }
 
   @Override
   public Rule<T> withDependency(Rule<T> previousRule) {
-    return new ExaminationDefinition<>(ruleExecutions, condition, previousRule);
+    return new ExaminationDefinition<>(ruleExecutions, condition, previousRule, adaptiveOrder != null);
   }
 
   @Override
   public Rule<T> withViolationMessage(String violationMessage) {
+    MessageCodes.register(violationMessage);
     messageOverride = violationMessage;
     return this;
   }
@@ -0,0 +1,49 @@
+package com.miquido.validoctor.definition;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Rule testing an {@code int} value of numeric patients. Null patients pass it, other numbers are converted with
+ * {@link Number#intValue()}.<br>
+ * {@link RuleBuilder#build()} rejects it on {@code long}, {@code float} and {@code double} fields and arrays, whose
+ * values it would truncate.
+ * @param <T> type of patient
+ */
+public final class IntRule<T extends Number> extends NumericRule<T> {
+
+  private final IntPredicate predicate;
+
+  public IntRule(String violationMessage, IntPredicate predicate) {
+    super(violationMessage);
+    this.predicate = predicate;
+  }
+
+  public IntPredicate getPredicate() {
+    return predicate;
+  }
+
+  @Override
+  public boolean testInt(int value) {
+    return predicate.test(value);
+  }
+
+  @Override
+  public boolean testLong(long value) {
+    return predicate.test((int) value);
+  }
+
+  @Override
+  public boolean testDouble(double value) {
+    return predicate.test((int) value);
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    return patient == null || predicate.test(patient.intValue());
+  }
+
+  @Override
+  public Rule<T> withViolationMessage(String violationMessage) {
+    return new IntRule<>(violationMessage, predicate);
+  }
+}
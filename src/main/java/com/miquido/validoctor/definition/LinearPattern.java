@@ -0,0 +1,646 @@
+package com.miquido.validoctor.definition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Regular expression matching input in time linear to its length, no matter the pattern.<br>
+ * Pattern is compiled into a nondeterministic automaton, which is lazily turned into a deterministic one while matching,
+ * so every character of input is looked at exactly once and no input can cause catastrophic backtracking.
+ * Only regular constructs are supported: literals and escapes, character classes, {@code .}, predefined classes
+ * ({@code \d \D \w \W \s \S}), groups, alternation, greedy and reluctant quantifiers, and {@code ^}/{@code $} at
+ * the ends of the pattern. Their meaning is the same as in {@link java.util.regex.Pattern}, and like in
+ * {@link String#matches(String)}, whole input has to match.<br>
+ * Instances are thread-safe.
+ */
+final class LinearPattern {
+
+  private static final int INFINITE = -1;
+  private static final int MAX_CODE_POINT = Character.MAX_CODE_POINT;
+  private static final int MAX_NFA_STATES = 10_000;
+  private static final int MAX_DFA_STATES = 2_000;
+  private static final int CACHED_CHARS = 128;
+
+  private static final int[] DIGITS = {'0', '9'};
+  private static final int[] WORD_CHARS = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+  private static final int[] WHITESPACES = {'\t', '\r', ' ', ' '};
+  private static final int[] ANY_BUT_LINE_TERMINATORS =
+      complement(normalize(new int[] {'\n', '\n', '\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029'}));
+
+  private final String regex;
+  private final State[] states;
+  private final ConcurrentHashMap<Key, DfaState> dfaStates = new ConcurrentHashMap<>();
+  private final DfaState start;
+
+  private LinearPattern(String regex, State[] states, State initial) {
+    this.regex = regex;
+    this.states = states;
+    this.start = dfaState(closure(Collections.singletonList(initial)));
+  }
+
+  /**
+   * @param regex regular expression
+   * @return compiled pattern
+   * @throws IllegalArgumentException if regex is malformed or uses constructs that cannot be matched in linear time,
+   *                                  like backreferences, lookarounds or possessive quantifiers
+   */
+  static LinearPattern compile(String regex) {
+    Node node = new Parser(regex).parse();
+    Compiler compiler = new Compiler(regex);
+    State initial = compiler.compile(node, compiler.newMatchState());
+    return new LinearPattern(regex, compiler.states.toArray(new State[0]), initial);
+  }
+
+  /**
+   * @param input input to match
+   * @return true if whole input matches this pattern
+   */
+  boolean matches(CharSequence input) {
+    DfaState state = start;
+    for (int i = 0; i < input.length(); ) {
+      int c = Character.codePointAt(input, i);
+      i += Character.charCount(c);
+      state = next(state, c);
+      if (state.states.length == 0) {
+        return false;
+      }
+    }
+    return state.accepting;
+  }
+
+  private DfaState next(DfaState from, int c) {
+    if (c < CACHED_CHARS && from.canonical) {
+      DfaState cached = from.transitions[c];
+      if (cached != null) {
+        return cached;
+      }
+    }
+    List<State> targets = new ArrayList<>();
+    for (State state : from.states) {
+      if (state.ranges != null && contains(state.ranges, c)) {
+        targets.add(state.out);
+      }
+    }
+    DfaState next = dfaState(closure(targets));
+    if (c < CACHED_CHARS && from.canonical && next.canonical) {
+      from.transitions[c] = next; //racing threads compute the same canonical state
+    }
+    return next;
+  }
+
+  private DfaState dfaState(int[] stateIds) {
+    Key key = new Key(stateIds);
+    DfaState state = dfaStates.get(key);
+    if (state != null) {
+      return state;
+    }
+    if (dfaStates.size() >= MAX_DFA_STATES) {
+      return new DfaState(toStates(stateIds), false); //still linear, just not cached
+    }
+    DfaState created = new DfaState(toStates(stateIds), true);
+    state = dfaStates.putIfAbsent(key, created);
+    return state == null ? created : state;
+  }
+
+  private State[] toStates(int[] stateIds) {
+    State[] result = new State[stateIds.length];
+    for (int i = 0; i < stateIds.length; i++) {
+      result[i] = states[stateIds[i]];
+    }
+    return result;
+  }
+
+  /**
+   * @return sorted ids of consuming and matching states reachable from specified states without consuming input
+   */
+  private int[] closure(List<State> from) {
+    BitSet reached = new BitSet(states.length);
+    BitSet visited = new BitSet(states.length);
+    List<State> stack = new ArrayList<>(from);
+    while (!stack.isEmpty()) {
+      State state = stack.remove(stack.size() - 1);
+      if (visited.get(state.id)) {
+        continue;
+      }
+      visited.set(state.id);
+      if (state.ranges != null || state.match) {
+        reached.set(state.id);
+      } else {
+        stack.add(state.out1);
+        stack.add(state.out);
+      }
+    }
+    return reached.stream().toArray();
+  }
+
+  private static boolean contains(int[] ranges, int c) {
+    for (int i = 0; i < ranges.length; i += 2) {
+      if (c < ranges[i]) {
+        return false;
+      }
+      if (c <= ranges[i + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return ranges sorted by their starts, with overlapping and adjacent ones joined
+   */
+  private static int[] normalize(int[] ranges) {
+    int count = ranges.length / 2;
+    long[] sorted = new long[count];
+    for (int i = 0; i < count; i++) {
+      sorted[i] = ((long) ranges[2 * i] << 32) | ranges[2 * i + 1];
+    }
+    Arrays.sort(sorted);
+    int[] result = new int[ranges.length];
+    int size = 0;
+    for (long range : sorted) {
+      int from = (int) (range >>> 32);
+      int to = (int) range;
+      if (size > 0 && from <= result[size - 1] + 1) {
+        result[size - 1] = Math.max(result[size - 1], to);
+      } else {
+        result[size++] = from;
+        result[size++] = to;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  private static int[] complement(int[] normalizedRanges) {
+    int[] result = new int[normalizedRanges.length + 2];
+    int size = 0;
+    int next = 0;
+    for (int i = 0; i < normalizedRanges.length; i += 2) {
+      if (normalizedRanges[i] > next) {
+        result[size++] = next;
+        result[size++] = normalizedRanges[i] - 1;
+      }
+      next = normalizedRanges[i + 1] + 1;
+    }
+    if (next <= MAX_CODE_POINT) {
+      result[size++] = next;
+      result[size++] = MAX_CODE_POINT;
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  @Override
+  public String toString() {
+    return regex;
+  }
+
+  private static final class State {
+    final int id;
+    final int[] ranges; //code points consumed by this state, null for splitting and matching states
+    final boolean match;
+    State out;
+    State out1;
+
+    State(int id, int[] ranges, boolean match) {
+      this.id = id;
+      this.ranges = ranges;
+      this.match = match;
+    }
+  }
+
+  private static final class DfaState {
+    final State[] states;
+    final boolean accepting;
+    final boolean canonical;
+    final DfaState[] transitions;
+
+    DfaState(State[] states, boolean canonical) {
+      this.states = states;
+      this.canonical = canonical;
+      this.transitions = canonical ? new DfaState[CACHED_CHARS] : null;
+      boolean accepting = false;
+      for (State state : states) {
+        accepting |= state.match;
+      }
+      this.accepting = accepting;
+    }
+  }
+
+  private static final class Key {
+    final int[] stateIds;
+    final int hash;
+
+    Key(int[] stateIds) {
+      this.stateIds = stateIds;
+      this.hash = Arrays.hashCode(stateIds);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Key && Arrays.equals(stateIds, ((Key) o).stateIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private abstract static class Node {
+  }
+
+  private static final class CharSetNode extends Node {
+    final int[] ranges;
+
+    CharSetNode(int[] ranges) {
+      this.ranges = ranges;
+    }
+  }
+
+  private static final class ConcatNode extends Node {
+    final List<Node> nodes;
+
+    ConcatNode(List<Node> nodes) {
+      this.nodes = nodes;
+    }
+  }
+
+  private static final class AltNode extends Node {
+    final List<Node> alternatives;
+
+    AltNode(List<Node> alternatives) {
+      this.alternatives = alternatives;
+    }
+  }
+
+  private static final class RepeatNode extends Node {
+    final Node node;
+    final int min;
+    final int max;
+
+    RepeatNode(Node node, int min, int max) {
+      this.node = node;
+      this.min = min;
+      this.max = max;
+    }
+  }
+
+  /**
+   * Builds automaton from the end, so that each node is compiled knowing the state that follows it.
+   */
+  private static final class Compiler {
+    final String regex;
+    final List<State> states = new ArrayList<>();
+
+    Compiler(String regex) {
+      this.regex = regex;
+    }
+
+    State compile(Node node, State next) {
+      if (node instanceof CharSetNode) {
+        State state = newState(((CharSetNode) node).ranges, false);
+        state.out = next;
+        return state;
+      } else if (node instanceof ConcatNode) {
+        List<Node> nodes = ((ConcatNode) node).nodes;
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+          next = compile(nodes.get(i), next);
+        }
+        return next;
+      } else if (node instanceof AltNode) {
+        List<Node> alternatives = ((AltNode) node).alternatives;
+        State result = compile(alternatives.get(alternatives.size() - 1), next);
+        for (int i = alternatives.size() - 2; i >= 0; i--) {
+          result = newSplit(compile(alternatives.get(i), next), result);
+        }
+        return result;
+      } else {
+        RepeatNode repeat = (RepeatNode) node;
+        State result = next;
+        if (repeat.max == INFINITE) {
+          State loop = newSplit(null, next);
+          loop.out = compile(repeat.node, loop);
+          result = loop;
+        } else {
+          for (int i = repeat.min; i < repeat.max; i++) {
+            result = newSplit(compile(repeat.node, result), next);
+          }
+        }
+        for (int i = 0; i < repeat.min; i++) {
+          result = compile(repeat.node, result);
+        }
+        return result;
+      }
+    }
+
+    State newMatchState() {
+      return newState(null, true);
+    }
+
+    private State newSplit(State out, State out1) {
+      State split = newState(null, false);
+      split.out = out;
+      split.out1 = out1;
+      return split;
+    }
+
+    private State newState(int[] ranges, boolean match) {
+      if (states.size() == MAX_NFA_STATES) {
+        throw new IllegalArgumentException("Regex is too large to be matched in linear time: " + regex);
+      }
+      State state = new State(states.size(), ranges, match);
+      states.add(state);
+      return state;
+    }
+  }
+
+  private static final class Parser {
+    final String regex;
+    int pos;
+
+    Parser(String regex) {
+      this.regex = regex;
+    }
+
+    Node parse() {
+      accept('^');
+      Node node = alternation();
+      if (pos < regex.length()) {
+        throw error("Unmatched closing ')'");
+      }
+      return node;
+    }
+
+    private Node alternation() {
+      List<Node> alternatives = new ArrayList<>();
+      alternatives.add(concatenation());
+      while (accept('|')) {
+        alternatives.add(concatenation());
+      }
+      return alternatives.size() == 1 ? alternatives.get(0) : new AltNode(alternatives);
+    }
+
+    private Node concatenation() {
+      List<Node> nodes = new ArrayList<>();
+      while (pos < regex.length() && peek() != '|' && peek() != ')') {
+        if (peek() == '$' && pos == regex.length() - 1) {
+          pos++; //whole input has to match anyway
+        } else {
+          nodes.add(repetition());
+        }
+      }
+      return nodes.size() == 1 ? nodes.get(0) : new ConcatNode(nodes);
+    }
+
+    private Node repetition() {
+      Node node = atom();
+      boolean symbolQuantified = false;
+      while (pos < regex.length()) {
+        char c = peek();
+        int min;
+        int max;
+        if (c == '*' || c == '+' || c == '?') {
+          if (symbolQuantified) {
+            throw error("Dangling meta character '" + c + "'");
+          }
+          symbolQuantified = true;
+          pos++;
+          min = c == '+' ? 1 : 0;
+          max = c == '?' ? 1 : INFINITE;
+        } else if (c == '{') {
+          pos++;
+          min = number();
+          max = min;
+          if (accept(',')) {
+            max = pos < regex.length() && Character.isDigit(peek()) ? number() : INFINITE;
+          }
+          if (!accept('}') || max != INFINITE && max < min) {
+            throw error("Illegal repetition range");
+          }
+        } else {
+          break;
+        }
+        if (accept('+')) {
+          throw unsupported("possessive quantifiers");
+        }
+        accept('?'); //reluctant quantifiers do not change whether whole input matches
+        node = new RepeatNode(node, min, max);
+      }
+      return node;
+    }
+
+    private Node atom() {
+      int c = regex.codePointAt(pos);
+      pos += Character.charCount(c);
+      switch (c) {
+        case '(':
+          if (accept('?')) {
+            if (accept('<') && pos < regex.length() && Character.isLetter(peek())) {
+              pos = regex.indexOf('>', pos) + 1; //named group, the name does not matter for matching
+              if (pos == 0) {
+                throw error("Named group is not closed");
+              }
+            } else if (!accept(':')) {
+              throw unsupported("lookarounds, inline flags and special groups");
+            }
+          }
+          Node group = alternation();
+          if (!accept(')')) {
+            throw error("Unclosed group");
+          }
+          return group;
+        case '[':
+          return new CharSetNode(charClass());
+        case '.':
+          return new CharSetNode(ANY_BUT_LINE_TERMINATORS);
+        case '\\':
+          return new CharSetNode(escape());
+        case '*':
+        case '+':
+        case '?':
+          throw error("Dangling meta character '" + (char) c + "'");
+        case '{':
+          throw error("Illegal repetition");
+        case '^':
+        case '$':
+          throw unsupported("anchors anywhere but at the ends of the pattern");
+        default:
+          return new CharSetNode(new int[] {c, c});
+      }
+    }
+
+    private int[] charClass() {
+      boolean negated = accept('^');
+      List<int[]> parts = new ArrayList<>();
+      boolean first = true;
+      while (first || peek() != ']') {
+        if (pos >= regex.length()) {
+          throw error("Unclosed character class");
+        }
+        first = false;
+        if (peek() == '[' || regex.startsWith("&&", pos)) {
+          throw unsupported("unions and intersections of character classes");
+        }
+        int[] from = classElement();
+        if (from.length == 2 && from[0] == from[1] && peek() == '-' && pos + 1 < regex.length()
+            && regex.charAt(pos + 1) != ']') {
+          pos++;
+          int[] to = classElement();
+          if (to.length != 2 || to[0] != to[1] || to[0] < from[0]) {
+            throw error("Illegal character range");
+          }
+          parts.add(new int[] {from[0], to[0]});
+        } else {
+          parts.add(from);
+        }
+      }
+      pos++;
+      int size = 0;
+      for (int[] part : parts) {
+        size += part.length;
+      }
+      int[] ranges = new int[size];
+      size = 0;
+      for (int[] part : parts) {
+        System.arraycopy(part, 0, ranges, size, part.length);
+        size += part.length;
+      }
+      ranges = normalize(ranges);
+      return negated ? complement(ranges) : ranges;
+    }
+
+    private int[] classElement() {
+      int c = regex.codePointAt(pos);
+      pos += Character.charCount(c);
+      return c == '\\' ? escape() : new int[] {c, c};
+    }
+
+    private int[] escape() {
+      if (pos >= regex.length()) {
+        throw error("Unexpected end of pattern");
+      }
+      char c = regex.charAt(pos++);
+      switch (c) {
+        case 'd':
+          return DIGITS;
+        case 'D':
+          return complement(DIGITS);
+        case 'w':
+          return WORD_CHARS;
+        case 'W':
+          return complement(WORD_CHARS);
+        case 's':
+          return WHITESPACES;
+        case 'S':
+          return complement(WHITESPACES);
+        case 't':
+          return single('\t');
+        case 'n':
+          return single('\n');
+        case 'r':
+          return single('\r');
+        case 'f':
+          return single('\f');
+        case 'a':
+          return single('\u0007');
+        case 'e':
+          return single('\u001B');
+        case '0':
+          return single(octal());
+        case 'x':
+          return single(hex());
+        case 'u':
+          return single(hex(4));
+        default:
+          if (Character.isLetterOrDigit(c)) {
+            throw unsupported("escape \\" + c);
+          }
+          return single(c);
+      }
+    }
+
+    private int octal() {
+      int value = 0;
+      int digits = 0;
+      while (digits < 3 && pos < regex.length() && peek() >= '0' && peek() <= '7'
+          && value * 8 + (peek() - '0') <= 0377) {
+        value = value * 8 + (regex.charAt(pos++) - '0');
+        digits++;
+      }
+      if (digits == 0) {
+        throw error("Illegal octal escape sequence");
+      }
+      return value;
+    }
+
+    private int hex() {
+      if (!accept('{')) {
+        return hex(2);
+      }
+      int end = regex.indexOf('}', pos);
+      if (end < 0) {
+        throw error("Unclosed hexadecimal escape sequence");
+      }
+      int value = hex(end - pos);
+      pos++;
+      if (value > MAX_CODE_POINT) {
+        throw error("Hexadecimal code point is too big");
+      }
+      return value;
+    }
+
+    private int hex(int digits) {
+      if (digits == 0 || digits > 8 || pos + digits > regex.length()) {
+        throw error("Illegal hexadecimal escape sequence");
+      }
+      int value = 0;
+      for (int i = 0; i < digits; i++) {
+        int digit = Character.digit(regex.charAt(pos++), 16);
+        if (digit < 0) {
+          throw error("Illegal hexadecimal escape sequence");
+        }
+        value = value * 16 + digit;
+      }
+      return value;
+    }
+
+    private int number() {
+      int start = pos;
+      while (pos < regex.length() && Character.isDigit(peek())) {
+        pos++;
+      }
+      if (start == pos || pos - start > 5) {
+        throw error("Illegal repetition");
+      }
+      return Integer.parseInt(regex.substring(start, pos));
+    }
+
+    private static int[] single(int c) {
+      return new int[] {c, c};
+    }
+
+    private char peek() {
+      return pos < regex.length() ? regex.charAt(pos) : '\0';
+    }
+
+    private boolean accept(char c) {
+      if (pos < regex.length() && regex.charAt(pos) == c) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private IllegalArgumentException error(String description) {
+      return new IllegalArgumentException(description + " near index " + pos + " of regex " + regex);
+    }
+
+    private IllegalArgumentException unsupported(String construct) {
+      return new IllegalArgumentException("Linear time matching does not support " + construct + ", found in regex "
+          + regex);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.miquido.validoctor.definition;
+
+import java.util.function.LongPredicate;
+
+/**
+ * Rule testing a {@code long} value of numeric patients. Null patients pass it, other numbers are converted with
+ * {@link Number#longValue()}.
+ * @param <T> type of patient
+ */
+public final class LongRule<T extends Number> extends NumericRule<T> {
+
+  private final LongPredicate predicate;
+
+  public LongRule(String violationMessage, LongPredicate predicate) {
+    super(violationMessage);
+    this.predicate = predicate;
+  }
+
+  public LongPredicate getPredicate() {
+    return predicate;
+  }
+
+  @Override
+  public boolean testInt(int value) {
+    return predicate.test(value);
+  }
+
+  @Override
+  public boolean testLong(long value) {
+    return predicate.test(value);
+  }
+
+  @Override
+  public boolean testDouble(double value) {
+    return predicate.test((long) value);
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    return patient == null || predicate.test(patient.longValue());
+  }
+
+  @Override
+  public Rule<T> withViolationMessage(String violationMessage) {
+    return new LongRule<>(violationMessage, predicate);
+  }
+}
@@ -0,0 +1,177 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.LookupScope;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Rule remembering ailments found by another rule in recently tested patients, so that an expensive rule applied to
+ * repetitive values, like codes checked against a pattern or a large set, tests each distinct value only once.<br>
+ * At most {@code maxEntries} results are kept, in segments locked independently of each other, each evicting the
+ * result used least recently, so that eviction is approximately LRU. Only patients of immutable types, like strings,
+ * boxed primitives or enums, are remembered by default, as results for mutable ones could go stale.
+ * @param <T> type of patient
+ */
+public class MemoizedRule<T> implements Rule<T> {
+
+  private static final int MAX_SEGMENTS = 16;
+  private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+      String.class, Integer.class, Long.class, Short.class, Byte.class, Character.class, Boolean.class,
+      Double.class, Float.class, BigInteger.class, BigDecimal.class, UUID.class));
+
+  private final Rule<T> rule;
+  private final int maxEntries;
+  private final Predicate<T> cacheable;
+  private final Segment<T>[] segments;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * @param rule rule to memoize
+   * @param maxEntries maximum number of remembered results
+   */
+  public MemoizedRule(Rule<T> rule, int maxEntries) {
+    this(rule, maxEntries, MemoizedRule::isImmutable);
+  }
+
+  /**
+   * @param rule rule to memoize
+   * @param maxEntries maximum number of remembered results
+   * @param cacheable tells if results for a patient can be remembered, never given null
+   */
+  @SuppressWarnings("unchecked")
+  public MemoizedRule(Rule<T> rule, int maxEntries, Predicate<T> cacheable) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries must be positive, was " + maxEntries);
+    }
+    this.rule = rule;
+    this.maxEntries = maxEntries;
+    this.cacheable = cacheable;
+    int segmentCount = Integer.highestOneBit(Math.min(MAX_SEGMENTS, maxEntries));
+    this.segments = (Segment<T>[]) new Segment<?>[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      //first segments take the remainder, so that capacities sum up to maxEntries
+      segments[i] = new Segment<>(maxEntries / segmentCount + (i < maxEntries % segmentCount ? 1 : 0));
+    }
+  }
+
+  @Override
+  public Set<Ailment> apply(T patient) {
+    if (patient == null || !cacheable.test(patient)) {
+      return rule.apply(patient);
+    }
+    Segment<T> segment = segmentOf(patient);
+    Set<Ailment> ailments = segment.get(patient);
+    if (ailments != null) {
+      hits.increment();
+      return ailments;
+    }
+    misses.increment();
+    LookupScope lookups = LookupScope.current();
+    int requests = lookups == null ? 0 : lookups.requests();
+    ailments = Collections.unmodifiableSet(rule.apply(patient));
+    if (lookups == null || !lookups.isOptimistic() || lookups.requests() == requests) {
+      segment.put(patient, ailments); //lookup rules pass without testing in optimistic scopes, so those are not kept
+    }
+    return ailments;
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    return patient == null || !cacheable.test(patient) ? rule.passes(patient) : apply(patient).isEmpty();
+  }
+
+  @Override
+  public int estimatedCost() {
+    return Math.min(DEFAULT_COST, rule.estimatedCost());
+  }
+
+  @Override
+  public Rule<T> withCondition(Predicate<T> condition) {
+    return new MemoizedRule<>(rule.withCondition(condition), maxEntries, cacheable);
+  }
+
+  @Override
+  public Rule<T> withDependency(Rule<T> previousRule) {
+    return new MemoizedRule<>(rule.withDependency(previousRule), maxEntries, cacheable);
+  }
+
+  @Override
+  public Rule<T> withViolationMessage(String violationMessage) {
+    return new MemoizedRule<>(rule.withViolationMessage(violationMessage), maxEntries, cacheable);
+  }
+
+  /**
+   * @return number of tests answered with a remembered result
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * @return number of tests of cacheable patients that had to apply the memoized rule
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * @return number of currently remembered results
+   */
+  public int size() {
+    int size = 0;
+    for (Segment<T> segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  private Segment<T> segmentOf(T patient) {
+    int hash = patient.hashCode();
+    hash ^= hash >>> 16;
+    return segments[hash & (segments.length - 1)];
+  }
+
+  private static boolean isImmutable(Object patient) {
+    return IMMUTABLE_TYPES.contains(patient.getClass()) || patient instanceof Enum;
+  }
+
+  /**
+   * Part of remembered results, evicting the least recently used one when full.
+   */
+  private static final class Segment<T> {
+    private final Map<T, Set<Ailment>> entries;
+
+    Segment(int capacity) {
+      this.entries = new LinkedHashMap<T, Set<Ailment>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<T, Set<Ailment>> eldest) {
+          return size() > capacity;
+        }
+      };
+    }
+
+    synchronized Set<Ailment> get(T patient) {
+      return entries.get(patient);
+    }
+
+    synchronized void put(T patient, Set<Ailment> ailments) {
+      entries.put(patient, ailments);
+    }
+
+    synchronized int size() {
+      return entries.size();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.miquido.validoctor.definition;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rule of {@link Rules#numberInRange(Number, Number)}.<br>
+ * Numbers are compared as longs if all of them are integral and as {@link BigDecimal} if any of them is big, so that
+ * precision is not lost by {@link Number#doubleValue()}. Other numbers are compared as doubles.
+ * @param <T> type of patient
+ */
+final class NumberRangeRule<T extends Number> extends NumericRule<T> {
+
+  private final Number minRange;
+  private final Number maxRange;
+  private final boolean integralRange;
+  private final boolean finiteRange;
+  private final boolean bigRange;
+  private final long minLong;
+  private final long maxLong;
+  private final double minDouble;
+  private final double maxDouble;
+
+  NumberRangeRule(String violationMessage, Number minRange, Number maxRange) {
+    super(violationMessage);
+    this.minRange = minRange;
+    this.maxRange = maxRange;
+    this.integralRange = isIntegral(minRange) && isIntegral(maxRange);
+    this.finiteRange = isFinite(minRange) && isFinite(maxRange);
+    this.bigRange = finiteRange && (isBig(minRange) || isBig(maxRange));
+    this.minLong = minRange.longValue();
+    this.maxLong = maxRange.longValue();
+    this.minDouble = minRange.doubleValue();
+    this.maxDouble = maxRange.doubleValue();
+  }
+
+  @Override
+  public boolean testInt(int value) {
+    return testLong(value);
+  }
+
+  @Override
+  public boolean testLong(long value) {
+    if (integralRange) {
+      return value >= minLong && value <= maxLong;
+    }
+    if (bigRange) {
+      return inBigRange(BigDecimal.valueOf(value));
+    }
+    return value >= minDouble && value <= maxDouble;
+  }
+
+  @Override
+  public boolean testDouble(double value) {
+    if (bigRange && !Double.isNaN(value) && !Double.isInfinite(value)) {
+      return inBigRange(new BigDecimal(value));
+    }
+    return value >= minDouble && value <= maxDouble;
+  }
+
+  @Override
+  public void testColumn(int[] values, BitSet violations) {
+    if (!integralRange) {
+      super.testColumn(values, violations);
+      return;
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] < minLong || values[i] > maxLong) {
+        violations.set(i);
+      }
+    }
+  }
+
+  @Override
+  public void testColumn(long[] values, BitSet violations) {
+    if (!integralRange) {
+      super.testColumn(values, violations);
+      return;
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] < minLong || values[i] > maxLong) {
+        violations.set(i);
+      }
+    }
+  }
+
+  @Override
+  public void testColumn(double[] values, BitSet violations) {
+    if (bigRange) {
+      super.testColumn(values, violations);
+      return;
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (!(values[i] >= minDouble && values[i] <= maxDouble)) { //NaN violates the range
+        violations.set(i);
+      }
+    }
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    if (patient == null) {
+      return true;
+    }
+    if (isIntegral(patient)) {
+      return testLong(patient.longValue());
+    }
+    if (isBig(patient) && finiteRange) {
+      return inBigRange(toBigDecimal(patient));
+    }
+    double value = patient.doubleValue();
+    return value >= minDouble && value <= maxDouble;
+  }
+
+  @Override
+  public Rule<T> withViolationMessage(String violationMessage) {
+    return new NumberRangeRule<>(violationMessage, minRange, maxRange);
+  }
+
+  private boolean inBigRange(BigDecimal value) {
+    return value.compareTo(toBigDecimal(minRange)) >= 0 && value.compareTo(toBigDecimal(maxRange)) <= 0;
+  }
+
+  private static boolean isIntegral(Number number) {
+    return number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte
+        || number instanceof AtomicInteger || number instanceof AtomicLong;
+  }
+
+  private static boolean isBig(Number number) {
+    return number instanceof BigDecimal || number instanceof BigInteger;
+  }
+
+  private static boolean isFinite(Number number) {
+    return isIntegral(number) || isBig(number) || !Double.isNaN(number.doubleValue())
+        && !Double.isInfinite(number.doubleValue());
+  }
+
+  private static BigDecimal toBigDecimal(Number number) {
+    if (number instanceof BigDecimal) {
+      return (BigDecimal) number;
+    }
+    if (number instanceof BigInteger) {
+      return new BigDecimal((BigInteger) number);
+    }
+    if (isIntegral(number)) {
+      return BigDecimal.valueOf(number.longValue());
+    }
+    return new BigDecimal(number.doubleValue());
+  }
+}
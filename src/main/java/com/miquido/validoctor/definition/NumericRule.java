@@ -0,0 +1,163 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.MessageCodes;
+import com.miquido.validoctor.result.PathContext;
+
+import java.lang.reflect.Array;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Rule for numeric patients that can also test unboxed values.<br>
+ * Applied to fields and elements of arrays of numeric primitive types, it is given their values without boxing.
+ * Unboxed tests give the same results as {@link Rule#passes(Object)} given the boxed value.
+ * Null patients pass it.
+ * @param <T> type of patient
+ */
+public abstract class NumericRule<T extends Number> implements Rule<T> {
+
+  protected final String violationMessage;
+
+  protected NumericRule(String violationMessage) {
+    MessageCodes.register(violationMessage); //registered early, so that messages of rules get the smallest codes
+    this.violationMessage = violationMessage;
+  }
+
+  /**
+   * @param value value of {@code byte}, {@code short} or {@code int} patient
+   * @return true if value passes this rule
+   */
+  public abstract boolean testInt(int value);
+
+  /**
+   * @param value value of {@code long} patient
+   * @return true if value passes this rule
+   */
+  public abstract boolean testLong(long value);
+
+  /**
+   * @param value value of {@code float} or {@code double} patient
+   * @return true if value passes this rule
+   */
+  public abstract boolean testDouble(double value);
+
+  /**
+   * Tests a column of values, marking indexes of values violating this rule.
+   * @param values values of {@code int} column
+   * @param violations set to mark indexes of violating values in
+   */
+  public void testColumn(int[] values, BitSet violations) {
+    testEach(values, values.length, violations);
+  }
+
+  /**
+   * Tests a column of values, marking indexes of values violating this rule.
+   * @param values values of {@code long} column
+   * @param violations set to mark indexes of violating values in
+   */
+  public void testColumn(long[] values, BitSet violations) {
+    testEach(values, values.length, violations);
+  }
+
+  /**
+   * Tests a column of values, marking indexes of values violating this rule.
+   * @param values values of {@code double} column
+   * @param violations set to mark indexes of violating values in
+   */
+  public void testColumn(double[] values, BitSet violations) {
+    testEach(values, values.length, violations);
+  }
+
+  /**
+   * Tests a column of values, marking indexes of values violating this rule. Columns of {@code int}, {@code long} and
+   * {@code double} values are tested by the overloads of this method for them.
+   * @param values numeric primitive array, as accepted by {@link NumericRule#isColumn(Object)}
+   * @param violations set to mark indexes of violating values in
+   */
+  public void testColumn(Object values, BitSet violations) {
+    if (values instanceof int[]) {
+      testColumn((int[]) values, violations);
+    } else if (values instanceof long[]) {
+      testColumn((long[]) values, violations);
+    } else if (values instanceof double[]) {
+      testColumn((double[]) values, violations);
+    } else {
+      testEach(values, Array.getLength(values), violations);
+    }
+  }
+
+  private void testEach(Object values, int length, BitSet violations) {
+    for (int i = 0; i < length; i++) {
+      if (!testAt(values, i)) {
+        violations.set(i);
+      }
+    }
+  }
+
+  /**
+   * @param values numeric primitive array, as accepted by {@link NumericRule#isColumn(Object)}
+   * @param index index of the value to test
+   * @return true if the value passes this rule, tested by method for its primitive kind
+   */
+  public boolean testAt(Object values, int index) {
+    if (values instanceof int[]) {
+      return testInt(((int[]) values)[index]);
+    } else if (values instanceof long[]) {
+      return testLong(((long[]) values)[index]);
+    } else if (values instanceof double[]) {
+      return testDouble(((double[]) values)[index]);
+    } else if (values instanceof float[]) {
+      return testDouble(((float[]) values)[index]);
+    } else if (values instanceof short[]) {
+      return testInt(((short[]) values)[index]);
+    } else {
+      return testInt(((byte[]) values)[index]);
+    }
+  }
+
+  /**
+   * @param values any value
+   * @return true if values are an array of numeric primitive type, which numeric rules can test without boxing
+   */
+  public static boolean isColumn(Object values) {
+    return values instanceof int[] || values instanceof long[] || values instanceof double[]
+        || values instanceof float[] || values instanceof short[] || values instanceof byte[];
+  }
+
+  public String getViolationMessage() {
+    return violationMessage;
+  }
+
+  @Override
+  public Set<Ailment> apply(T patient) {
+    return passes(patient) ? Collections.emptySet() : Collections.singleton(new Ailment(null, violationMessage));
+  }
+
+  @Override
+  public boolean apply(T patient, PathContext path, AilmentSink sink) {
+    if (passes(patient)) {
+      return true;
+    }
+    sink.report(path, violationMessage);
+    return false;
+  }
+
+  @Override
+  public int estimatedCost() {
+    return CHEAP_COST;
+  }
+
+  @Override
+  public Rule<T> withCondition(Predicate<T> condition) {
+    return new SimpleRule<>(violationMessage, this::passes, condition, null, CHEAP_COST);
+  }
+
+  @Override
+  public Rule<T> withDependency(Rule<T> previousRule) {
+    return new SimpleRule<>(violationMessage, this::passes, SharedCondition.always(), previousRule, CHEAP_COST);
+  }
+}
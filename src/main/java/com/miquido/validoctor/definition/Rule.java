@@ -2,7 +2,10 @@ package com.miquido.validoctor.definition;
 
 import com.miquido.validoctor.Validoctor;
 import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
 
+import java.lang.invoke.MethodHandle;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -12,8 +15,77 @@ import java.util.function.Predicate;
  * @param <T> type of patient
  */
 public interface Rule<T> {
+  /**
+   * Estimated cost of rules doing constant-time checks, like null, length and range checks.
+   */
+  int CHEAP_COST = 1;
+  /**
+   * Estimated cost of rules of unknown complexity, or scanning the patient.
+   */
+  int DEFAULT_COST = 4;
+  /**
+   * Estimated cost of rules matching regular expressions.
+   */
+  int EXPENSIVE_COST = 16;
+
   Set<Ailment> apply(T patient);
 
+  /**
+   * Applies the rule, reporting all violations to specified sink instead of returning them. This way all rules of
+   * an examination, no matter how deeply nested, write into one accumulator.<br>
+   * Default implementation adapts {@link Rule#apply(Object)}; rules nesting other rules should override it and pass
+   * the path and sink down, pushing names of fields they descend into onto the path.
+   * @param patient patient to examine
+   * @param path path to the patient, left unchanged by this method
+   * @param sink sink to report violations to
+   * @return true if no violations were reported
+   */
+  default boolean apply(T patient, PathContext path, AilmentSink sink) {
+    boolean passed = true;
+    for (Ailment ailment : apply(patient)) {
+      path.push(ailment.field);
+      for (String message : ailment.ailments) {
+        sink.report(path, message);
+        passed = false;
+      }
+      path.pop();
+    }
+    return passed;
+  }
+
+  /**
+   * Checks whether patient passes the rule, stopping at first violation found. Nothing is reported, so no messages
+   * nor field names are built.<br>
+   * Default implementation adapts {@link Rule#apply(Object)}; implementing classes should override it with
+   * a short-circuiting check.
+   * @param patient patient to examine
+   * @return true if patient does not violate the rule
+   */
+  default boolean passes(T patient) {
+    return apply(patient).isEmpty();
+  }
+
+  /**
+   * Returns handle equivalent to {@link Rule#passes(Object)}, of {@link RuleHandles#PASSES_TYPE} type. Rules nesting
+   * other rules should override it and compose handles of nested rules with {@link RuleHandles}, so that
+   * {@link Validoctor#compile(Rule) compiled} rule tree is a single handle the JIT can inline as a whole.<br>
+   * Default implementation calls {@link Rule#passes(Object)}.
+   * @return handle checking whether patient passes the rule
+   */
+  default MethodHandle passesHandle() {
+    return RuleHandles.passes(this);
+  }
+
+  /**
+   * Estimates relative cost of applying the rule to a patient, so that {@link RuleBuilder#build()} can order rules
+   * cheapest first. It does not affect results, only how fast failing patients are rejected.<br>
+   * Default implementation returns {@link Rule#DEFAULT_COST}; rules nesting other rules should sum their costs.
+   * @return estimated cost, {@link Rule#CHEAP_COST} for constant-time checks
+   */
+  default int estimatedCost() {
+    return DEFAULT_COST;
+  }
+
   /**
    * Creates and returns a new instance of this Rule, that only tests its predicate if the specified condition is met.
    * @param condition condition required to test the rule
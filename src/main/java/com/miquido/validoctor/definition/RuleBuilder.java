@@ -6,20 +6,41 @@ import com.miquido.validoctor.result.Diagnosis;
 import com.miquido.validoctor.target.*;
 import org.jetbrains.annotations.NotNull;
 
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class RuleBuilder<T> {
 
   final List<RuleExecution<T, ?>> ruleExecutions;
   final Class<T> objectClass;
+  final MethodHandles.Lookup lookup;
 
   public RuleBuilder(Class<T> objectClass) {
+    this(objectClass, null);
+  }
+
+  /**
+   * @param objectClass class of patient
+   * @param lookup lookup used to resolve fields of patient class, or null to resolve them with reflection
+   */
+  public RuleBuilder(Class<T> objectClass, MethodHandles.Lookup lookup) {
     this.objectClass = objectClass;
+    this.lookup = lookup;
     ruleExecutions = new ArrayList<>();
   }
 
@@ -46,12 +67,8 @@ public class RuleBuilder<T> {
    */
   @SafeVarargs
   public final <P> RuleBuilder<T> field(String field, String fieldDisplayName, Rule<P>... rules) {
-    FieldRuleTarget<T, P> target = new FieldRuleTarget<>(field, fieldDisplayName, objectClass);
-    List<RuleExecution<T, P>> executions = Arrays.stream(rules)
-        .map(rule -> new FieldRuleExecution<>(target, rule))
-        .collect(Collectors.toList());
-    ruleExecutions.addAll(executions);
-    return this;
+    FieldRuleTarget<T, P> target = new FieldRuleTarget<>(field, fieldDisplayName, objectClass, lookup);
+    return addExecution(new FieldRuleExecution<>(target, Arrays.asList(rules)));
   }
 
   /**
@@ -69,20 +86,58 @@ public class RuleBuilder<T> {
 
   /**
    * Add rules for elements of a collection-type field.
+   * The field may hold any {@link Iterable}, {@link java.util.Iterator Iterator},
+   * {@link java.util.stream.BaseStream Stream} or array. Elements are iterated in place, without copying - iterators
+   * and streams are consumed, so lazily produced sequences are examined in constant memory. Elements of numeric
+   * primitive arrays are not boxed if all the rules are {@link NumericRule NumericRules}.
    * @param field field name
    * @param fieldDisplayName field name to display in resulting {@link Diagnosis} object
    * @param rules rules
    * @param <P> elements type
    * @return builder
+   * @throws IllegalArgumentException if type of the field cannot hold elements
    */
   @SafeVarargs
   public final <P> RuleBuilder<T> elements(String field, String fieldDisplayName, Rule<P>... rules) {
-    CollectionFieldRuleTarget<T, P> collectionTarget = new CollectionFieldRuleTarget<>(field, fieldDisplayName, objectClass);
-    List<RuleExecution<T, P>> executions = Arrays.stream(rules)
-        .map(rule -> new CollectionFieldRuleExecution<>(collectionTarget, rule))
-        .collect(Collectors.toList());
-    ruleExecutions.addAll(executions);
-    return this;
+    CollectionFieldRuleTarget<T, P> collectionTarget = new CollectionFieldRuleTarget<>(field, fieldDisplayName, objectClass, lookup);
+    return addExecution(new CollectionFieldRuleExecution<>(collectionTarget, Arrays.asList(rules)));
+  }
+
+  /**
+   * Add rules for elements of a collection-type field, examining collections of at least specified size in parallel
+   * on {@link ForkJoinPool#commonPool() common pool}.
+   * Overload of {@link RuleBuilder#parallelElements(String, String, int, ForkJoinPool, Rule[])} that uses actual field
+   * name for display purposes as well.
+   * @param field field name
+   * @param threshold minimal size of collection to examine in parallel
+   * @param rules rules
+   * @param <P> elements type
+   * @return builder
+   */
+  @SafeVarargs
+  public final <P> RuleBuilder<T> parallelElements(String field, int threshold, Rule<P>... rules) {
+    return parallelElements(field, field, threshold, ForkJoinPool.commonPool(), rules);
+  }
+
+  /**
+   * Add rules for elements of a collection-type field, examining collections of at least specified size in parallel.
+   * Collection is split into chunks examined on the pool, and their ailments are reported in order of elements,
+   * so the resulting {@link Diagnosis} is the same as with {@link RuleBuilder#elements(String, String, Rule[])}.<br>
+   * The rules must be safe to apply concurrently - all rules in {@link Rules} are. Fields holding elements that are
+   * not a {@link java.util.Collection Collection} are examined sequentially.
+   * @param field field name
+   * @param fieldDisplayName field name to display in resulting {@link Diagnosis} object
+   * @param threshold minimal size of collection to examine in parallel
+   * @param pool pool to examine chunks on
+   * @param rules rules
+   * @param <P> elements type
+   * @return builder
+   */
+  @SafeVarargs
+  public final <P> RuleBuilder<T> parallelElements(String field, String fieldDisplayName, int threshold,
+                                                   ForkJoinPool pool, Rule<P>... rules) {
+    CollectionFieldRuleTarget<T, P> collectionTarget = new CollectionFieldRuleTarget<>(field, fieldDisplayName, objectClass, lookup);
+    return addExecution(new ParallelCollectionFieldRuleExecution<>(collectionTarget, Arrays.asList(rules), threshold, pool));
   }
 
   /**
@@ -127,12 +182,8 @@ public class RuleBuilder<T> {
    */
   @SafeVarargs
   public final <P> RuleBuilder<T> reducedFields(String field1, String field2, BinaryOperator<P> reducer, Rule<P>... rules) {
-    ReducedFieldsRuleTarget<T, P> target = new ReducedFieldsRuleTarget<>(Arrays.asList(field1, field2), objectClass, reducer);
-    List<RuleExecution<T, P>> executions = Arrays.stream(rules)
-        .map(rule -> new ReducedFieldsRuleExecution<>(target, rule))
-        .collect(Collectors.toList());
-    ruleExecutions.addAll(executions);
-    return this;
+    ReducedFieldsRuleTarget<T, P> target = new ReducedFieldsRuleTarget<>(Arrays.asList(field1, field2), objectClass, reducer, lookup);
+    return addExecution(new ReducedFieldsRuleExecution<>(target, Arrays.asList(rules)));
   }
 
   /**
@@ -143,12 +194,8 @@ public class RuleBuilder<T> {
    */
   @SafeVarargs
   public final <P> RuleBuilder<T> fields(List<String> fields, Rule<P>... rules) {
-    MultipleFieldsRuleTarget<T, P> target = new MultipleFieldsRuleTarget<>(fields, objectClass);
-    List<RuleExecution<T, P>> executions = Arrays.stream(rules)
-        .map(rule -> new MultipleFieldsRuleExecution<>(target, rule))
-        .collect(Collectors.toList());
-    ruleExecutions.addAll(executions);
-    return this;
+    MultipleFieldsRuleTarget<T, P> target = new MultipleFieldsRuleTarget<>(fields, objectClass, lookup);
+    return addExecution(new MultipleFieldsRuleExecution<>(target, Arrays.asList(rules)));
   }
 
   /**
@@ -161,27 +208,138 @@ public class RuleBuilder<T> {
    */
   public RuleBuilder<T> rule(String violationMessage, String fieldName, Predicate<T> predicate) {
     EnclosingObjectTarget<T> target = new EnclosingObjectTarget<>(fieldName);
-    RuleExecution<T, T> execution = new EnclosingObjectRuleExecution<>(target, new SimpleRule<>(violationMessage, predicate));
-    ruleExecutions.add(execution);
-    return this;
+    return addExecution(new EnclosingObjectRuleExecution<>(target, new SimpleRule<>(violationMessage, predicate)));
+  }
+
+  /**
+   * Adds a group of rules that are only executed if the object meets specified condition. The condition is tested
+   * once per examined object, and the whole group is skipped if it is not met.
+   * @param condition condition to meet for rules of the group to be executed
+   * @param group defines rules of the group on a builder for the same class
+   * @return builder
+   */
+  public RuleBuilder<T> when(Predicate<T> condition, Consumer<RuleBuilder<T>> group) {
+    RuleBuilder<T> groupBuilder = new RuleBuilder<>(objectClass, lookup);
+    group.accept(groupBuilder);
+    EnclosingObjectTarget<T> target = new EnclosingObjectTarget<>("");
+    return addExecution(new GroupRuleExecution<>(target, groupBuilder.build().withCondition(condition)));
   }
 
   /**
+   * Executions of the same kind on equal targets are merged, so that each field is read once per examination no matter
+   * how many calls attached rules to it.<br>
+   * The same rule attached to the same field more than once, also through {@link RuleBuilder#fields(List, Rule[])}, is
+   * executed once - as are simple rules, like {@link SimpleRule} and {@link NumericRule}, attached to a field both
+   * directly and through rules for all fields of its type. Executions, and rules within them, are ordered by their
+   * {@link Rule#estimatedCost() estimated cost}, so cheap checks reject invalid objects before expensive ones run.
+   * Reported violations are the same in any order.
    * @return a composite rule holding all defined batches, ready to be passed into
    * {@link Validoctor#examine(Object, Rule[]) Validoctor's examine method}
+   * @throws IllegalArgumentException if an {@link IntRule} is attached to a field or array elements whose values it
+   * would truncate, like {@code long} or {@code double} ones
    */
   public Rule<T> build() {
-    return new ExaminationDefinition<>(ruleExecutions);
+    ruleExecutions.forEach(RuleBuilder::rejectTruncatingIntRules);
+    Map<List<Object>, RuleExecution<T, ?>> executionsByTarget = new LinkedHashMap<>();
+    ruleExecutions.forEach(execution ->
+        executionsByTarget.merge(Arrays.asList(execution.getClass(), execution.getTarget()), execution, RuleExecution::merge)
+    );
+    List<RuleExecution<T, ?>> executions = new ArrayList<>(executionsByTarget.size());
+    for (RuleExecution<T, ?> execution : executionsByTarget.values()) {
+      RuleExecution<T, ?> optimized = execution.optimized(coveredRules(execution, executionsByTarget.values()));
+      if (optimized != null) {
+        executions.add(optimized);
+      }
+    }
+    executions.sort(Comparator.comparingInt(RuleExecution::estimatedCost));
+    return new ExaminationDefinition<>(executions);
+  }
+
+  private RuleBuilder<T> addExecution(RuleExecution<T, ?> execution) {
+    ruleExecutions.add(execution);
+    return this;
+  }
+
+
+  /**
+   * @return rules that executions of multiple fields apply to the field of specified single field execution, at the
+   * same path, and rules without nested rules that executions of fields of a type apply to it - the latter report
+   * violations of the field itself, so the field does not have to be entered the same way
+   */
+  private static <T> Set<Rule<?>> coveredRules(RuleExecution<T, ?> execution, Collection<RuleExecution<T, ?>> executions) {
+    if (!(execution instanceof FieldRuleExecution)) {
+      return Collections.emptySet();
+    }
+    FieldRuleTarget<T, ?> fieldTarget = (FieldRuleTarget<T, ?>) execution.getTarget();
+    Set<Rule<?>> covered = new HashSet<>();
+    for (RuleExecution<T, ?> other : executions) {
+      if (other instanceof MultipleFieldsRuleExecution) {
+        MultipleFieldsRuleTarget<T, ?> fieldsTarget = (MultipleFieldsRuleTarget<T, ?>) other.getTarget();
+        for (int i = 0; i < fieldsTarget.size(); i++) {
+          if (fieldsTarget.getAccessor(i).equals(fieldTarget.getAccessor())
+              && fieldsTarget.getFieldNames().get(i).equals(fieldTarget.getFieldName())) {
+            covered.addAll(other.getRules());
+          }
+        }
+      } else if (other instanceof TypeRuleExecution) {
+        TypeRuleTarget<T, ?> typeTarget = (TypeRuleTarget<T, ?>) other.getTarget();
+        for (int i = 0; i < typeTarget.size(); i++) {
+          if (typeTarget.getAccessor(i).equals(fieldTarget.getAccessor())
+              && typeTarget.getFieldNames().get(i).equals(fieldTarget.getFieldName())) {
+            other.getRules().stream().filter(RuleBuilder::hasNoNestedRules).forEach(covered::add);
+          }
+        }
+      }
+    }
+    return covered;
   }
 
+  private static boolean hasNoNestedRules(Rule<?> rule) {
+    return rule instanceof NumericRule || rule instanceof SimpleRule && !((SimpleRule<?>) rule).hasDependency();
+  }
+
+  /**
+   * @throws IllegalArgumentException if the execution applies an {@link IntRule} to values of field, or elements of
+   * array field, of a type not fitting in {@code int}
+   */
+  private static void rejectTruncatingIntRules(RuleExecution<?, ?> execution) {
+    if (execution.getRules().stream().noneMatch(IntRule.class::isInstance)) {
+      return;
+    }
+    RuleTarget<?, ?> target = execution.getTarget();
+    List<FieldAccessor> accessors = new ArrayList<>();
+    if (target instanceof FieldRuleTarget) {
+      accessors.add(((FieldRuleTarget<?, ?>) target).getAccessor());
+    } else if (target instanceof CollectionFieldRuleTarget) {
+      accessors.add(((CollectionFieldRuleTarget<?, ?>) target).getAccessor());
+    } else if (target instanceof MultipleFieldsRuleTarget) {
+      MultipleFieldsRuleTarget<?, ?> fieldsTarget = (MultipleFieldsRuleTarget<?, ?>) target;
+      for (int i = 0; i < fieldsTarget.size(); i++) {
+        accessors.add(fieldsTarget.getAccessor(i));
+      }
+    } else if (target instanceof TypeRuleTarget) {
+      TypeRuleTarget<?, ?> typeTarget = (TypeRuleTarget<?, ?>) target;
+      for (int i = 0; i < typeTarget.size(); i++) {
+        accessors.add(typeTarget.getAccessor(i));
+      }
+    }
+    for (FieldAccessor accessor : accessors) {
+      Class<?> type = accessor.getType();
+      Class<?> valueType = target instanceof CollectionFieldRuleTarget && type.isArray()
+          ? type.getComponentType()
+          : type;
+      if (valueType == long.class || valueType == float.class || valueType == double.class
+          || valueType == Long.class || valueType == Float.class || valueType == Double.class
+          || valueType == BigInteger.class || valueType == BigDecimal.class) {
+        throw new IllegalArgumentException("Int rule cannot be applied to field " + accessor.getName() + " of type "
+            + type.getName() + ", as its values do not fit in int - use a long, double or number rule instead");
+      }
+    }
+  }
 
   @NotNull
   private <P> RuleBuilder<T> addClassRules(Class<? extends P> clazz, boolean strictMatch, Rule<P>[] rules) {
-    TypeRuleTarget<T, P> target = new TypeRuleTarget<>(objectClass, clazz, strictMatch);
-    List<RuleExecution<T, P>> executions = Arrays.stream(rules)
-        .map(rule -> new TypeRuleExecution<>(target, rule))
-        .collect(Collectors.toList());
-    ruleExecutions.addAll(executions);
-    return this;
+    TypeRuleTarget<T, P> target = new TypeRuleTarget<>(objectClass, clazz, strictMatch, lookup);
+    return addExecution(new TypeRuleExecution<>(target, Arrays.asList(rules)));
   }
 }
@@ -0,0 +1,90 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.Validoctor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Building blocks of method handles checking whether patients pass rules, composed by {@link Rule#passesHandle()}
+ * implementations into a single handle for a whole rule tree when it is {@link Validoctor#compile(Rule) compiled}.<br>
+ * All handles are of {@link RuleHandles#PASSES_TYPE} type, taking patient and returning true if it passes.
+ */
+public final class RuleHandles {
+
+  public static final MethodType PASSES_TYPE = MethodType.methodType(boolean.class, Object.class);
+
+  private static final MethodHandle TRUE =
+      MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, Object.class);
+  private static final MethodHandle FALSE =
+      MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, Object.class);
+  private static final MethodHandle RULE_PASSES;
+  private static final MethodHandle PREDICATE_TEST;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      RULE_PASSES = lookup.findVirtual(Rule.class, "passes", PASSES_TYPE);
+      PREDICATE_TEST = lookup.findVirtual(Predicate.class, "test", PASSES_TYPE);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private RuleHandles() {}
+
+  /**
+   * @return handle calling {@link Rule#passes(Object)} of specified rule
+   */
+  public static MethodHandle passes(Rule<?> rule) {
+    return RULE_PASSES.bindTo(rule);
+  }
+
+  /**
+   * @return handle testing patient with specified predicate
+   */
+  public static MethodHandle test(Predicate<?> predicate) {
+    return PREDICATE_TEST.bindTo(predicate);
+  }
+
+  /**
+   * @return handle passing patients that pass both handles, calling second one only if first one passed
+   */
+  public static MethodHandle and(MethodHandle first, MethodHandle second) {
+    return MethodHandles.guardWithTest(first, second, FALSE);
+  }
+
+  /**
+   * @return handle passing patients that pass {@link Rule#passesHandle() handles} of all rules, in order of rules,
+   * stopping at first failure
+   */
+  public static MethodHandle all(List<? extends Rule<?>> rules) {
+    List<MethodHandle> handles = new ArrayList<>(rules.size());
+    for (Rule<?> rule : rules) {
+      handles.add(rule.passesHandle());
+    }
+    return allHandles(handles);
+  }
+
+  /**
+   * @return handle passing patients that pass all specified handles, in order, stopping at first failure
+   */
+  public static MethodHandle allHandles(List<MethodHandle> handles) {
+    MethodHandle result = TRUE;
+    for (int i = handles.size() - 1; i >= 0; i--) {
+      result = result == TRUE ? handles.get(i) : and(handles.get(i), result);
+    }
+    return result;
+  }
+
+  /**
+   * @return handle passing patients not meeting the condition, and those meeting it that pass specified handle
+   */
+  public static MethodHandle when(Predicate<?> condition, MethodHandle handle) {
+    return MethodHandles.guardWithTest(test(condition), handle, TRUE);
+  }
+}
@@ -2,41 +2,95 @@ package com.miquido.validoctor.definition;
 
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public final class Rules {
 
   private Rules() {}
 
+  private static final byte LETTER = 1;
+  private static final byte DIGIT = 2;
+
+  /**
+   * Classes of Latin-1 characters, so that most characters are classified without looking up Unicode data.
+   */
+  private static final byte[] LATIN1_CLASSES = new byte[256];
+
+  static {
+    for (char c = 0; c < LATIN1_CLASSES.length; c++) {
+      LATIN1_CLASSES[c] = (byte) ((Character.isLetter(c) ? LETTER : 0) | (Character.isDigit(c) ? DIGIT : 0));
+    }
+  }
+
   private static final Rule<String> STRING_NOT_EMPTY =
-      new SimpleRule<>("NOT_EMPTY_REQUIRED", str -> str == null || !str.isEmpty());
+      new SimpleRule<>("NOT_EMPTY_REQUIRED", str -> str == null || !str.isEmpty(), Rule.CHEAP_COST);
 
   private static final Rule<String> STRING_TRIMMED_NOT_EMPTY =
-      new SimpleRule<>("NOT_EMPTY_NOR_WHITESPACE_ONLY_REQUIRED", str -> str == null || !str.trim().isEmpty());
+      new SimpleRule<>("NOT_EMPTY_NOR_WHITESPACE_ONLY_REQUIRED", str -> str == null || anyCharAboveSpace(str));
 
   private static final Rule<String> STRING_ALPHANUMERIC =
-      new SimpleRule<>("ALPHANUMERIC_REQUIRED", str -> str == null || str.chars().allMatch(Character::isLetterOrDigit));
+      new SimpleRule<>("ALPHANUMERIC_REQUIRED", str -> str == null || allChars(str, LETTER | DIGIT, Character::isLetterOrDigit));
 
   private static final Rule<String> STRING_ALPHABETIC =
-      new SimpleRule<>("ALPHABETIC_REQUIRED", str -> str == null || str.chars().allMatch(Character::isLetter));
+      new SimpleRule<>("ALPHABETIC_REQUIRED", str -> str == null || allChars(str, LETTER, Character::isLetter));
 
   private static final Rule<String> STRING_NO_SPACE_PADDING =
       new SimpleRule<>("NO_WHITESPACE_PADDING_REQUIRED",
-          str -> str == null || str.trim().equals(str));
+          str -> str == null || str.isEmpty() || str.charAt(0) > ' ' && str.charAt(str.length() - 1) > ' ',
+          Rule.CHEAP_COST);
 
   private static final Rule<Object> NULL =
-      new SimpleRule<>("NULL_REQUIRED", Objects::isNull);
+      new SimpleRule<>("NULL_REQUIRED", Objects::isNull, Rule.CHEAP_COST);
 
   private static final SimpleRule<Object> NOT_NULL =
-      new SimpleRule<>("NOT_NULL_REQUIRED", Objects::nonNull);
+      new SimpleRule<>("NOT_NULL_REQUIRED", Objects::nonNull, Rule.CHEAP_COST);
 
   private static final Rule<Boolean> FALSE =
-      new SimpleRule<>("FALSE_REQUIRED", value -> value == null || !value);
+      new SimpleRule<>("FALSE_REQUIRED", value -> value == null || !value, Rule.CHEAP_COST);
 
   private static final Rule<Boolean> TRUE =
-      new SimpleRule<>("TRUE_REQUIRED", value -> value == null || value);
+      new SimpleRule<>("TRUE_REQUIRED", value -> value == null || value, Rule.CHEAP_COST);
+
+
+  /**
+   * Checks chars one by one, like the predicate does - surrogates are not letters nor digits, as they are not
+   * combined into code points.
+   * @param classes classes of {@link Rules#LATIN1_CLASSES} allowed for Latin-1 characters
+   * @param predicate check of characters above Latin-1, equivalent to the classes
+   */
+  private static boolean allChars(String str, int classes, CharPredicate predicate) {
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      if (c < LATIN1_CLASSES.length ? (LATIN1_CLASSES[c] & classes) == 0 : !predicate.test(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true if {@link String#trim()} would not leave the string empty, without trimming it
+   */
+  private static boolean anyCharAboveSpace(String str) {
+    for (int i = 0; i < str.length(); i++) {
+      if (str.charAt(i) > ' ') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @FunctionalInterface
+  private interface CharPredicate {
+    boolean test(char c);
+  }
 
 
   /**
@@ -115,18 +169,20 @@ public final class Rules {
 
   /**
    * Passed: patient is null or number with value greater than or equal to 0.<br>
-   * Violated: patient is number with value lesser than 0.
+   * Violated: patient is number with value lesser than 0.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.
    */
   public static <T extends Number> Rule<T> numberNonNegative() {
-    return new SimpleRule<>("NON_NEGATIVE_REQUIRED", value -> value == null || value.doubleValue() >= 0);
+    return new DoubleRule<>("NON_NEGATIVE_REQUIRED", value -> value >= 0);
   }
 
   /**
    * Passed: patient is null or number with value greater than 0.<br>
-   * Violated: patient is number with value lesser than or equal to 0.
+   * Violated: patient is number with value lesser than or equal to 0.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.
    */
   public static <T extends Number> Rule<T> numberPositive() {
-    return new SimpleRule<>("POSITIVE_REQUIRED", value -> value == null || value.doubleValue() > 0);
+    return new DoubleRule<>("POSITIVE_REQUIRED", value -> value > 0);
   }
 
   /**
@@ -134,14 +190,16 @@ public final class Rules {
    * Violated: patient is empty collection.
    */
   public static Rule<Collection<?>> collectionNotEmpty() {
-    return new SimpleRule<>("NOT_EMPTY_REQUIRED", collection -> collection == null || !collection.isEmpty());
+    return new SimpleRule<>("NOT_EMPTY_REQUIRED", collection -> collection == null || !collection.isEmpty(),
+        Rule.CHEAP_COST);
   }
   /**
    * Passed: patient is null or a collection with size equal or greater than specified {@code minSize}.<br>
    * Violated: patient is a collection with size lesser than specified {@code minSize}.
    */
   public static Rule<Collection<?>> collectionMinSize(int minSize) {
-    return new SimpleRule<>("SIZE_TOO_LITTLE", collection -> collection == null || collection.size() >= minSize);
+    return new SimpleRule<>("SIZE_TOO_LITTLE", collection -> collection == null || collection.size() >= minSize,
+        Rule.CHEAP_COST);
   }
 
   /**
@@ -149,7 +207,8 @@ public final class Rules {
    * Violated: patient is a collection with size greater than specified {@code maxSize}.
    */
   public static Rule<Collection<?>> collectionMaxSize(int maxSize) {
-    return new SimpleRule<>("SIZE_TOO_LARGE", collection -> collection == null || collection.size() <= maxSize);
+    return new SimpleRule<>("SIZE_TOO_LARGE", collection -> collection == null || collection.size() <= maxSize,
+        Rule.CHEAP_COST);
   }
 
   /**
@@ -159,7 +218,7 @@ public final class Rules {
    */
   public static Rule<Collection<?>> collectionSizeIn(int minSize, int maxSize) {
     return new SimpleRule<>("INVALID_SIZE", collection -> collection == null
-        || (collection.size() <= maxSize && collection.size() >= minSize));
+        || (collection.size() <= maxSize && collection.size() >= minSize), Rule.CHEAP_COST);
   }
 
   /**
@@ -176,7 +235,7 @@ public final class Rules {
    * Violated: patient is string with length lesser than specified {@code minLength}.
    */
   public static Rule<String> stringMinLength(int minLength) {
-    return new SimpleRule<>("TOO_SHORT", str -> str == null || str.length() >= minLength);
+    return new SimpleRule<>("TOO_SHORT", str -> str == null || str.length() >= minLength, Rule.CHEAP_COST);
   }
 
   /**
@@ -184,7 +243,7 @@ public final class Rules {
    * Violated: patient is string with length greater than specified {@code maxLength}.
    */
   public static Rule<String> stringMaxLength(int maxLength) {
-    return new SimpleRule<>("TOO_LONG", str -> str == null || str.length() <= maxLength);
+    return new SimpleRule<>("TOO_LONG", str -> str == null || str.length() <= maxLength, Rule.CHEAP_COST);
   }
 
   /**
@@ -195,7 +254,7 @@ public final class Rules {
    */
   public static Rule<String> stringLengthInRange(int minLength, int maxLength) {
     return new SimpleRule<>("TOO_SHORT_OR_TOO_LONG",
-        str -> str == null || str.length() >= minLength && str.length() <= maxLength);
+        str -> str == null || str.length() >= minLength && str.length() <= maxLength, Rule.CHEAP_COST);
   }
 
   /**
@@ -203,7 +262,7 @@ public final class Rules {
    * Violated: patient is string with length other than specified {@code exactLength}.
    */
   public static Rule<String> stringExactLength(int exactLength) {
-    return new SimpleRule<>("INVALID_LENGTH", str -> str == null || str.length() == exactLength);
+    return new SimpleRule<>("INVALID_LENGTH", str -> str == null || str.length() == exactLength, Rule.CHEAP_COST);
   }
 
   /**
@@ -216,18 +275,134 @@ public final class Rules {
 
   /**
    * Passed: patient is null or string that matches specified {@code regex}.<br>
-   * Violated: patient is string not matching specified {@code regex}.
+   * Violated: patient is string not matching specified {@code regex}.<br>
+   * The regex is compiled once, when the rule is created.
    */
   public static Rule<String> stringMatches(String regex) {
-    return new SimpleRule<>("MUST_MATCH_REGEX", str -> str == null || str.matches(regex));
+    return stringMatches(Pattern.compile(regex));
+  }
+
+  /**
+   * Passed: patient is null or string that matches specified {@code pattern}.<br>
+   * Violated: patient is string not matching specified {@code pattern}.
+   */
+  public static Rule<String> stringMatches(Pattern pattern) {
+    ThreadLocal<Matcher> matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+    return new SimpleRule<>("MUST_MATCH_REGEX", str -> str == null || matches(matchers.get(), str),
+        Rule.EXPENSIVE_COST);
   }
+
+  /**
+   * Passed: patient is null or string that matches specified {@code regex}.<br>
+   * Violated: patient is string not matching specified {@code regex}.<br>
+   * Matching takes time linear to the length of patient, no matter the regex, so it is safe for patterns coming
+   * from users. Only regular constructs are supported - no backreferences, lookarounds, possessive quantifiers
+   * nor anchors in the middle of the regex.
+   * @throws IllegalArgumentException if regex is malformed or uses unsupported constructs
+   */
+  public static Rule<String> stringMatchesLinear(String regex) {
+    LinearPattern pattern = LinearPattern.compile(regex);
+    return new SimpleRule<>("MUST_MATCH_REGEX", str -> str == null || pattern.matches(str), Rule.EXPENSIVE_COST);
+  }
+
+  private static boolean matches(Matcher matcher, String str) {
+    boolean matches = matcher.reset(str).matches();
+    matcher.reset(""); //does not keep the patient reachable from the thread
+    return matches;
+  }
+
   /**
    * Passed: patient is null or number with value {@code >= minRange} and {@code <= maxRange}.<br>
-   * Violated: patient is number with value {@code < minRange} or {@code > maxRange}.
+   * Violated: patient is number with value {@code < minRange} or {@code > maxRange}.<br>
+   * Integral numbers, {@link java.math.BigInteger BigInteger} and {@link java.math.BigDecimal BigDecimal} are compared
+   * without loss of precision. Applied to primitive fields and arrays, reads them without boxing.
    */
   public static <T extends Number> Rule<T> numberInRange(Number minRange, Number maxRange) {
-    return new SimpleRule<>("TOO_LOW_OR_TOO_HIGH", value -> value == null
-        || value.doubleValue() >= minRange.doubleValue() && value.doubleValue() <= maxRange.doubleValue());
+    return new NumberRangeRule<>("TOO_LOW_OR_TOO_HIGH", minRange, maxRange);
+  }
+
+  /**
+   * Passed: patient is null or number with {@code int} value greater than or equal to 0.<br>
+   * Violated: patient is number with {@code int} value lesser than 0.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.<br>
+   * Rejected on {@code long}, {@code float} and {@code double} fields and arrays, as it would truncate them.
+   */
+  public static <T extends Number> IntRule<T> intNonNegative() {
+    return new IntRule<>("NON_NEGATIVE_REQUIRED", value -> value >= 0);
+  }
+
+  /**
+   * Passed: patient is null or number with {@code int} value greater than 0.<br>
+   * Violated: patient is number with {@code int} value lesser than or equal to 0.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.<br>
+   * Rejected on {@code long}, {@code float} and {@code double} fields and arrays, as it would truncate them.
+   */
+  public static <T extends Number> IntRule<T> intPositive() {
+    return new IntRule<>("POSITIVE_REQUIRED", value -> value > 0);
+  }
+
+  /**
+   * Passed: patient is null or number with {@code int} value {@code >= minRange} and {@code <= maxRange}.<br>
+   * Violated: patient is number with {@code int} value {@code < minRange} or {@code > maxRange}.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.<br>
+   * Rejected on {@code long}, {@code float} and {@code double} fields and arrays, as it would truncate them.
+   */
+  public static <T extends Number> IntRule<T> intInRange(int minRange, int maxRange) {
+    return new IntRule<>("TOO_LOW_OR_TOO_HIGH", value -> value >= minRange && value <= maxRange);
+  }
+
+  /**
+   * Passed: patient is null or number with {@code long} value greater than or equal to 0.<br>
+   * Violated: patient is number with {@code long} value lesser than 0.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.
+   */
+  public static <T extends Number> LongRule<T> longNonNegative() {
+    return new LongRule<>("NON_NEGATIVE_REQUIRED", value -> value >= 0);
+  }
+
+  /**
+   * Passed: patient is null or number with {@code long} value greater than 0.<br>
+   * Violated: patient is number with {@code long} value lesser than or equal to 0.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.
+   */
+  public static <T extends Number> LongRule<T> longPositive() {
+    return new LongRule<>("POSITIVE_REQUIRED", value -> value > 0);
+  }
+
+  /**
+   * Passed: patient is null or number with {@code long} value {@code >= minRange} and {@code <= maxRange}.<br>
+   * Violated: patient is number with {@code long} value {@code < minRange} or {@code > maxRange}.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.
+   */
+  public static <T extends Number> LongRule<T> longInRange(long minRange, long maxRange) {
+    return new LongRule<>("TOO_LOW_OR_TOO_HIGH", value -> value >= minRange && value <= maxRange);
+  }
+
+  /**
+   * Passed: patient is null or number with {@code double} value greater than or equal to 0.<br>
+   * Violated: patient is number with {@code double} value lesser than 0.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.
+   */
+  public static <T extends Number> DoubleRule<T> doubleNonNegative() {
+    return new DoubleRule<>("NON_NEGATIVE_REQUIRED", value -> value >= 0);
+  }
+
+  /**
+   * Passed: patient is null or number with {@code double} value greater than 0.<br>
+   * Violated: patient is number with {@code double} value lesser than or equal to 0.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.
+   */
+  public static <T extends Number> DoubleRule<T> doublePositive() {
+    return new DoubleRule<>("POSITIVE_REQUIRED", value -> value > 0);
+  }
+
+  /**
+   * Passed: patient is null or number with {@code double} value {@code >= minRange} and {@code <= maxRange}.<br>
+   * Violated: patient is number with {@code double} value {@code < minRange} or {@code > maxRange}.<br>
+   * Applied to primitive fields and arrays, reads them without boxing.
+   */
+  public static <T extends Number> DoubleRule<T> doubleInRange(double minRange, double maxRange) {
+    return new DoubleRule<>("TOO_LOW_OR_TOO_HIGH", value -> value >= minRange && value <= maxRange);
   }
 
   /**
@@ -239,8 +414,8 @@ public final class Rules {
    */
   @SafeVarargs
   public static <T> Rule<T> valueIn(T... allowedValues) {
-    List<T> list = Arrays.asList(allowedValues);
-    return new SimpleRule<>("VALUE_NOT_ALLOWED", list::contains);
+    ValueSet values = ValueSet.of(Arrays.asList(allowedValues));
+    return new SimpleRule<>("VALUE_NOT_ALLOWED", values::contains, Rule.CHEAP_COST);
   }
 
   /**
@@ -248,10 +423,23 @@ public final class Rules {
    * Violated: patient is not equal to any element of the collection passed in allowedValues.<br><br>
    * Note: {@code valueIn(null)} is not directly supported. To check if patient is null use {@link Rules#isNull()}.
    * To use valueIn with dynamic, nullable allowed value use {@code valueIn(listOf<TYPE>(null))} or
-   * {@code valueIn(Arrays.asList(null))}.
+   * {@code valueIn(Arrays.asList(null))}.<br>
+   * The collection is kept by reference, so later changes to it are reflected by the rule. Pass a {@link Set}, as other
+   * collections are usually scanned - or use {@link Rules#valueInSnapshot(Collection)} for values that do not change.
    */
   public static <T> Rule<T> valueIn(Collection<T> allowedValues) {
-    return new SimpleRule<>("VALUE_NOT_ALLOWED", allowedValues::contains);
+    return new SimpleRule<>("VALUE_NOT_ALLOWED", allowedValues::contains, containsCost(allowedValues));
+  }
+
+  /**
+   * Passed: patient is equal to at least one element of collection passed in allowedValues argument.<br>
+   * Violated: patient is not equal to any element of the collection passed in allowedValues.<br>
+   * The elements are copied into a structure chosen by their type, so the rule does not scan them and later changes
+   * to the collection are not reflected by it.
+   */
+  public static <T> Rule<T> valueInSnapshot(Collection<T> allowedValues) {
+    ValueSet values = ValueSet.of(allowedValues);
+    return new SimpleRule<>("VALUE_NOT_ALLOWED", values::contains, Rule.CHEAP_COST);
   }
 
   /**
@@ -260,16 +448,35 @@ public final class Rules {
    */
   @SafeVarargs
   public static <T> Rule<T> valueNotIn(T... disallowedValues) {
-    List<T> list = Arrays.asList(disallowedValues);
-    return new SimpleRule<>("VALUE_NOT_ALLOWED", obj -> !list.contains(obj));
+    ValueSet values = ValueSet.of(Arrays.asList(disallowedValues));
+    return new SimpleRule<>("VALUE_NOT_ALLOWED", obj -> !values.contains(obj), Rule.CHEAP_COST);
   }
 
   /**
    * Passed: patient is not equal to any element of the collection passed in disallowedValues.<br>
    * Violated: patient is equal to at least one element of collection passed in disallowedValues argument.<br><br>
+   * The collection is kept by reference, so later changes to it are reflected by the rule. Pass a {@link Set}, as other
+   * collections are usually scanned - or use {@link Rules#valueNotInSnapshot(Collection)} for values that do not
+   * change.
    */
   public static <T> Rule<T> valueNotIn(Collection<T> disallowedValues) {
-    return new SimpleRule<>("VALUE_NOT_ALLOWED", obj -> !disallowedValues.contains(obj));
+    return new SimpleRule<>("VALUE_NOT_ALLOWED", obj -> !disallowedValues.contains(obj),
+        containsCost(disallowedValues));
+  }
+
+  /**
+   * Passed: patient is not equal to any element of the collection passed in disallowedValues.<br>
+   * Violated: patient is equal to at least one element of collection passed in disallowedValues argument.<br>
+   * The elements are copied into a structure chosen by their type, so the rule does not scan them and later changes
+   * to the collection are not reflected by it.
+   */
+  public static <T> Rule<T> valueNotInSnapshot(Collection<T> disallowedValues) {
+    ValueSet values = ValueSet.of(disallowedValues);
+    return new SimpleRule<>("VALUE_NOT_ALLOWED", obj -> !values.contains(obj), Rule.CHEAP_COST);
+  }
+
+  private static int containsCost(Collection<?> values) {
+    return values instanceof Set ? Rule.CHEAP_COST : Rule.DEFAULT_COST;
   }
 
   /**
@@ -277,7 +484,7 @@ public final class Rules {
    * Violated: patient is not equal to specified expectedValue.
    */
   public static <T> Rule<T> equalTo(T expectedValue) {
-    return new SimpleRule<>("VALUE_NOT_ALLOWED", obj -> obj == null || obj.equals(expectedValue));
+    return new SimpleRule<>("VALUE_NOT_ALLOWED", obj -> obj == null || obj.equals(expectedValue), Rule.CHEAP_COST);
   }
 
   /**
@@ -285,9 +492,61 @@ public final class Rules {
    * Violated: patient is equal to specified unexpectedValue.
    */
   public static <T> Rule<T> notEqualTo(T unexpectedValue) {
-    return new SimpleRule<>("VALUE_NOT_ALLOWED", obj -> obj == null || !obj.equals(unexpectedValue));
+    return new SimpleRule<>("VALUE_NOT_ALLOWED", obj -> obj == null || !obj.equals(unexpectedValue), Rule.CHEAP_COST);
+  }
+
+
+  /**
+   * Creates an {@link AsyncRule} testing patients with a blocking predicate, like a lookup in a store. The predicate
+   * runs on the executor of {@link com.miquido.validoctor.Validoctor#examineAsync(Object, Rule[]) asynchronous
+   * examination}, or on the calling thread when examined synchronously.
+   * @param violationMessage message reported if patient fails the predicate
+   * @param blockingPredicate predicate to test
+   * @param <T> patient type
+   * @return new async Rule
+   */
+  public static <T> AsyncRule<T> async(String violationMessage, Predicate<T> blockingPredicate) {
+    return new AsyncPredicateRule<>(violationMessage,
+        (patient, executor) -> CompletableFuture.supplyAsync(() -> blockingPredicate.test(patient), executor));
+  }
+
+  /**
+   * Creates an {@link AsyncRule} testing patients with a non-blocking lookup, like a call of an asynchronous client.
+   * @param violationMessage message reported if lookup completes with false
+   * @param lookup starts the test of a patient, completing with true if the patient passed it
+   * @param <T> patient type
+   * @return new async Rule
+   */
+  public static <T> AsyncRule<T> asyncLookup(String violationMessage, Function<T, CompletableFuture<Boolean>> lookup) {
+    return new AsyncPredicateRule<>(violationMessage, (patient, executor) -> lookup.apply(patient));
   }
 
+  /**
+   * Same as {@link Rules#batchedLookup(String, Function, Predicate, int)}, loading at most
+   * {@value BatchingLookupRule#DEFAULT_MAX_BATCH_SIZE} keys with one call.
+   */
+  public static <K, V> BatchingLookupRule<K, V> batchedLookup(String violationMessage,
+                                                              Function<Set<K>, Map<K, V>> loader, Predicate<V> test) {
+    return new BatchingLookupRule<>(violationMessage, loader, test, BatchingLookupRule.DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a {@link BatchingLookupRule} testing values looked up for keys, like ids of referenced entities. Keys
+   * requested during one examination, for example by all elements of a collection field, are loaded together with
+   * one call of the loader per {@code maxBatchSize} keys.
+   * @param violationMessage message reported if the value of a key fails the test
+   * @param loader loads values of a set of keys, leaving keys without value out of the resulting map
+   * @param test test of a looked up value, given null for keys without value
+   * @param maxBatchSize maximum number of keys loaded with one call of the loader
+   * @param <K> key type
+   * @param <V> value type
+   * @return new lookup Rule
+   */
+  public static <K, V> BatchingLookupRule<K, V> batchedLookup(String violationMessage,
+                                                              Function<Set<K>, Map<K, V>> loader, Predicate<V> test,
+                                                              int maxBatchSize) {
+    return new BatchingLookupRule<>(violationMessage, loader, test, maxBatchSize);
+  }
 
   /**
    * Creates a new Rule identical to passed one, except it only tests its predicate if specified condition is true.
@@ -304,6 +563,8 @@ public final class Rules {
   /**
    * Creates new Rules identical to passed ones, except they only test their predicate if specified condition is true.
    * They always pass otherwise.
+   * <br>The condition is shared by the Rules - during examination it is tested once per patient, not once per Rule.
+   * To skip whole groups of fields with one test, use {@link RuleBuilder#when(Predicate, java.util.function.Consumer)}.
    * @param condition condition to meet for predicate test to occur
    * @param rules rules
    * @param <T> patient type
@@ -311,19 +572,31 @@ public final class Rules {
    */
   @SafeVarargs
   public static <T> Rule<T>[] conditional(Predicate<T> condition, Rule<T>... rules) {
-    return Arrays.stream(rules).map(rule -> rule.withCondition(condition)).toArray(Rule[]::new);
+    Predicate<T> shared = rules.length > 1 ? new SharedCondition<>(condition) : condition;
+    return Arrays.stream(rules).map(rule -> rule.withCondition(shared)).toArray(Rule[]::new);
   }
 
   /**
    * Creates a new Rule that sequentially executes specified Rules. If any of the Rules fails,
-   * none of the following ones will test their predicate.
+   * none of the following ones will test their predicate. If the condition of any of the Rules is not met, none of
+   * the preceding ones is executed.
+   * <br>Results of all but the last Rule are remembered for the patient during the examination, so Rules shared by
+   * many chains, like {@link Rules#notNull()}, are tested once per patient.
    * @param rules rules to sequentially test during examination
    * @param <T> patient type
    * @return new Rule that will sequentially test all passed Rules
    */
   @SafeVarargs
   public static <T> Rule<T> chained(Rule<T>... rules) {
-    return Arrays.stream(rules).reduce((rule1, rule2) -> rule2.withDependency(rule1)).orElse(null);
+    if (rules.length == 0) {
+      return null;
+    }
+    for (int i = 1; i < rules.length; i++) {
+      if (!ChainedRule.canFollow(rules[i])) {
+        return Arrays.stream(rules).reduce((rule1, rule2) -> rule2.withDependency(rule1)).orElse(null);
+      }
+    }
+    return rules.length == 1 ? rules[0] : new ChainedRule<>(Arrays.asList(rules));
   }
 
   /**
@@ -339,6 +612,49 @@ public final class Rules {
     return rule.withViolationMessage(violationMessage);
   }
 
+  /**
+   * Wraps an expensive Rule applied to repetitive values, like codes checked against a pattern or a large set of
+   * allowed values, so that it remembers ailments found in at most {@code maxEntries} recently tested patients and
+   * tests each of them only once.<br>
+   * Only patients of immutable types, like strings, boxed primitives or enums, are remembered, as results for mutable
+   * ones could go stale. Hits and misses are counted by the returned rule.
+   * @param rule rule to memoize
+   * @param maxEntries maximum number of remembered results
+   * @param <T> patient type
+   * @return memoized version of the rule
+   */
+  public static <T> MemoizedRule<T> memoized(Rule<T> rule, int maxEntries) {
+    return new MemoizedRule<>(rule, maxEntries);
+  }
+
+  /**
+   * Same as {@link Rules#memoized(Rule, int)}, but remembers results for patients accepted by the predicate, for
+   * example ones of an immutable type of the application.
+   */
+  public static <T> MemoizedRule<T> memoized(Rule<T> rule, int maxEntries, Predicate<T> cacheable) {
+    return new MemoizedRule<>(rule, maxEntries, cacheable);
+  }
+
+  /**
+   * Makes a Rule built with {@link RuleBuilder} or {@link Rules#batch(Rule[])} adapt the order in which it tests its
+   * parts in fail-fast mode, like {@link com.miquido.validoctor.Validoctor#isValid(Object, Rule[])}, to the patients
+   * it tests: parts that are cheap and fail often are moved to the front.
+   * <br>Some tests are timed to find them, and the order is periodically replaced without locking, so the Rule can be
+   * shared by concurrent threads. Full examinations still apply all parts, so they report the same violations in any
+   * order.
+   * @param rule rule built with {@link RuleBuilder} or {@link Rules#batch(Rule[])}
+   * @param <T> patient type
+   * @return adaptive version of the rule, or the rule itself if it has no parts to reorder
+   */
+  public static <T> Rule<T> adaptive(Rule<T> rule) {
+    if (rule instanceof ExaminationDefinition) {
+      return ((ExaminationDefinition<T>) rule).adaptive();
+    } else if (rule instanceof BatchRule) {
+      return ((BatchRule<T>) rule).adaptive();
+    }
+    return rule;
+  }
+
   /**
    * Creates a batch of Rules that will be tested as an atomic package - all Rules will always be executed.
    * <br>This may be useful for separating sets of Rules into steps of more complicated hierarchical validation scenarios.
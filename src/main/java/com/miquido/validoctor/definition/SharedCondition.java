@@ -0,0 +1,53 @@
+package com.miquido.validoctor.definition;
+
+import com.miquido.validoctor.result.PathContext;
+
+import java.util.function.Predicate;
+
+/**
+ * Condition shared by sibling rules, created by {@link Rules#conditional(Predicate, Rule[])}.<br>
+ * During examination it is tested once per patient and position in the examined object - its result is remembered in
+ * the {@link PathContext} and reused by other rules sharing the condition.
+ * @param <T> type of patient
+ */
+final class SharedCondition<T> implements Predicate<T> {
+
+  private static final Predicate<Object> ALWAYS = patient -> true;
+
+  private final Predicate<T> condition;
+
+  SharedCondition(Predicate<T> condition) {
+    this.condition = condition;
+  }
+
+  @Override
+  public boolean test(T patient) {
+    return condition.test(patient);
+  }
+
+  /**
+   * @return condition met by all patients, which rules created without a condition have
+   */
+  @SuppressWarnings("unchecked")
+  static <T> Predicate<T> always() {
+    return (Predicate<T>) ALWAYS;
+  }
+
+  /**
+   * @param condition condition of a rule
+   * @param patient patient to test the condition on
+   * @param path path to the patient, remembering results of shared conditions tested at its current position
+   * @return true if the patient meets the condition
+   */
+  static <T> boolean test(Predicate<T> condition, T patient, PathContext path) {
+    if (!(condition instanceof SharedCondition)) {
+      return condition.test(patient);
+    }
+    Boolean met = path.recall(condition, patient);
+    if (met == null) {
+      met = condition.test(patient);
+      path.remember(condition, patient, met);
+    }
+    return met;
+  }
+}
@@ -1,7 +1,11 @@
 package com.miquido.validoctor.definition;
 
 import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.MessageCodes;
+import com.miquido.validoctor.result.PathContext;
 
+import java.lang.invoke.MethodHandle;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -12,43 +16,113 @@ public class SimpleRule<T> implements Rule<T> {
   private final Predicate<T> predicate;
   private final Predicate<T> condition;
   private final Rule<T> dependency;
+  private final int cost;
 
   public SimpleRule(String violationMessage, Predicate<T> predicate) {
-    this(violationMessage, predicate, obj -> true, null);
+    this(violationMessage, predicate, DEFAULT_COST);
+  }
+
+  /**
+   * @param violationMessage message reported on violation
+   * @param predicate predicate patients have to pass
+   * @param cost {@link Rule#estimatedCost() estimated cost} of testing the predicate
+   */
+  public SimpleRule(String violationMessage, Predicate<T> predicate, int cost) {
+    this(violationMessage, predicate, SharedCondition.always(), null, cost);
   }
 
   public SimpleRule(String violationMessage, Predicate<T> predicate, Predicate<T> condition, Rule<T> dependency) {
+    this(violationMessage, predicate, condition, dependency, DEFAULT_COST);
+  }
+
+  public SimpleRule(String violationMessage, Predicate<T> predicate, Predicate<T> condition, Rule<T> dependency,
+                    int cost) {
+    MessageCodes.register(violationMessage); //registered early, so that messages of rules get the smallest codes
     this.violationMessage = violationMessage;
     this.predicate = predicate;
     this.condition = condition;
     this.dependency = dependency;
+    this.cost = cost;
   }
 
   @Override
   public Set<Ailment> apply(T patient) {
-    boolean conditionMet = condition.test(patient);
-    Set<Ailment> dependencyAilments = dependency == null || !conditionMet
-        ? Collections.emptySet() : dependency.apply(patient);
-    if (conditionMet && dependencyAilments.isEmpty() && !predicate.test(patient)) {
-      //TODO 1. this is always a singleton set, can we avoid creating those sets somehow?
-      return Collections.singleton(new Ailment(null, violationMessage));
+    if (!condition.test(patient)) {
+      return Collections.emptySet();
+    }
+    if (dependency != null) {
+      Set<Ailment> dependencyAilments = dependency.apply(patient);
+      if (!dependencyAilments.isEmpty()) {
+        return dependencyAilments;
+      }
+    }
+    return predicate.test(patient) ? Collections.emptySet()
+        : Collections.singleton(new Ailment(null, violationMessage));
+  }
+
+  @Override
+  public boolean apply(T patient, PathContext path, AilmentSink sink) {
+    if (!SharedCondition.test(condition, patient, path)) {
+      return true;
+    } else if (dependency != null && !Dependencies.apply(this, dependency, patient, path, sink)) {
+      return false;
+    } else if (predicate.test(patient)) {
+      return true;
+    } else {
+      sink.report(path, violationMessage);
+      return false;
+    }
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    if (!condition.test(patient)) {
+      return true;
+    } else if (dependency != null && !dependency.passes(patient)) {
+      return false;
     } else {
-      return dependencyAilments;
+      return predicate.test(patient);
     }
   }
 
+  @Override
+  public MethodHandle passesHandle() {
+    MethodHandle predicateHandle = RuleHandles.test(predicate);
+    return RuleHandles.when(condition,
+        dependency == null ? predicateHandle : RuleHandles.and(dependency.passesHandle(), predicateHandle));
+  }
+
+  @Override
+  public int estimatedCost() {
+    return dependency == null ? cost : cost + dependency.estimatedCost();
+  }
+
+  /**
+   * @return condition patient has to meet for the rule and its dependency to be applied
+   */
+  Predicate<T> getCondition() {
+    return condition;
+  }
+
+  /**
+   * @return true if the rule applies another rule before its own predicate
+   */
+  boolean hasDependency() {
+    return dependency != null;
+  }
+
   @Override
   public Rule<T> withCondition(Predicate<T> condition) {
-    return new SimpleRule<>(violationMessage, predicate, condition, dependency);
+    return new SimpleRule<>(violationMessage, predicate, condition, dependency, cost);
   }
 
   @Override
   public Rule<T> withDependency(Rule<T> previousRule) {
-    return new SimpleRule<>(violationMessage, predicate, condition, previousRule);
+    return new SimpleRule<>(violationMessage, predicate, condition, previousRule, cost);
   }
 
   @Override
   public Rule<T> withViolationMessage(String violationMessage) {
-    return new SimpleRule<>(violationMessage, predicate, condition, dependency);
+    return new SimpleRule<>(violationMessage, predicate, condition, dependency, cost);
   }
 }
@@ -0,0 +1,301 @@
+package com.miquido.validoctor.definition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable set of values used by {@link Rules#valueIn} and {@link Rules#valueNotIn}, backed by a structure chosen
+ * by type of the values:
+ * <ul>
+ *   <li>{@link EnumSet} for enum constants of one type,</li>
+ *   <li>bitmap for integers spanning a dense range, and open-addressing table of primitives for other integers
+ *   and longs,</li>
+ *   <li>{@link HashSet} for strings and other values of JDK types with well-defined hash codes,</li>
+ *   <li>list scanned with {@link Object#equals(Object)} for few values and values of other types, as their hash codes
+ *   may not be consistent with their equality.</li>
+ * </ul>
+ * Null is tracked separately, so it can be in the set regardless of the structure.
+ */
+abstract class ValueSet {
+
+  private static final int LINEAR_SCAN_MAX_SIZE = 4;
+  private static final int BITMAP_MAX_SPAN_PER_VALUE = 64;
+
+  private final boolean containsNull;
+
+  private ValueSet(boolean containsNull) {
+    this.containsNull = containsNull;
+  }
+
+  /**
+   * @param values values of the set, may include null
+   * @return set of the values
+   */
+  static ValueSet of(Collection<?> values) {
+    List<Object> nonNulls = new ArrayList<>(values.size());
+    boolean containsNull = false;
+    for (Object value : values) {
+      if (value == null) {
+        containsNull = true;
+      } else {
+        nonNulls.add(value);
+      }
+    }
+    Class<?> commonClass = commonClass(nonNulls);
+    if (commonClass != null && commonClass.isEnum()) {
+      return new EnumValueSet(containsNull, enumSet(nonNulls));
+    }
+    if (nonNulls.size() <= LINEAR_SCAN_MAX_SIZE) {
+      return new ListValueSet(containsNull, nonNulls);
+    }
+    if (commonClass == Integer.class) {
+      int[] ints = new int[nonNulls.size()];
+      for (int i = 0; i < ints.length; i++) {
+        ints[i] = (Integer) nonNulls.get(i);
+      }
+      return intSet(containsNull, ints);
+    }
+    if (commonClass == Long.class) {
+      long[] longs = new long[nonNulls.size()];
+      for (int i = 0; i < longs.length; i++) {
+        longs[i] = (Long) nonNulls.get(i);
+      }
+      return new LongValueSet(containsNull, longs);
+    }
+    for (Object value : nonNulls) {
+      if (!hasValueHashCode(value)) {
+        return new ListValueSet(containsNull, nonNulls);
+      }
+    }
+    return new HashValueSet(containsNull, new HashSet<>(nonNulls));
+  }
+
+  /**
+   * @param value value to look for
+   * @return true if value is in the set
+   */
+  final boolean contains(Object value) {
+    return value == null ? containsNull : containsNonNull(value);
+  }
+
+  abstract boolean containsNonNull(Object value);
+
+  /**
+   * @param values constants of one enum type
+   */
+  @SuppressWarnings("unchecked")
+  private static <E extends Enum<E>> EnumSet<E> enumSet(List<Object> values) {
+    return EnumSet.copyOf((Collection<E>) (Collection<?>) values);
+  }
+
+  private static Class<?> commonClass(List<Object> values) {
+    Class<?> commonClass = null;
+    for (Object value : values) {
+      Class<?> valueClass = value instanceof Enum ? ((Enum<?>) value).getDeclaringClass() : value.getClass();
+      if (commonClass == null) {
+        commonClass = valueClass;
+      } else if (commonClass != valueClass) {
+        return null;
+      }
+    }
+    return commonClass;
+  }
+
+  private static boolean hasValueHashCode(Object value) {
+    return value instanceof String || value instanceof Number && value.getClass().getName().startsWith("java.")
+        || value instanceof Character || value instanceof Boolean || value instanceof Enum;
+  }
+
+  private static ValueSet intSet(boolean containsNull, int[] values) {
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int value : values) {
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+    }
+    long span = (long) max - min + 1;
+    if (span <= (long) values.length * BITMAP_MAX_SPAN_PER_VALUE) {
+      return new IntBitmapValueSet(containsNull, values, min, (int) span);
+    }
+    return new IntValueSet(containsNull, values);
+  }
+
+  /**
+   * @return power of two table size giving load factor of at most 0.5
+   */
+  private static int tableSize(int count) {
+    return Integer.highestOneBit(Math.max(2, count) * 2 - 1) << 1;
+  }
+
+  private static int mix(long value) {
+    long hash = value * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  private static final class EnumValueSet extends ValueSet {
+    private final EnumSet<?> values;
+
+    EnumValueSet(boolean containsNull, EnumSet<?> values) {
+      super(containsNull);
+      this.values = values;
+    }
+
+    @Override
+    boolean containsNonNull(Object value) {
+      return values.contains(value);
+    }
+  }
+
+  private static final class ListValueSet extends ValueSet {
+    private final Object[] values;
+
+    ListValueSet(boolean containsNull, List<Object> values) {
+      super(containsNull);
+      this.values = values.toArray();
+    }
+
+    @Override
+    boolean containsNonNull(Object value) {
+      for (Object element : values) {
+        if (value.equals(element)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static final class HashValueSet extends ValueSet {
+    private final Set<Object> values;
+
+    HashValueSet(boolean containsNull, Set<Object> values) {
+      super(containsNull);
+      this.values = values;
+    }
+
+    @Override
+    boolean containsNonNull(Object value) {
+      return values.contains(value);
+    }
+  }
+
+  private static final class IntBitmapValueSet extends ValueSet {
+    private final int min;
+    private final int span;
+    private final long[] bits;
+
+    IntBitmapValueSet(boolean containsNull, int[] values, int min, int span) {
+      super(containsNull);
+      this.min = min;
+      this.span = span;
+      this.bits = new long[(span + 63) >>> 6];
+      for (int value : values) {
+        int offset = value - min;
+        bits[offset >>> 6] |= 1L << offset;
+      }
+    }
+
+    @Override
+    boolean containsNonNull(Object value) {
+      if (!(value instanceof Integer)) {
+        return false;
+      }
+      long offset = (long) (Integer) value - min;
+      return offset >= 0 && offset < span && (bits[(int) (offset >>> 6)] & 1L << offset) != 0;
+    }
+  }
+
+  /**
+   * Open-addressing table with linear probing. Zero marks empty slots, so it is tracked separately.
+   */
+  private static final class IntValueSet extends ValueSet {
+    private final int[] table;
+    private final int mask;
+    private final boolean containsZero;
+
+    IntValueSet(boolean containsNull, int[] values) {
+      super(containsNull);
+      table = new int[tableSize(values.length)];
+      mask = table.length - 1;
+      boolean containsZero = false;
+      for (int value : values) {
+        if (value == 0) {
+          containsZero = true;
+        } else {
+          int slot = mix(value) & mask;
+          while (table[slot] != 0 && table[slot] != value) {
+            slot = (slot + 1) & mask;
+          }
+          table[slot] = value;
+        }
+      }
+      this.containsZero = containsZero;
+    }
+
+    @Override
+    boolean containsNonNull(Object value) {
+      if (!(value instanceof Integer)) {
+        return false;
+      }
+      int intValue = (Integer) value;
+      if (intValue == 0) {
+        return containsZero;
+      }
+      for (int slot = mix(intValue) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+        if (table[slot] == intValue) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Open-addressing table with linear probing. Zero marks empty slots, so it is tracked separately.
+   */
+  private static final class LongValueSet extends ValueSet {
+    private final long[] table;
+    private final int mask;
+    private final boolean containsZero;
+
+    LongValueSet(boolean containsNull, long[] values) {
+      super(containsNull);
+      table = new long[tableSize(values.length)];
+      mask = table.length - 1;
+      boolean containsZero = false;
+      for (long value : values) {
+        if (value == 0) {
+          containsZero = true;
+        } else {
+          int slot = mix(value) & mask;
+          while (table[slot] != 0 && table[slot] != value) {
+            slot = (slot + 1) & mask;
+          }
+          table[slot] = value;
+        }
+      }
+      this.containsZero = containsZero;
+    }
+
+    @Override
+    boolean containsNonNull(Object value) {
+      if (!(value instanceof Long)) {
+        return false;
+      }
+      long longValue = (Long) value;
+      if (longValue == 0) {
+        return containsZero;
+      }
+      for (int slot = mix(longValue) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+        if (table[slot] == longValue) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -1,36 +1,144 @@
 package com.miquido.validoctor.execution;
 
-import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
+import com.miquido.validoctor.definition.NumericRule;
 import com.miquido.validoctor.definition.Rule;
 import com.miquido.validoctor.target.CollectionFieldRuleTarget;
 
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import java.util.RandomAccess;
 
+/**
+ * Execution of rules on each element of a field holding elements.<br>
+ * Elements of {@code int[]}, {@code long[]}, {@code double[]} and other numeric primitive arrays are tested without
+ * boxing when all the rules are {@link NumericRule NumericRules}.
+ * @param <T> type of enclosing patient class
+ * @param <P> type of elements
+ */
 public class CollectionFieldRuleExecution<T, P> extends RuleExecution<T, P> {
 
+  /**
+   * Number of elements assumed by {@link CollectionFieldRuleExecution#estimatedCost()}, as it is not known before
+   * examination.
+   */
+  static final int ESTIMATED_ELEMENTS = 16;
+
+  protected final CollectionFieldRuleTarget<T, P> collectionTarget;
+  private final UnboxedRules unboxedRules;
+
   public CollectionFieldRuleExecution(CollectionFieldRuleTarget<T, P> target, Rule<P> rule) {
-    super(target, rule);
-  }
-
-  public Set<Ailment> perform(T patient) {
-    final String fieldName = target.getFieldNames().get(0);
-    List<P> patients = target.getPatients(patient);
-    return IntStream.range(0, patients.size())
-        .mapToObj(index ->
-            rule.apply(patients.get(index)).stream()
-                .map(ailment -> {
-                    String field = Stream.of(fieldName + "[" + index + "]", ailment.field)
-                        .filter(s -> s != null && !s.isEmpty())
-                        .collect(Collectors.joining("."));
-                    return new Ailment(field, ailment.ailments);
-                })
-        )
-        .flatMap(Function.identity())
-        .collect(Collectors.toSet());
+    this(target, Collections.singletonList(rule));
+  }
+
+  public CollectionFieldRuleExecution(CollectionFieldRuleTarget<T, P> target, List<Rule<P>> rules) {
+    super(target, rules);
+    this.collectionTarget = target;
+    this.unboxedRules = UnboxedRules.of(rules);
+  }
+
+  @Override
+  public boolean perform(T patient, PathContext path, AilmentSink sink) {
+    Object elements = collectionTarget.getElements(patient);
+    if (elements == null) {
+      return true;
+    }
+    if (unboxedRules != null && NumericRule.isColumn(elements)) {
+      return performUnboxed(elements, path, sink);
+    }
+    if (elements instanceof Object[]) {
+      elements = Arrays.asList((Object[]) elements);
+    }
+    String fieldName = collectionTarget.getFieldName();
+    boolean passed = true;
+    if (elements instanceof List && elements instanceof RandomAccess) {
+      List<P> list = (List<P>) elements;
+      for (int index = 0; index < list.size(); index++) {
+        path.push(fieldName, index);
+        passed &= applyRules(list.get(index), path, sink);
+        path.pop();
+      }
+    } else {
+      Iterator<P> iterator = CollectionFieldRuleTarget.iterator(elements);
+      for (int index = 0; iterator.hasNext(); index++) {
+        P element = iterator.next();
+        path.push(fieldName, index);
+        passed &= applyRules(element, path, sink);
+        path.pop();
+      }
+    }
+    return passed;
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    Object elements = collectionTarget.getElements(patient);
+    if (elements == null) {
+      return true;
+    }
+    if (unboxedRules != null && NumericRule.isColumn(elements)) {
+      return passesUnboxed(elements);
+    }
+    if (elements instanceof Object[]) {
+      elements = Arrays.asList((Object[]) elements);
+    }
+    if (elements instanceof List && elements instanceof RandomAccess) {
+      List<P> list = (List<P>) elements;
+      for (int index = 0; index < list.size(); index++) {
+        if (!rulesPass(list.get(index))) {
+          return false;
+        }
+      }
+    } else {
+      Iterator<P> iterator = CollectionFieldRuleTarget.iterator(elements);
+      while (iterator.hasNext()) {
+        if (!rulesPass(iterator.next())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int estimatedCost() {
+    return super.estimatedCost() * ESTIMATED_ELEMENTS;
+  }
+
+  @Override
+  protected RuleExecution<T, P> withRules(List<Rule<P>> rules) {
+    return new CollectionFieldRuleExecution<>(collectionTarget, rules);
+  }
+
+  /**
+   * Tests elements of primitive array, pushing path of an element only if it violates any rule.
+   */
+  private boolean performUnboxed(Object elements, PathContext path, AilmentSink sink) {
+    String fieldName = collectionTarget.getFieldName();
+    boolean passed = true;
+    int length = Array.getLength(elements);
+    for (int index = 0; index < length; index++) {
+      if (!unboxedRules.passesAt(elements, index)) {
+        path.push(fieldName, index);
+        unboxedRules.applyAt(elements, index, path, sink);
+        path.pop();
+        passed = false;
+      }
+    }
+    return passed;
+  }
+
+  private boolean passesUnboxed(Object elements) {
+    int length = Array.getLength(elements);
+    for (int index = 0; index < length; index++) {
+      if (!unboxedRules.passesAt(elements, index)) {
+        return false;
+      }
+    }
+    return true;
   }
 }
@@ -1,29 +1,47 @@
 package com.miquido.validoctor.execution;
 
 import com.miquido.validoctor.definition.Rule;
-import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
 import com.miquido.validoctor.target.RuleTarget;
 
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.lang.invoke.MethodHandle;
+import java.util.Collections;
+import java.util.List;
 
 public class EnclosingObjectRuleExecution<T> extends RuleExecution<T, T> {
 
+  private final String fieldName;
+
   public EnclosingObjectRuleExecution(RuleTarget<T, T> target, Rule<T> rule) {
-    super(target, rule);
+    this(target, Collections.singletonList(rule));
+  }
+
+  public EnclosingObjectRuleExecution(RuleTarget<T, T> target, List<Rule<T>> rules) {
+    super(target, rules);
+    this.fieldName = target.getFieldNames().get(0);
+  }
+
+  @Override
+  public boolean perform(T patient, PathContext path, AilmentSink sink) {
+    path.pushTerminal(fieldName);
+    boolean passed = applyRules(patient, path, sink);
+    path.pop();
+    return passed;
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    return rulesPass(patient);
+  }
+
+  @Override
+  public MethodHandle passesHandle() {
+    return rulesPassHandle();
   }
 
   @Override
-  public Set<Ailment> perform(T patient) {
-    //this could be simplified but is kept consistent with other RuleExecutions in case of future developments
-    return target.getPatients(patient).stream()
-        .flatMap(p ->
-            rule.apply(p).stream()
-                .map(ailment -> {
-                  String fieldName = target.getFieldNames().get(0);
-                  return new Ailment(fieldName, ailment.ailments);
-                })
-        )
-        .collect(Collectors.toSet());
+  protected RuleExecution<T, T> withRules(List<Rule<T>> rules) {
+    return new EnclosingObjectRuleExecution<>(target, rules);
   }
 }
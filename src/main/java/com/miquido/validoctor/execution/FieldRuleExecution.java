@@ -1,32 +1,58 @@
 package com.miquido.validoctor.execution;
 
-import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
 import com.miquido.validoctor.definition.Rule;
 import com.miquido.validoctor.target.FieldRuleTarget;
 
-import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.List;
 
 public class FieldRuleExecution<T, P> extends RuleExecution<T, P> {
 
+  private final FieldRuleTarget<T, P> fieldTarget;
+  private final UnboxedRules unboxedRules;
+
   public FieldRuleExecution(FieldRuleTarget<T, P> target, Rule<P> rule) {
-    super(target, rule);
+    this(target, Collections.singletonList(rule));
+  }
+
+  public FieldRuleExecution(FieldRuleTarget<T, P> target, List<Rule<P>> rules) {
+    super(target, rules);
+    this.fieldTarget = target;
+    this.unboxedRules = UnboxedRules.of(target.getAccessor(), rules);
+  }
+
+  @Override
+  public boolean perform(T patient, PathContext path, AilmentSink sink) {
+    path.push(fieldTarget.getFieldName());
+    boolean passed = unboxedRules != null
+        ? unboxedRules.perform(patient, path, sink)
+        : applyRules(fieldTarget.getPatient(patient), path, sink);
+    path.pop();
+    return passed;
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    if (unboxedRules != null) {
+      return unboxedRules.passes(patient);
+    }
+    return rulesPass(fieldTarget.getPatient(patient));
+  }
+
+  @Override
+  public MethodHandle passesHandle() {
+    if (unboxedRules != null) {
+      return unboxedRules.passesHandle();
+    }
+    return MethodHandles.filterArguments(rulesPassHandle(), 0, fieldTarget.getPatientHandle());
   }
 
   @Override
-  public Set<Ailment> perform(T patient) {
-    return target.getPatients(patient).stream()
-        .flatMap(p ->
-            rule.apply(p).stream()
-                .map(ailment -> {
-                    String fieldName = Stream.of(target.getFieldNames().get(0), ailment.field)
-                        .filter(s -> s != null && !s.isEmpty())
-                        .collect(Collectors.joining("."));
-                    return new Ailment(fieldName, ailment.ailments);
-                })
-        )
-        .collect(Collectors.toSet());
+  protected RuleExecution<T, P> withRules(List<Rule<P>> rules) {
+    return new FieldRuleExecution<>(fieldTarget, rules);
   }
 }
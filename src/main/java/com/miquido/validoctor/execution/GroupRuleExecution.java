@@ -0,0 +1,46 @@
+package com.miquido.validoctor.execution;
+
+import com.miquido.validoctor.definition.Rule;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
+import com.miquido.validoctor.target.RuleTarget;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Execution of rules on the enclosing patient itself, in place - unlike {@link EnclosingObjectRuleExecution}, it does
+ * not attach violations to any field name, leaving it to the rules. Used for groups of field rules sharing a condition.
+ * @param <T> type of enclosing patient class
+ */
+public class GroupRuleExecution<T> extends RuleExecution<T, T> {
+
+  public GroupRuleExecution(RuleTarget<T, T> target, Rule<T> rule) {
+    this(target, Collections.singletonList(rule));
+  }
+
+  public GroupRuleExecution(RuleTarget<T, T> target, List<Rule<T>> rules) {
+    super(target, rules);
+  }
+
+  @Override
+  public boolean perform(T patient, PathContext path, AilmentSink sink) {
+    return applyRules(patient, path, sink);
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    return rulesPass(patient);
+  }
+
+  @Override
+  public MethodHandle passesHandle() {
+    return rulesPassHandle();
+  }
+
+  @Override
+  protected RuleExecution<T, T> withRules(List<Rule<T>> rules) {
+    return new GroupRuleExecution<>(target, rules);
+  }
+}
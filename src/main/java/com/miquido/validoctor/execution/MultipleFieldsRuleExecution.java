@@ -1,37 +1,76 @@
 package com.miquido.validoctor.execution;
 
 import com.miquido.validoctor.definition.Rule;
-import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.definition.RuleHandles;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
 import com.miquido.validoctor.target.MultipleFieldsRuleTarget;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 public class MultipleFieldsRuleExecution<T, P> extends RuleExecution<T, P> {
 
+  private final MultipleFieldsRuleTarget<T, P> fieldsTarget;
+  private final UnboxedRules[] unboxedRules;
+
   public MultipleFieldsRuleExecution(MultipleFieldsRuleTarget<T, P> target, Rule<P> rule) {
-    super(target, rule);
+    this(target, Collections.singletonList(rule));
+  }
+
+  public MultipleFieldsRuleExecution(MultipleFieldsRuleTarget<T, P> target, List<Rule<P>> rules) {
+    super(target, rules);
+    this.fieldsTarget = target;
+    this.unboxedRules = new UnboxedRules[target.size()];
+    for (int i = 0; i < unboxedRules.length; i++) {
+      unboxedRules[i] = UnboxedRules.of(target.getAccessor(i), rules);
+    }
+  }
+
+  @Override
+  public boolean perform(T patient, PathContext path, AilmentSink sink) {
+    List<String> fieldNames = fieldsTarget.getFieldNames();
+    boolean passed = true;
+    for (int i = 0; i < fieldsTarget.size(); i++) {
+      path.push(fieldNames.get(i));
+      passed &= unboxedRules[i] != null
+          ? unboxedRules[i].perform(patient, path, sink)
+          : applyRules(fieldsTarget.getPatient(patient, i), path, sink);
+      path.pop();
+    }
+    return passed;
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    for (int i = 0; i < fieldsTarget.size(); i++) {
+      boolean passed = unboxedRules[i] != null
+          ? unboxedRules[i].passes(patient)
+          : rulesPass(fieldsTarget.getPatient(patient, i));
+      if (!passed) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public MethodHandle passesHandle() {
+    MethodHandle rulesHandle = rulesPassHandle();
+    List<MethodHandle> fieldHandles = new ArrayList<>(fieldsTarget.size());
+    for (int i = 0; i < fieldsTarget.size(); i++) {
+      fieldHandles.add(unboxedRules[i] != null
+          ? unboxedRules[i].passesHandle()
+          : MethodHandles.filterArguments(rulesHandle, 0, fieldsTarget.getPatientHandle(i)));
+    }
+    return RuleHandles.allHandles(fieldHandles);
   }
 
   @Override
-  public Set<Ailment> perform(T patient) {
-    List<String> fieldNames = target.getFieldNames();
-    List<P> patients = target.getPatients(patient);
-    return IntStream.range(0, patients.size())
-        .mapToObj(index ->
-            rule.apply(patients.get(index)).stream()
-                .map(ailment -> {
-                    String field = Stream.of(fieldNames.get(index), ailment.field)
-                        .filter(s -> s != null && !s.isEmpty())
-                        .collect(Collectors.joining("."));
-                    return new Ailment(field, ailment.ailments);
-                })
-        )
-        .flatMap(Function.identity())
-        .collect(Collectors.toSet());
+  protected RuleExecution<T, P> withRules(List<Rule<P>> rules) {
+    return new MultipleFieldsRuleExecution<>(fieldsTarget, rules);
   }
 }
@@ -0,0 +1,171 @@
+package com.miquido.validoctor.execution;
+
+import com.miquido.validoctor.definition.Rule;
+import com.miquido.validoctor.result.AilmentBuffer;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.AsyncAilmentBuffer;
+import com.miquido.validoctor.result.AsyncDiagnosisSink;
+import com.miquido.validoctor.result.LookupScope;
+import com.miquido.validoctor.result.PathContext;
+import com.miquido.validoctor.target.CollectionFieldRuleTarget;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Execution of rules on elements of a collection-type field that splits large collections into chunks examined
+ * in parallel on a fork/join pool. Each chunk buffers its ailments, and buffers are reported in order of chunks
+ * once all of them are done, so the result is the same as of sequential execution. In asynchronous examinations
+ * chunks buffer violations deferred by async rules too.<br>
+ * Collections smaller than the threshold are examined sequentially.
+ */
+public class ParallelCollectionFieldRuleExecution<T, P> extends CollectionFieldRuleExecution<T, P> {
+
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final int threshold;
+  private final ForkJoinPool pool;
+
+  public ParallelCollectionFieldRuleExecution(CollectionFieldRuleTarget<T, P> target, List<Rule<P>> rules,
+                                              int threshold, ForkJoinPool pool) {
+    super(target, rules);
+    this.threshold = threshold;
+    this.pool = pool;
+  }
+
+  @Override
+  public boolean perform(T patient, PathContext path, AilmentSink sink) {
+    List<P> elements = elementsToSplit(patient);
+    if (elements == null) {
+      return super.perform(patient, path, sink);
+    }
+    int chunkSize = chunkSize(elements.size());
+    AilmentSink[] buffers = new AilmentSink[(elements.size() + chunkSize - 1) / chunkSize];
+    //async rules of chunks are deferred to the examination, so their lookups are loaded together once it is done
+    AsyncDiagnosisSink asyncSink = sink instanceof AsyncDiagnosisSink ? (AsyncDiagnosisSink) sink : null;
+    invoke(new ChunksExamination(0, buffers.length, LookupScope.current(), chunk -> {
+      AilmentSink buffer = asyncSink == null ? new AilmentBuffer() : new AsyncAilmentBuffer(asyncSink);
+      PathContext chunkPath = new PathContext();
+      String fieldName = collectionTarget.getFieldName();
+      int to = Math.min(elements.size(), (chunk + 1) * chunkSize);
+      for (int index = chunk * chunkSize; index < to; index++) {
+        chunkPath.push(fieldName, index);
+        applyRules(elements.get(index), chunkPath, buffer);
+        chunkPath.pop();
+      }
+      buffers[chunk] = buffer;
+    }));
+    boolean passed = true;
+    for (AilmentSink buffer : buffers) {
+      if (asyncSink == null) {
+        passed &= ((AilmentBuffer) buffer).isEmpty();
+        ((AilmentBuffer) buffer).replay(path, sink);
+      } else {
+        passed &= ((AsyncAilmentBuffer) buffer).isEmpty();
+        ((AsyncAilmentBuffer) buffer).replay(path, asyncSink);
+      }
+    }
+    return passed;
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    List<P> elements = elementsToSplit(patient);
+    if (elements == null) {
+      return super.passes(patient);
+    }
+    int chunkSize = chunkSize(elements.size());
+    int chunks = (elements.size() + chunkSize - 1) / chunkSize;
+    AtomicBoolean failed = new AtomicBoolean();
+    invoke(new ChunksExamination(0, chunks, LookupScope.current(), chunk -> {
+      int to = Math.min(elements.size(), (chunk + 1) * chunkSize);
+      for (int index = chunk * chunkSize; index < to && !failed.get(); index++) {
+        if (!rulesPass(elements.get(index))) {
+          failed.set(true);
+        }
+      }
+    }));
+    return !failed.get();
+  }
+
+  @Override
+  protected RuleExecution<T, P> withRules(List<Rule<P>> rules) {
+    return new ParallelCollectionFieldRuleExecution<>(collectionTarget, rules, threshold, pool);
+  }
+
+  /**
+   * @return elements of the collection in a random access list, or null if it should not be split, as it is not
+   * a collection or is too small
+   */
+  private List<P> elementsToSplit(T patient) {
+    Object elements = collectionTarget.getElements(patient);
+    if (!(elements instanceof Collection)) {
+      return null;
+    }
+    Collection<P> collection = (Collection<P>) elements;
+    if (collection.size() < threshold || collection.size() < 2) {
+      return null;
+    }
+    return collection instanceof List && collection instanceof RandomAccess
+        ? (List<P>) collection : new ArrayList<>(collection);
+  }
+
+  private int chunkSize(int size) {
+    return Math.max(1, size / (pool.getParallelism() * CHUNKS_PER_THREAD));
+  }
+
+  private void invoke(ChunksExamination task) {
+    if (ForkJoinTask.getPool() == pool) {
+      task.invoke(); //already running in the pool, for example in bulk examination
+    } else {
+      pool.invoke(task);
+    }
+  }
+
+  @FunctionalInterface
+  private interface ChunkExamination {
+    void examine(int chunk);
+  }
+
+  /**
+   * Chunks examined in the {@link LookupScope} of the examination they are part of, whichever thread runs them, so
+   * that lookups of all elements are loaded together.
+   */
+  private static final class ChunksExamination extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final LookupScope lookups;
+    private final ChunkExamination examination;
+
+    ChunksExamination(int from, int to, LookupScope lookups, ChunkExamination examination) {
+      this.from = from;
+      this.to = to;
+      this.lookups = lookups;
+      this.examination = examination;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        LookupScope previous = LookupScope.enter(lookups);
+        try {
+          examination.examine(from);
+        } finally {
+          LookupScope.enter(previous);
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new ChunksExamination(from, middle, lookups, examination),
+            new ChunksExamination(middle, to, lookups, examination));
+      }
+    }
+  }
+}
@@ -1,35 +1,64 @@
 package com.miquido.validoctor.execution;
 
 import com.miquido.validoctor.definition.Rule;
-import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.result.AilmentBuffer;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.AsyncDiagnosisSink;
+import com.miquido.validoctor.result.PathContext;
 import com.miquido.validoctor.target.ReducedFieldsRuleTarget;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class ReducedFieldsRuleExecution<T, P> extends RuleExecution<T, P> {
 
+  private final ReducedFieldsRuleTarget<T, P> reducedTarget;
+
   public ReducedFieldsRuleExecution(ReducedFieldsRuleTarget<T, P> target, Rule<P> rule) {
-    super(target, rule);
+    this(target, Collections.singletonList(rule));
+  }
+
+  public ReducedFieldsRuleExecution(ReducedFieldsRuleTarget<T, P> target, List<Rule<P>> rules) {
+    super(target, rules);
+    this.reducedTarget = target;
+  }
+
+  @Override
+  public boolean perform(T patient, PathContext path, AilmentSink sink) {
+    List<String> fieldNames = reducedTarget.getFieldNames();
+    P value = reducedTarget.getReducedPatient(patient);
+    //TODO improve field naming, as currently its not clear the ailment comes from reduced value
+    if (fieldNames.size() == 1) {
+      path.push(fieldNames.get(0));
+      boolean passed = applyRules(value, path, sink);
+      path.pop();
+      return passed;
+    }
+    //valid patients are only checked, while for invalid ones the rules are applied once more, relative to the reduced
+    //value, and their ailments are replayed under each involved field name; asynchronous examination skips the check,
+    //as it would wait for async rules
+    if (!(sink instanceof AsyncDiagnosisSink) && rulesPass(value)) {
+      return true;
+    }
+    AilmentBuffer buffer = new AilmentBuffer();
+    if (applyRules(value, new PathContext(), buffer)) {
+      return true;
+    }
+    for (String fieldName : fieldNames) {
+      path.push(fieldName);
+      buffer.replay(path, sink);
+      path.pop();
+    }
+    return false;
+  }
+
+  @Override
+  public boolean passes(T patient) {
+    return rulesPass(reducedTarget.getReducedPatient(patient));
   }
 
   @Override
-  public Set<Ailment> perform(T patient) {
-    List<String> fieldNames = target.getFieldNames();
-    P value = target.getPatients(patient).get(0); //always one reduced value
-    Set<Ailment> ailments = rule.apply(value);
-    return fieldNames.stream() //return ailments for each involved field
-        .flatMap(name ->
-            ailments.stream().map(ailment -> {
-                //TODO improve field naming, as currently its not clear the ailment comes from reduced value
-                String fieldName = Stream.of(name, ailment.field)
-                    .filter(s -> s != null && !s.isEmpty())
-                    .collect(Collectors.joining("."));
-                return new Ailment(fieldName, ailment.ailments);
-            })
-        )
-        .collect(Collectors.toSet());
+  protected RuleExecution<T, P> withRules(List<Rule<P>> rules) {
+    return new ReducedFieldsRuleExecution<>(reducedTarget, rules);
   }
 }
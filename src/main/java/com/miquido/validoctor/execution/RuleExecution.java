@@ -1,26 +1,192 @@
 package com.miquido.validoctor.execution;
 
 import com.miquido.validoctor.result.Ailment;
+import com.miquido.validoctor.definition.AsyncRule;
 import com.miquido.validoctor.definition.Rule;
+import com.miquido.validoctor.definition.RuleHandles;
+import com.miquido.validoctor.result.AilmentCollector;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
 import com.miquido.validoctor.target.RuleTarget;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 
 /**
- * Abstract base class for definition of how the rule should be executed.<br>
- * It holds {@link RuleTarget} that provides patient objects for the rule, extracting them from the enclosing patient passed
- * in <b>perform</b> method, and the rule itself.
+ * Abstract base class for definition of how the rules should be executed.<br>
+ * It holds {@link RuleTarget} that provides patient objects for the rules, extracting them from the enclosing patient passed
+ * in <b>perform</b> method, and the rules themselves. Patients are extracted once per <b>perform</b> call and passed
+ * to all the rules.
  * @param <T> type of enclosing patient class
  * @param <P> type of the actual rule patient class
  */
 public abstract class RuleExecution<T, P> {
+  private static final MethodHandle PASSES;
+
+  static {
+    try {
+      PASSES = MethodHandles.lookup().findVirtual(RuleExecution.class, "passes", RuleHandles.PASSES_TYPE);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
   protected final RuleTarget<T, P> target;
-  protected final Rule<P> rule;
+  protected final List<Rule<P>> rules;
 
   public RuleExecution(RuleTarget<T, P> target, Rule<P> rule) {
+    this(target, Collections.singletonList(rule));
+  }
+
+  public RuleExecution(RuleTarget<T, P> target, List<Rule<P>> rules) {
     this.target = target;
-    this.rule = rule;
+    this.rules = rules;
+  }
+
+  /**
+   * @param patient enclosing patient
+   * @return ailments found in patients extracted from the enclosing patient
+   */
+  public Set<Ailment> perform(T patient) {
+    AilmentCollector collector = new AilmentCollector();
+    perform(patient, new PathContext(), collector);
+    return collector.getAilments();
+  }
+
+  /**
+   * Executes the rules on patients extracted from enclosing patient, reporting their violations to specified sink.
+   * @param patient enclosing patient
+   * @param path path to the enclosing patient
+   * @param sink sink to report violations to
+   * @return true if no violations were reported
+   */
+  public abstract boolean perform(T patient, PathContext path, AilmentSink sink);
+
+  /**
+   * Checks whether patients extracted from enclosing patient pass all the rules, stopping at first violation.
+   * @param patient enclosing patient
+   * @return true if no rule was violated
+   */
+  public abstract boolean passes(T patient);
+
+  /**
+   * Returns handle equivalent to {@link RuleExecution#passes(Object)}, of {@link RuleHandles#PASSES_TYPE} type, taking
+   * enclosing patient.<br>
+   * Default implementation calls {@link RuleExecution#passes(Object)}; executions that can express extraction of
+   * patients with handles should override it and compose it with {@link RuleExecution#rulesPassHandle()}.
+   * @return handle checking whether patients extracted from enclosing patient pass all the rules
+   */
+  public MethodHandle passesHandle() {
+    return PASSES.bindTo(this);
+  }
+
+  /**
+   * @param rules rules to execute
+   * @return execution of the same kind and on the same target as this one, but executing specified rules
+   */
+  protected abstract RuleExecution<T, P> withRules(List<Rule<P>> rules);
+
+  /**
+   * Applies all rules to the patient extracted from enclosing patient. During asynchronous examination
+   * {@link AsyncRule AsyncRules} are only started, and their violations deferred to the sink.
+   * @param patient patient to apply the rules to
+   * @param path path to the patient
+   * @param sink sink to report violations to
+   * @return true if no violations were reported
+   */
+  protected boolean applyRules(P patient, PathContext path, AilmentSink sink) {
+    boolean passed = true;
+    for (int i = 0; i < rules.size(); i++) {
+      passed &= AsyncRule.apply(rules.get(i), patient, path, sink);
+    }
+    return passed;
   }
 
-  public abstract Set<Ailment> perform(T patient);
+  /**
+   * @param patient patient to apply the rules to
+   * @return true if patient passes all the rules
+   */
+  protected boolean rulesPass(P patient) {
+    for (int i = 0; i < rules.size(); i++) {
+      if (!rules.get(i).passes(patient)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return handle checking whether patient passes all rules, like {@link RuleExecution#rulesPass(Object)}
+   */
+  protected MethodHandle rulesPassHandle() {
+    return RuleHandles.all(rules);
+  }
+
+  public RuleTarget<T, P> getTarget() {
+    return target;
+  }
+
+  public List<Rule<P>> getRules() {
+    return rules;
+  }
+
+  /**
+   * Estimates relative cost of the execution as {@link Rule#estimatedCost() estimated costs} of its rules, times number
+   * of patients extracted from enclosing patient.
+   * @return estimated cost of performing the execution
+   */
+  public int estimatedCost() {
+    int cost = 0;
+    for (int i = 0; i < rules.size(); i++) {
+      cost += rules.get(i).estimatedCost();
+    }
+    return cost * Math.max(1, target.getFieldNames().size());
+  }
+
+  /**
+   * Removes rules that would report nothing new and orders the remaining ones cheapest first. As all rules are applied
+   * to each patient, their order does not change reported violations, only how soon {@link RuleExecution#passes(Object)}
+   * stops at a failing patient.
+   * @param covered rules already executed on the same patients, at the same paths, by other executions
+   * @return execution of the same kind on the same target, executing each of its rules not covered once, in order of
+   * their estimated cost, or null if no rules remain
+   */
+  public RuleExecution<T, P> optimized(Collection<? extends Rule<?>> covered) {
+    List<Rule<P>> distinct = new ArrayList<>(rules.size());
+    for (Rule<P> rule : rules) {
+      if (!distinct.contains(rule) && !covered.contains(rule)) {
+        distinct.add(rule);
+      }
+    }
+    if (distinct.isEmpty()) {
+      return null;
+    }
+    distinct.sort(Comparator.comparingInt(Rule::estimatedCost));
+    return distinct.equals(rules) ? this : withRules(distinct);
+  }
+
+  /**
+   * Joins this execution with another one of the same kind on an {@link Object#equals(Object) equal} target, so that
+   * patients are extracted only once for rules of both.
+   * @param other execution of the same class as this one, on target equal to the target of this execution
+   * @return execution executing rules of this execution followed by rules of the other one
+   */
+  public RuleExecution<T, P> merge(RuleExecution<T, ?> other) {
+    if (!target.equals(other.target)) {
+      throw new IllegalArgumentException("Cannot merge executions with different targets");
+    }
+    if (getClass() != other.getClass()) {
+      throw new IllegalArgumentException("Cannot merge executions of different kinds");
+    }
+    List<Rule<P>> merged = new ArrayList<>(rules.size() + other.rules.size());
+    merged.addAll(rules);
+    merged.addAll(((RuleExecution<T, P>) other).rules);
+    return withRules(merged);
+  }
 }
@@ -0,0 +1,216 @@
+package com.miquido.validoctor.execution;
+
+import com.miquido.validoctor.definition.NumericRule;
+import com.miquido.validoctor.definition.Rule;
+import com.miquido.validoctor.definition.RuleHandles;
+import com.miquido.validoctor.result.AilmentSink;
+import com.miquido.validoctor.result.PathContext;
+import com.miquido.validoctor.target.FieldAccessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
+/**
+ * Rules executed on values of numeric primitive types, when all of them are {@link NumericRule NumericRules}.<br>
+ * Values are tested without boxing, either read from a field once, in its own primitive kind, or taken from elements
+ * of primitive arrays.
+ */
+final class UnboxedRules {
+  private static final MethodHandle PASSES;
+
+  static {
+    try {
+      PASSES = MethodHandles.lookup().findVirtual(UnboxedRules.class, "passes", RuleHandles.PASSES_TYPE);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private static final int INT = 0;
+  private static final int LONG = 1;
+  private static final int DOUBLE = 2;
+
+  private final NumericRule<?>[] rules;
+  private final FieldAccessor accessor;
+  private final int kind;
+
+  private UnboxedRules(NumericRule<?>[] rules, FieldAccessor accessor, int kind) {
+    this.rules = rules;
+    this.accessor = accessor;
+    this.kind = kind;
+  }
+
+  /**
+   * @param rules rules to execute on unboxed values
+   * @return unboxed rules, or null if any of the rules is not numeric
+   */
+  static UnboxedRules of(List<? extends Rule<?>> rules) {
+    NumericRule<?>[] numericRules = new NumericRule<?>[rules.size()];
+    for (int i = 0; i < numericRules.length; i++) {
+      Rule<?> rule = rules.get(i);
+      if (!(rule instanceof NumericRule)) {
+        return null;
+      }
+      numericRules[i] = (NumericRule<?>) rule;
+    }
+    return new UnboxedRules(numericRules, null, -1);
+  }
+
+  /**
+   * @param accessor accessor of the field
+   * @param rules rules to execute on the field
+   * @return unboxed rules reading the field, or null if the field is not of numeric primitive type or any of the
+   * rules is not numeric
+   */
+  static UnboxedRules of(FieldAccessor accessor, List<? extends Rule<?>> rules) {
+    Class<?> type = accessor.getType();
+    int kind;
+    if (type == int.class || type == short.class || type == byte.class) {
+      kind = INT;
+    } else if (type == long.class) {
+      kind = LONG;
+    } else if (type == double.class || type == float.class) {
+      kind = DOUBLE;
+    } else {
+      return null;
+    }
+    UnboxedRules unboxed = of(rules);
+    return unboxed == null ? null : new UnboxedRules(unboxed.rules, accessor, kind);
+  }
+
+  /**
+   * Applies all rules to the field of enclosing patient.
+   * @param patient enclosing patient, null passes all rules
+   * @param path path to the field
+   * @param sink sink to report violations to
+   * @return true if no violations were reported
+   */
+  boolean perform(Object patient, PathContext path, AilmentSink sink) {
+    if (patient == null) {
+      return true;
+    }
+    switch (kind) {
+      case INT:
+        return applyInt(accessor.readInt(patient), path, sink);
+      case LONG:
+        return applyLong(accessor.readLong(patient), path, sink);
+      default:
+        return applyDouble(accessor.readDouble(patient), path, sink);
+    }
+  }
+
+  /**
+   * @param patient enclosing patient, null passes all rules
+   * @return true if the field passes all rules
+   */
+  boolean passes(Object patient) {
+    if (patient == null) {
+      return true;
+    }
+    switch (kind) {
+      case INT:
+        return passesInt(accessor.readInt(patient));
+      case LONG:
+        return passesLong(accessor.readLong(patient));
+      default:
+        return passesDouble(accessor.readDouble(patient));
+    }
+  }
+
+  /**
+   * @return handle of {@link RuleHandles#PASSES_TYPE} type, like {@link UnboxedRules#passes(Object)}
+   */
+  MethodHandle passesHandle() {
+    return PASSES.bindTo(this);
+  }
+
+  /**
+   * @param values numeric primitive array
+   * @param index index of the element to test
+   * @return true if the element passes all rules
+   */
+  boolean passesAt(Object values, int index) {
+    for (NumericRule<?> rule : rules) {
+      if (!rule.testAt(values, index)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Applies all rules to the element of numeric primitive array.
+   * @return true if no violations were reported
+   */
+  boolean applyAt(Object values, int index, PathContext path, AilmentSink sink) {
+    boolean passed = true;
+    for (NumericRule<?> rule : rules) {
+      if (!rule.testAt(values, index)) {
+        sink.report(path, rule.getViolationMessage());
+        passed = false;
+      }
+    }
+    return passed;
+  }
+
+  boolean passesInt(int value) {
+    for (NumericRule<?> rule : rules) {
+      if (!rule.testInt(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean passesLong(long value) {
+    for (NumericRule<?> rule : rules) {
+      if (!rule.testLong(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean passesDouble(double value) {
+    for (NumericRule<?> rule : rules) {
+      if (!rule.testDouble(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean applyInt(int value, PathContext path, AilmentSink sink) {
+    boolean passed = true;
+    for (NumericRule<?> rule : rules) {
+      if (!rule.testInt(value)) {
+        sink.report(path, rule.getViolationMessage());
+        passed = false;
+      }
+    }
+    return passed;
+  }
+
+  boolean applyLong(long value, PathContext path, AilmentSink sink) {
+    boolean passed = true;
+    for (NumericRule<?> rule : rules) {
+      if (!rule.testLong(value)) {
+        sink.report(path, rule.getViolationMessage());
+        passed = false;
+      }
+    }
+    return passed;
+  }
+
+  boolean applyDouble(double value, PathContext path, AilmentSink sink) {
+    boolean passed = true;
+    for (NumericRule<?> rule : rules) {
+      if (!rule.testDouble(value)) {
+        sink.report(path, rule.getViolationMessage());
+        passed = false;
+      }
+    }
+    return passed;
+  }
+}
@@ -0,0 +1,40 @@
+package com.miquido.validoctor.result;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sink buffering reported violations in order, so that they can be reported to another sink later - for example
+ * after rules were applied on another thread, with its own path.
+ */
+public class AilmentBuffer implements AilmentSink {
+
+  private final List<FieldPath> fields = new ArrayList<>();
+  private final List<String> ailments = new ArrayList<>();
+
+  @Override
+  public void report(PathContext path, String ailment) {
+    fields.add(path.toFieldPath());
+    ailments.add(ailment);
+  }
+
+  public boolean isEmpty() {
+    return ailments.isEmpty();
+  }
+
+  /**
+   * Reports all buffered violations to specified sink, in order they were reported to this buffer. Paths they were
+   * reported with are treated as relative to specified path.
+   * @param path path buffered paths are relative to
+   * @param sink sink to report to
+   */
+  public void replay(PathContext path, AilmentSink sink) {
+    for (int i = 0; i < ailments.size(); i++) {
+      int pushed = path.push(fields.get(i));
+      sink.report(path, ailments.get(i));
+      for (int j = 0; j < pushed; j++) {
+        path.pop();
+      }
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.miquido.validoctor.result;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Sink collecting reported violations into a set of {@link Ailment}s, one per reported violation.
+ */
+public class AilmentCollector implements AilmentSink {
+
+  private Set<Ailment> ailments = Collections.emptySet();
+
+  @Override
+  public void report(PathContext path, String ailment) {
+    if (ailments.isEmpty()) {
+      ailments = new HashSet<>();
+    }
+    ailments.add(new Ailment(path.render(), ailment));
+  }
+
+  /**
+   * @return collected ailments
+   */
+  public Set<Ailment> getAilments() {
+    return ailments;
+  }
+}
@@ -0,0 +1,20 @@
+package com.miquido.validoctor.result;
+
+import com.miquido.validoctor.definition.Rule;
+
+/**
+ * Accumulator that all rules of an examination report their violations to, no matter how deeply they are nested.
+ * @see Rule#apply(Object, PathContext, AilmentSink)
+ */
+@FunctionalInterface
+public interface AilmentSink {
+
+  /**
+   * Reports a single violation.
+   * @param path path to the violating patient; it is only valid for the duration of this call, so implementations
+   *             should {@link PathContext#toFieldPath() build} or {@link PathContext#render() render} it if they need
+   *             to keep it
+   * @param ailment violation message
+   */
+  void report(PathContext path, String ailment);
+}
@@ -0,0 +1,59 @@
+package com.miquido.validoctor.result;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link AilmentBuffer} of an asynchronous examination. Besides reported violations, it buffers futures of violations
+ * deferred by async rules, so that rules applied on another thread defer them instead of waiting for them.
+ */
+public class AsyncAilmentBuffer extends AsyncDiagnosisSink {
+
+  private final AilmentBuffer reported = new AilmentBuffer();
+  private final List<FieldPath> deferredPaths = new ArrayList<>();
+  private final List<CompletableFuture<Set<Ailment>>> deferred = new ArrayList<>();
+
+  /**
+   * @param target sink the buffer is going to be replayed to, whose executor async rules run on
+   */
+  public AsyncAilmentBuffer(AsyncDiagnosisSink target) {
+    super(target.getExecutor());
+  }
+
+  @Override
+  public void report(PathContext path, String ailment) {
+    reported.report(path, ailment);
+  }
+
+  @Override
+  public void defer(PathContext path, CompletableFuture<Set<Ailment>> ailments) {
+    deferredPaths.add(path.toFieldPath());
+    deferred.add(ailments);
+  }
+
+  /**
+   * @return true if no violations were reported, deferred ones not included
+   */
+  public boolean isEmpty() {
+    return reported.isEmpty();
+  }
+
+  /**
+   * Reports buffered violations and defers buffered futures to specified sink, treating paths they were buffered with
+   * as relative to specified path.
+   * @param path path buffered paths are relative to
+   * @param sink sink to report to
+   */
+  public void replay(PathContext path, AsyncDiagnosisSink sink) {
+    reported.replay(path, sink);
+    for (int i = 0; i < deferred.size(); i++) {
+      int pushed = path.push(deferredPaths.get(i));
+      sink.defer(path, deferred.get(i));
+      for (int j = 0; j < pushed; j++) {
+        path.pop();
+      }
+    }
+  }
+}
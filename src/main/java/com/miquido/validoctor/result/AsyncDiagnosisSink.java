@@ -0,0 +1,128 @@
+package com.miquido.validoctor.result;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sink of an asynchronous examination. Besides violations reported right away, it collects futures of violations of
+ * {@link com.miquido.validoctor.definition.AsyncRule AsyncRules} started during the examination, with paths they were
+ * started at, and builds the {@link Diagnosis} once all of them complete or the deadline passes.
+ */
+public class AsyncDiagnosisSink extends DiagnosisSink {
+
+  /**
+   * Violation reported at paths of async rules that did not complete before the deadline.
+   */
+  public static final String TIMED_OUT = "TIMED_OUT";
+
+  private final Executor executor;
+  private final List<FieldPath> pendingPaths = new ArrayList<>();
+  private final List<CompletableFuture<Set<Ailment>>> pending = new ArrayList<>();
+
+  /**
+   * @param executor executor async rules run their blocking parts on
+   */
+  public AsyncDiagnosisSink(Executor executor) {
+    this.executor = executor;
+    MessageCodes.register(TIMED_OUT);
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * @param path path to the patient of an async rule
+   * @param ailments future of ailments found by the rule, with field names relative to the patient
+   */
+  public void defer(PathContext path, CompletableFuture<Set<Ailment>> ailments) {
+    pendingPaths.add(path.toFieldPath());
+    pending.add(ailments);
+  }
+
+  /**
+   * @param message message replacing messages of violations, like one set with
+   *                {@link com.miquido.validoctor.definition.Rules#named(String, com.miquido.validoctor.definition.Rule)}
+   * @return sink reporting violations to this one with the message instead of their own, deferred ones included
+   */
+  public AsyncDiagnosisSink withMessage(String message) {
+    return new MessageOverridingSink(this, message);
+  }
+
+  /**
+   * @param timeout time to wait for deferred violations, or 0 to wait until all of them complete
+   * @param unit unit of the timeout
+   * @return future of diagnosis holding all reported and deferred violations, completed exceptionally if any of
+   * deferred violations completed exceptionally
+   */
+  public CompletableFuture<Diagnosis> toDiagnosisAsync(long timeout, TimeUnit unit) {
+    CompletableFuture<?> settled = CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+        .handle((ignored, failure) -> null); //failures are rethrown when reporting
+    if (timeout > 0 && !settled.isDone()) {
+      CompletableFuture<Object> deadline = new CompletableFuture<>();
+      ScheduledFuture<?> timer = Timer.SCHEDULER.schedule(() -> deadline.complete(null), timeout, unit);
+      settled.thenRun(() -> timer.cancel(false));
+      settled = CompletableFuture.anyOf(settled, deadline);
+    }
+    return settled.thenApply(ignored -> {
+      for (int i = 0; i < pending.size(); i++) {
+        report(pendingPaths.get(i), pending.get(i));
+      }
+      pendingPaths.clear();
+      pending.clear();
+      return toDiagnosis();
+    });
+  }
+
+  private void report(FieldPath path, CompletableFuture<Set<Ailment>> ailments) {
+    if (!ailments.isDone()) {
+      ailments.cancel(false);
+      add(path, TIMED_OUT);
+      return;
+    }
+    add(path, ailments.join());
+  }
+
+  private static final class MessageOverridingSink extends AsyncDiagnosisSink {
+    private final AsyncDiagnosisSink target;
+    private final String message;
+
+    MessageOverridingSink(AsyncDiagnosisSink target, String message) {
+      super(target.getExecutor());
+      this.target = target;
+      this.message = message;
+    }
+
+    @Override
+    public void report(PathContext path, String ailment) {
+      target.report(path, message);
+    }
+
+    @Override
+    public void defer(PathContext path, CompletableFuture<Set<Ailment>> ailments) {
+      target.defer(path, ailments.thenApply(found -> {
+        Set<Ailment> overridden = new HashSet<>();
+        for (Ailment ailment : found) {
+          overridden.add(new Ailment(ailment.field, message));
+        }
+        return overridden;
+      }));
+    }
+  }
+
+  private static final class Timer {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "validoctor-deadlines");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+}
@@ -0,0 +1,85 @@
+package com.miquido.validoctor.result;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds results of examination of multiple patients, indexed by position of the patient in examined sequence.<br>
+ * Only invalid patients have their {@link Diagnosis} stored; valid ones are just marked as such, so results of large
+ * batches take space proportional to number of violations found rather than number of patients.
+ */
+public class BulkDiagnosis {
+  private final int size;
+  private final BitSet invalidIndexes;
+  private final Map<Integer, Diagnosis> invalidDiagnoses;
+
+  public BulkDiagnosis(int size, Map<Integer, Diagnosis> invalidDiagnoses) {
+    this.size = size;
+    this.invalidDiagnoses = Collections.unmodifiableMap(new HashMap<>(invalidDiagnoses));
+    this.invalidIndexes = new BitSet(size);
+    invalidDiagnoses.keySet().forEach(invalidIndexes::set);
+  }
+
+  /**
+   * @return number of examined patients
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return true if all examined patients are valid
+   */
+  public boolean isValid() {
+    return invalidIndexes.isEmpty();
+  }
+
+  /**
+   * @param index position of patient in examined sequence
+   * @return true if patient at specified position is valid
+   */
+  public boolean isValid(int index) {
+    checkIndex(index);
+    return !invalidIndexes.get(index);
+  }
+
+  /**
+   * @param index position of patient in examined sequence
+   * @return diagnosis of patient at specified position; a new, empty one if the patient is valid
+   */
+  public Diagnosis getDiagnosis(int index) {
+    checkIndex(index);
+    Diagnosis diagnosis = invalidDiagnoses.get(index);
+    return diagnosis == null ? new Diagnosis(new HashMap<>()) : diagnosis;
+  }
+
+  /**
+   * @return positions of invalid patients
+   */
+  public BitSet getInvalidIndexes() {
+    return (BitSet) invalidIndexes.clone();
+  }
+
+  /**
+   * @return map of positions of invalid patients to their diagnoses
+   */
+  public Map<Integer, Diagnosis> getInvalidDiagnoses() {
+    return invalidDiagnoses;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "BulkDiagnosis{" +
+        "size=" + size +
+        ", invalidDiagnoses=" + invalidDiagnoses +
+        '}';
+  }
+}
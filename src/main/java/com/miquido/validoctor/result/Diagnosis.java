@@ -1,5 +1,7 @@
 package com.miquido.validoctor.result;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -7,21 +9,37 @@ import java.util.Set;
 
 /**
  * Holds a result of a validation: flag marking the patient object as valid or not,
- * and a map of patient objects' fields to their violation messages.
+ * and a map of patient objects' fields to their violation messages.<br>
+ * Violations are stored compactly, as array of paths to violated fields and parallel array of bitsets of their
+ * {@link MessageCodes message codes}. Map returned by {@link Diagnosis#getAilments()} is materialized from them only
+ * when it is first asked for.
  */
 public class Diagnosis {
-  private boolean valid = true;
-  private Map<String, Set<String>> ailments = new HashMap<>();
+  private static final FieldPath[] NO_PATHS = new FieldPath[0];
+  private static final long[] NO_CODES = new long[0];
+
+  private boolean valid;
+  private final FieldPath[] paths;
+  private final long[] codes;
+  private final int words;
+  private final Map<FieldPath, Set<String>> uncoded;
+  private volatile Map<String, Set<String>> ailments;
+
+  Diagnosis(Map<String, Set<String>> ailments) {
+    this(sinkOf(ailments));
+  }
 
   public Diagnosis(Set<Ailment> results) {
-    results.forEach(result -> {
-      Set<String> resultAilments = result.ailments;
-      if (!resultAilments.isEmpty()) {
-        valid = false;
-        Set<String> ailmentsToAdd = ailments.computeIfAbsent(result.field, key -> new HashSet<>());
-        ailmentsToAdd.addAll(resultAilments);
-      }
-    });
+    this(sinkOf(results));
+  }
+
+  Diagnosis(DiagnosisSink sink) {
+    int size = sink.size();
+    this.valid = size == 0 && sink.uncoded() == null;
+    this.paths = size == 0 ? NO_PATHS : Arrays.copyOf(sink.paths(), size);
+    this.codes = size == 0 ? NO_CODES : Arrays.copyOf(sink.codes(), size * sink.words());
+    this.words = sink.words();
+    this.uncoded = sink.uncoded();
   }
 
   public boolean isValid() {
@@ -32,14 +50,64 @@ public class Diagnosis {
    * @return map of field names to sets of ailment (rule violation) names found in them
    */
   public Map<String, Set<String>> getAilments() {
-    return ailments;
+    Map<String, Set<String>> rendered = ailments;
+    if (rendered == null) {
+      rendered = new HashMap<>();
+      for (Map.Entry<FieldPath, Set<String>> entry : getPathAilments().entrySet()) {
+        //different paths may render the same, for example skipping unnamed fields
+        rendered.computeIfAbsent(entry.getKey().render(), key -> new HashSet<>()).addAll(entry.getValue());
+      }
+      ailments = rendered;
+    }
+    return rendered;
+  }
+
+  /**
+   * @return map of paths to fields to sets of ailment names found in them, without rendering the field names
+   */
+  public Map<FieldPath, Set<String>> getPathAilments() {
+    Map<FieldPath, Set<String>> pathAilments = new HashMap<>();
+    for (int id = 0; id < paths.length; id++) {
+      Set<String> messages = new HashSet<>();
+      for (int word = 0; word < words; word++) {
+        long bits = codes[id * words + word];
+        while (bits != 0) {
+          messages.add(MessageCodes.messageOf(word * 64 + Long.numberOfTrailingZeros(bits)));
+          bits &= bits - 1;
+        }
+      }
+      pathAilments.put(paths[id], messages);
+    }
+    if (uncoded != null) {
+      uncoded.forEach((path, messages) ->
+          pathAilments.computeIfAbsent(path, key -> new HashSet<>()).addAll(messages));
+    }
+    return Collections.unmodifiableMap(pathAilments);
+  }
+
+  private static DiagnosisSink sinkOf(Map<String, Set<String>> ailments) {
+    DiagnosisSink sink = new DiagnosisSink();
+    ailments.forEach((field, messages) -> {
+      FieldPath path = FieldPath.root(field);
+      messages.forEach(message -> sink.add(path, message));
+    });
+    return sink;
+  }
+
+  private static DiagnosisSink sinkOf(Set<Ailment> results) {
+    DiagnosisSink sink = new DiagnosisSink();
+    for (Ailment result : results) {
+      FieldPath path = FieldPath.root(result.field);
+      result.ailments.forEach(message -> sink.add(path, message));
+    }
+    return sink;
   }
 
   @Override
   public String toString() {
     return "Diagnosis2{" +
         "valid=" + valid +
-        ", ailments=" + ailments +
+        ", ailments=" + getAilments() +
         '}';
   }
 }
@@ -0,0 +1,143 @@
+package com.miquido.validoctor.result;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sink building a {@link Diagnosis} directly from reported violations. Violated fields are kept as
+ * {@link FieldPath}s, rendered only if the Diagnosis is asked for field names, and their messages as bitsets of
+ * {@link MessageCodes message codes}. It can be reused for subsequent examinations, as
+ * {@link DiagnosisSink#toDiagnosis()} hands collected violations over to the Diagnosis and clears the sink.
+ */
+public class DiagnosisSink implements AilmentSink {
+
+  private static final int LINEAR_SCAN_MAX_SIZE = 8;
+
+  private FieldPath[] paths = new FieldPath[0];
+  private long[] codes = new long[0];
+  private int words = 1;
+  private int size;
+  private Map<FieldPath, Integer> pathIds;
+  private Map<FieldPath, Set<String>> uncoded;
+
+  @Override
+  public void report(PathContext path, String ailment) {
+    add(path.toFieldPath(), ailment);
+  }
+
+  /**
+   * @return diagnosis holding all violations reported since previous call
+   */
+  public Diagnosis toDiagnosis() {
+    Diagnosis diagnosis = new Diagnosis(this);
+    clear();
+    return diagnosis;
+  }
+
+  /**
+   * Discards all violations reported since previous {@link DiagnosisSink#toDiagnosis()} call.
+   */
+  public void clear() {
+    Arrays.fill(paths, 0, size, null);
+    Arrays.fill(codes, 0, size * words, 0);
+    words = 1;
+    size = 0;
+    pathIds = null;
+    uncoded = null;
+  }
+
+  /**
+   * @param path path to the patient of a rule
+   * @param ailments ailments found by the rule, with field names relative to the patient
+   */
+  void add(FieldPath path, Set<Ailment> ailments) {
+    for (Ailment ailment : ailments) {
+      FieldPath ailmentPath = path.isTerminal() ? path : path.field(ailment.field);
+      for (String message : ailment.ailments) {
+        add(ailmentPath, message);
+      }
+    }
+  }
+
+  void add(FieldPath path, String ailment) {
+    int code = MessageCodes.codeOf(ailment);
+    if (code == MessageCodes.NO_CODE) {
+      if (uncoded == null) {
+        uncoded = new HashMap<>();
+      }
+      uncoded.computeIfAbsent(path, key -> new HashSet<>()).add(ailment);
+      return;
+    }
+    int word = code >>> 6;
+    if (word >= words) {
+      widen(word + 1);
+    }
+    int id = idOf(path); //may grow the arrays
+    codes[id * words + word] |= 1L << code;
+  }
+
+  int size() {
+    return size;
+  }
+
+  FieldPath[] paths() {
+    return paths;
+  }
+
+  long[] codes() {
+    return codes;
+  }
+
+  int words() {
+    return words;
+  }
+
+  Map<FieldPath, Set<String>> uncoded() {
+    return uncoded;
+  }
+
+  private int idOf(FieldPath path) {
+    if (size > 0 && paths[size - 1] == path) {
+      return size - 1; //rules of one field report one after another
+    }
+    if (pathIds != null) {
+      Integer id = pathIds.get(path);
+      if (id != null) {
+        return id;
+      }
+    } else {
+      for (int id = 0; id < size; id++) {
+        if (paths[id].equals(path)) {
+          return id;
+        }
+      }
+    }
+    if (size == paths.length) {
+      int capacity = Math.max(4, size * 2);
+      paths = Arrays.copyOf(paths, capacity);
+      codes = Arrays.copyOf(codes, capacity * words);
+    }
+    paths[size] = path;
+    if (pathIds != null) {
+      pathIds.put(path, size);
+    } else if (size == LINEAR_SCAN_MAX_SIZE) {
+      pathIds = new HashMap<>();
+      for (int id = 0; id <= size; id++) {
+        pathIds.put(paths[id], id);
+      }
+    }
+    return size++;
+  }
+
+  private void widen(int newWords) {
+    long[] widened = new long[paths.length * newWords];
+    for (int id = 0; id < size; id++) {
+      System.arraycopy(codes, id * words, widened, id * newWords, words);
+    }
+    codes = widened;
+    words = newWords;
+  }
+}
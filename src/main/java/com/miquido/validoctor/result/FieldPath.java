@@ -0,0 +1,166 @@
+package com.miquido.validoctor.result;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Immutable path to a field of examined object, made of segments pointing at their parents. Each segment is either
+ * a field or an element of a collection field.<br>
+ * Paths compare by structure and cache their hash codes, so they can be used as map keys without rendering them.
+ * They are only rendered into dot-separated field names with {@link FieldPath#render()}.
+ * Paths reported during one examination share common parent segments.
+ */
+public final class FieldPath {
+
+  static final int NO_INDEX = -1;
+
+  private final FieldPath parent;
+  private final String name;
+  private final int index;
+  private final boolean terminal;
+  private final int depth;
+  private final int hash;
+
+  private FieldPath(FieldPath parent, String name, int index, boolean terminal) {
+    this.parent = parent;
+    this.name = name;
+    this.index = index;
+    this.terminal = terminal;
+    this.depth = parent == null ? 0 : parent.depth + 1;
+    int parentHash = parent == null ? 0 : parent.hash;
+    this.hash = (31 * parentHash + (name == null ? 0 : name.hashCode())) * 31 + index + (terminal ? 1 : 0);
+  }
+
+  /**
+   * @param rootName name of the examined object, prepended to the rendered field names; null means field names
+   *                 are rendered relative to the examined object, and empty name is only used for ailments of
+   *                 the examined object itself
+   * @return path pointing at the examined object
+   */
+  public static FieldPath root(String rootName) {
+    return new FieldPath(null, rootName, NO_INDEX, false);
+  }
+
+  /**
+   * @param name name of the field
+   * @return path to the field of object this path points at
+   */
+  public FieldPath field(String name) {
+    return new FieldPath(this, name, NO_INDEX, false);
+  }
+
+  /**
+   * @param name name of the collection field
+   * @param index index of the element
+   * @return path to the element of collection field of object this path points at
+   */
+  public FieldPath element(String name, int index) {
+    return new FieldPath(this, name, index, false);
+  }
+
+  /**
+   * @param name name of the field
+   * @return path to the field of object this path points at, whose nested fields are not rendered
+   */
+  public FieldPath terminal(String name) {
+    return new FieldPath(this, name, NO_INDEX, true);
+  }
+
+  /**
+   * @return path to the object containing the segment this path points at, or null if this is the root
+   */
+  public FieldPath getParent() {
+    return parent;
+  }
+
+  /**
+   * @return name of the last segment; name of the examined object for the root
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return index of element the last segment points at, or -1 if it points at a field
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  public boolean isTerminal() {
+    return terminal;
+  }
+
+  /**
+   * @return number of segments of this path, not counting the root
+   */
+  public int depth() {
+    return depth;
+  }
+
+  /**
+   * @return dot-separated field name this path points at
+   */
+  public String render() {
+    Deque<FieldPath> segments = new ArrayDeque<>(depth);
+    FieldPath root = this;
+    while (root.parent != null) {
+      if (root.terminal) {
+        segments.clear();
+      }
+      segments.push(root);
+      root = root.parent;
+    }
+    StringBuilder builder = new StringBuilder();
+    for (FieldPath segment : segments) {
+      String segmentName = segment.name;
+      if (segmentName != null && !segmentName.isEmpty() || segment.index >= 0) {
+        if (builder.length() > 0) {
+          builder.append('.');
+        }
+        builder.append(segmentName == null ? "" : segmentName);
+        if (segment.index >= 0) {
+          builder.append('[').append(segment.index).append(']');
+        }
+      }
+    }
+    String relative = builder.length() == 0 ? null : builder.toString();
+    String rootName = root.name;
+    if (rootName == null) {
+      return relative;
+    } else if (relative == null) {
+      return rootName;
+    } else {
+      return rootName.isEmpty() ? relative : rootName + "." + relative;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    FieldPath that = (FieldPath) o;
+    FieldPath first = this;
+    FieldPath second = that;
+    while (first != second) {
+      if (first == null || second == null || first.hash != second.hash || first.index != second.index
+          || first.terminal != second.terminal || first.depth != second.depth
+          || !(first.name == null ? second.name == null : first.name.equals(second.name))) {
+        return false;
+      }
+      first = first.parent;
+      second = second.parent;
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(render());
+  }
+}
@@ -0,0 +1,392 @@
+package com.miquido.validoctor.result;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Scope of one examination, or one chunk of a bulk examination, in which
+ * {@link com.miquido.validoctor.definition.BatchingLookupRule BatchingLookupRules} collect keys they need into
+ * batches, so that each of them is loaded with one call instead of one call per examined value.<br>
+ * Synchronous examinations open an optimistic scope. Lookup rules attached to fields and elements
+ * {@link LookupScope#defer defer} their violations there, and rules depending on results of lookup rules, like rules
+ * chained after them, are {@link LookupScope#deferDependent deferred} as a whole. Once the keys are loaded by
+ * {@link LookupScope#dispatch()}, {@link LookupScope#settle()} reports deferred violations and applies deferred rules,
+ * so that only they are applied again. Lookup rules tested anywhere else pass and {@link LookupScope#assume assume}
+ * their test, which is run on loaded values and, if it fails, makes the examination repeat.
+ * Asynchronous examinations open a deferring scope, in which lookup rules return futures completed on dispatch.<br>
+ * Scopes are bound to the thread that opened them, or {@link LookupScope#enter entered} them to run a part of
+ * the examination, and optimistic ones are reused by subsequent examinations on it.
+ */
+public final class LookupScope {
+
+  private static final ThreadLocal<LookupScope> OPEN = new ThreadLocal<>();
+  private static final ThreadLocal<LookupScope> REUSABLE = ThreadLocal.withInitial(LookupScope::new);
+
+  private LookupScope previous;
+  private boolean inUse;
+  private boolean optimistic;
+  private volatile boolean dispatched;
+  private Map<Object, Batch> batches;
+  private int requests;
+  private long loadingNanos;
+  private List<Pending> pending;
+  private volatile int pendingCount;
+
+  private LookupScope() {}
+
+  /**
+   * @return scope open on the calling thread, or null if there is none
+   */
+  public static LookupScope current() {
+    return OPEN.get();
+  }
+
+  /**
+   * Opens a scope on the calling thread. It must be closed with {@link LookupScope#close()} on the same thread.
+   * @param optimistic true if lookup rules should only collect keys and pass until the scope is dispatched
+   * @return opened scope
+   */
+  public static LookupScope open(boolean optimistic) {
+    LookupScope scope = REUSABLE.get();
+    if (!optimistic || scope.inUse) {
+      scope = new LookupScope(); //deferring scopes outlive examinations, so they are never reused
+    }
+    scope.inUse = true;
+    scope.previous = OPEN.get();
+    scope.optimistic = optimistic;
+    scope.dispatched = false;
+    OPEN.set(scope);
+    return scope;
+  }
+
+  /**
+   * Makes the scope current on the calling thread, for a part of the examination running on another thread than
+   * the one that opened it.
+   * @param scope scope to make current, or null
+   * @return scope that was current before, to enter again once the part is done
+   */
+  public static LookupScope enter(LookupScope scope) {
+    LookupScope previous = OPEN.get();
+    OPEN.set(scope);
+    return previous;
+  }
+
+  /**
+   * Makes the scope that was open before this one current again. Batches of a deferring scope stay usable, so that
+   * their futures can still be completed by {@link LookupScope#dispatch()} after closing it; batches of an optimistic
+   * one are discarded, so that it can be reused.
+   */
+  public void close() {
+    OPEN.set(previous);
+    previous = null;
+    if (optimistic) {
+      synchronized (this) {
+        batches = null;
+        loadingNanos = 0;
+        pending = null;
+        pendingCount = 0;
+      }
+      inUse = false;
+    }
+  }
+
+  /**
+   * @return true if lookup rules should collect keys and defer their violations or pass, as values will be loaded
+   * once the examination is done
+   */
+  public boolean isOptimistic() {
+    return optimistic && !dispatched;
+  }
+
+  /**
+   * @return true if the scope was dispatched, so keys requested from now on should be loaded right away
+   */
+  public boolean isDispatched() {
+    return dispatched;
+  }
+
+  /**
+   * @param owner rule owning the batch
+   * @param factory creates the batch on first request of the owner in this scope
+   * @param <B> type of batch
+   * @return batch of the owner in this scope
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized <B extends Batch> B batch(Object owner, Supplier<B> factory) {
+    requests++;
+    if (batches == null) {
+      batches = new IdentityHashMap<>();
+    }
+    return (B) batches.computeIfAbsent(owner, key -> factory.get());
+  }
+
+  /**
+   * @return number of times lookup rules were applied in this scope, which tells if a rule wrapping others applied any
+   */
+  public synchronized int requests() {
+    return requests;
+  }
+
+  /**
+   * Records time spent loading keys of a batch, which is not part of the cost of examining patients.
+   * @param nanos time spent in one call of a loader
+   */
+  public synchronized void loaded(long nanos) {
+    loadingNanos += nanos;
+  }
+
+  /**
+   * @return total time spent loading keys in this scope
+   */
+  public synchronized long loadingNanos() {
+    return loadingNanos;
+  }
+
+  /**
+   * @param patients number of patients examined in this scope so far
+   * @return number of patients whose keys fill every batch of this scope at the rate they were requested so far,
+   * or 0 if no keys were requested
+   */
+  public synchronized int patientsPerBatch(int patients) {
+    long perBatch = 0;
+    if (batches != null) {
+      for (Batch batch : batches.values()) {
+        int keys = batch.keys();
+        if (keys > 0) {
+          perBatch = Math.max(perBatch, ((long) batch.maxSize() * patients + keys - 1) / keys);
+        }
+      }
+    }
+    return (int) Math.min(Integer.MAX_VALUE, perBatch);
+  }
+
+  /**
+   * @return true if no lookup rule was applied in this scope
+   */
+  public synchronized boolean isEmpty() {
+    return batches == null && pending == null;
+  }
+
+  /**
+   * Records the test of a lookup rule that passed without it, as its value is not loaded yet.
+   * @param test test of the loaded value, run by {@link LookupScope#settle()}
+   */
+  public void assume(BooleanSupplier test) {
+    add(new Assumption(test));
+  }
+
+  /**
+   * Reports violations to the sink, right away if they are known, or once they are, if they wait for the scope to be
+   * dispatched.
+   * @param path path to the patient of a lookup rule
+   * @param ailments future of ailments found by the rule, with field names relative to the patient
+   * @param sink sink to report violations to
+   * @return true if no violations were reported; deferred ones are assumed to pass
+   */
+  public boolean defer(PathContext path, CompletableFuture<Set<Ailment>> ailments, DiagnosisSink sink) {
+    if (ailments.isDone()) {
+      Set<Ailment> found = ailments.join();
+      if (!found.isEmpty()) {
+        sink.add(path.toFieldPath(), found);
+      }
+      return found.isEmpty();
+    }
+    add(new Deferral(path.toFieldPath(), ailments, sink));
+    return true;
+  }
+
+  /**
+   * Defers a rule depending on another one, whose result waits for the scope to be dispatched, until it is settled.
+   * @param from number of pending results recorded before the rule it depends on was applied; results recorded since
+   *             then are the ones the rule depends on
+   * @param passed true if the rule it depends on reported no violations while applied
+   * @param dependent application of the rule, given whether the rule it depends on passed once settled
+   */
+  public void deferDependent(int from, boolean passed, Dependent dependent) {
+    add(new DeferredDependent(from, pendingCount, passed, dependent));
+  }
+
+  /**
+   * @return number of results recorded in this scope to be settled once it is dispatched, which tells if a rule
+   * wrapping others made any of its results wait for the scope
+   */
+  public int pending() {
+    return pendingCount;
+  }
+
+  /**
+   * Reports deferred violations to their sinks, applies deferred rules and runs assumed tests, in order they were
+   * recorded, once the scope is dispatched.
+   */
+  public void settle() {
+    List<Pending> settled;
+    synchronized (this) {
+      if (pending == null) {
+        return;
+      }
+      settled = new ArrayList<>(pending);
+    }
+    for (Pending result : settled) {
+      if (!result.settled) {
+        result.passed = result.settle(settled);
+        result.settled = true;
+      }
+    }
+  }
+
+  /**
+   * @param from number of pending results recorded before the first one to check
+   * @param to number of pending results recorded after the last one to check
+   * @return true if all {@link LookupScope#settle() settled} tests of the range that were assumed to pass do pass
+   */
+  public boolean holds(int from, int to) {
+    List<Pending> checked;
+    synchronized (this) {
+      if (from == to) {
+        return true;
+      }
+      checked = new ArrayList<>(pending.subList(from, to));
+    }
+    for (Pending result : checked) {
+      if (result instanceof Assumption && !result.passed) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private synchronized void add(Pending result) {
+    if (pending == null) {
+      pending = new ArrayList<>();
+    }
+    pending.add(result);
+    pendingCount++;
+  }
+
+  /**
+   * Loads keys collected by all batches of this scope. Keys requested afterwards are loaded as they come.
+   * @return true if any keys were collected in this scope
+   */
+  public boolean dispatch() {
+    List<Batch> collected;
+    synchronized (this) {
+      dispatched = true;
+      if (batches == null) {
+        return false;
+      }
+      collected = new ArrayList<>(batches.values());
+    }
+    for (Batch batch : collected) {
+      batch.dispatch();
+    }
+    return true;
+  }
+
+  /**
+   * Application of a rule depending on results that wait for the scope to be dispatched.
+   */
+  public interface Dependent {
+
+    /**
+     * @param dependencyPassed true if the rule it depends on passed, as settled
+     * @return true if the rule passed
+     */
+    boolean apply(boolean dependencyPassed);
+  }
+
+  /**
+   * Result waiting for the scope to be dispatched.
+   */
+  private abstract static class Pending {
+    private boolean settled;
+    private boolean passed;
+
+    /**
+     * @param all all results of the scope, including this one
+     * @return true if the result is a pass
+     */
+    abstract boolean settle(List<Pending> all);
+  }
+
+  private static final class Assumption extends Pending {
+    private final BooleanSupplier test;
+
+    Assumption(BooleanSupplier test) {
+      this.test = test;
+    }
+
+    @Override
+    boolean settle(List<Pending> all) {
+      return test.getAsBoolean();
+    }
+  }
+
+  private static final class Deferral extends Pending {
+    private final FieldPath path;
+    private final CompletableFuture<Set<Ailment>> ailments;
+    private final DiagnosisSink sink;
+
+    Deferral(FieldPath path, CompletableFuture<Set<Ailment>> ailments, DiagnosisSink sink) {
+      this.path = path;
+      this.ailments = ailments;
+      this.sink = sink;
+    }
+
+    @Override
+    boolean settle(List<Pending> all) {
+      Set<Ailment> found = ailments.join();
+      sink.add(path, found);
+      return found.isEmpty();
+    }
+  }
+
+  private static final class DeferredDependent extends Pending {
+    private final int from;
+    private final int to;
+    private final boolean dependencyPassed;
+    private final Dependent dependent;
+
+    DeferredDependent(int from, int to, boolean dependencyPassed, Dependent dependent) {
+      this.from = from;
+      this.to = to;
+      this.dependencyPassed = dependencyPassed;
+      this.dependent = dependent;
+    }
+
+    @Override
+    boolean settle(List<Pending> all) {
+      boolean passed = dependencyPassed;
+      for (int i = from; i < to && passed; i++) {
+        passed = all.get(i).passed; //recorded earlier, so already settled
+      }
+      return dependent.apply(passed);
+    }
+  }
+
+  /**
+   * Keys collected by one lookup rule in a scope.
+   */
+  public interface Batch {
+
+    /**
+     * Loads all keys collected since the previous call.
+     */
+    void dispatch();
+
+    /**
+     * @return number of distinct keys requested from the batch
+     */
+    int keys();
+
+    /**
+     * @return maximum number of keys loaded with one call
+     */
+    int maxSize();
+  }
+}
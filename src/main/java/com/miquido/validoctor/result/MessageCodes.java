@@ -0,0 +1,75 @@
+package com.miquido.validoctor.result;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global table of violation messages, assigning each distinct message a small integer code, so that
+ * {@link Diagnosis} can store messages of a field as a bitset of codes.<br>
+ * Messages of rules are registered when the rules are created, so common messages get the smallest codes. Reporting
+ * a violation only looks codes up, so messages built while examining never take a code nor a lock. The table holds at
+ * most {@value #MAX_CODES} messages - others get no code and are stored by diagnoses as they are.
+ */
+public final class MessageCodes {
+
+  static final int MAX_CODES = 1024;
+  static final int NO_CODE = -1;
+
+  private static final ConcurrentHashMap<String, Integer> CODES = new ConcurrentHashMap<>();
+  private static volatile String[] messages = new String[64];
+  private static int count;
+
+  private MessageCodes() {}
+
+  /**
+   * Returns code of the message, assigning it a new one if it has none yet. Meant to be called when rules are created.
+   * @param message violation message
+   * @return code of the message, or -1 if message is null or the table is full
+   */
+  public static int register(String message) {
+    if (message == null) {
+      return NO_CODE;
+    }
+    Integer code = CODES.get(message);
+    return code != null ? code : assign(message);
+  }
+
+  /**
+   * Returns code of the message, without assigning one.
+   * @param message violation message
+   * @return code of the message, or -1 if message is null or was never registered
+   */
+  public static int codeOf(String message) {
+    if (message == null) {
+      return NO_CODE;
+    }
+    Integer code = CODES.get(message);
+    return code != null ? code : NO_CODE;
+  }
+
+  /**
+   * @param code code returned by {@link MessageCodes#register(String)}
+   * @return message with the code
+   */
+  public static String messageOf(int code) {
+    return messages[code];
+  }
+
+  private static synchronized int assign(String message) {
+    Integer code = CODES.get(message);
+    if (code != null) {
+      return code;
+    }
+    if (count == MAX_CODES) {
+      return NO_CODE;
+    }
+    String[] current = messages;
+    if (count == current.length) {
+      current = Arrays.copyOf(current, count * 2);
+    }
+    current[count] = message;
+    messages = current; //published before the code, so readers of the code always find the message
+    CODES.put(message, count);
+    return count++;
+  }
+}
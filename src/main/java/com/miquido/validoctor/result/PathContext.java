@@ -0,0 +1,282 @@
+package com.miquido.validoctor.result;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Path from the examined object to the patient currently being examined, maintained as a stack of field names
+ * that rules push to when descending into fields and pop from when they are done with them.<br>
+ * Nothing is allocated while descending - {@link FieldPath} is only built when a violation is reported, sharing
+ * segments with paths built before for the same fields, and it is rendered into a field name only when needed.
+ * It also remembers results of rules applied at the current position, so that a rule that many others depend on
+ * is applied only once to the same patient.<br>
+ * Instances are mutable and not thread-safe, each examination uses its own.
+ */
+public final class PathContext {
+
+  private static final int NO_INDEX = -1;
+  private static final int TERMINAL = -2;
+
+  private static final int INITIAL_DEPTH = 8;
+  private static final int INITIAL_MEMO_SIZE = 4;
+  private static final String[] NO_NAMES = new String[0];
+  private static final int[] NO_INTS = new int[0];
+  private static final FieldPath[] NO_SEGMENTS = new FieldPath[0];
+  private static final Object[] NO_OBJECTS = new Object[0];
+  private static final boolean[] NO_RESULTS = new boolean[0];
+
+  //arrays are allocated when first needed, as contexts of rules applied outside of examinations often stay empty
+  private FieldPath root;
+  private String[] names = NO_NAMES;
+  private int[] indexes = NO_INTS;
+  private FieldPath[] segments = NO_SEGMENTS;
+  private int depth;
+  private int builtDepth;
+  private int[] memoStarts = NO_INTS;
+  private Object[] memoRules = NO_OBJECTS;
+  private Object[] memoPatients = NO_OBJECTS;
+  private boolean[] memoResults = NO_RESULTS;
+  private int memoSize;
+
+  /**
+   * Creates path with no root name, rendering to field names relative to the examined object.
+   */
+  public PathContext() {
+    this(null);
+  }
+
+  /**
+   * @param rootName name of the examined object, prepended to all rendered field names; null means field names
+   *                 are rendered relative to the examined object, and empty name is only used for ailments of
+   *                 the examined object itself
+   */
+  public PathContext(String rootName) {
+    this.root = FieldPath.root(rootName);
+  }
+
+  /**
+   * Enters a field.
+   * @param name name of the field
+   */
+  public void push(String name) {
+    push(name, NO_INDEX);
+  }
+
+  /**
+   * Enters an element of a collection field. It is rendered as {@code name[index]}.
+   * @param name name of the collection field
+   * @param index index of the element
+   */
+  public void push(String name, int index) {
+    if (depth == names.length) {
+      int capacity = Math.max(INITIAL_DEPTH, depth * 2);
+      names = Arrays.copyOf(names, capacity);
+      indexes = Arrays.copyOf(indexes, capacity);
+      segments = Arrays.copyOf(segments, capacity);
+      memoStarts = Arrays.copyOf(memoStarts, capacity);
+    }
+    memoStarts[depth] = memoSize;
+    if (builtDepth == depth && isBuilt(depth, name, index)) {
+      builtDepth++; //same field as the one built before, its path can be reused
+    }
+    names[depth] = name;
+    indexes[depth] = index;
+    depth++;
+  }
+
+  /**
+   * Enters all segments of specified path.
+   * @param relative path relative to the current one; its root is skipped
+   * @return number of entered segments, to {@link PathContext#pop() pop} when leaving
+   */
+  public int push(FieldPath relative) {
+    int count = relative.depth();
+    FieldPath[] relativeSegments = new FieldPath[count];
+    for (FieldPath segment = relative; segment.getParent() != null; segment = segment.getParent()) {
+      relativeSegments[segment.depth() - 1] = segment;
+    }
+    for (FieldPath segment : relativeSegments) {
+      push(segment.getName(), segment.isTerminal() ? TERMINAL : segment.getIndex());
+    }
+    return count;
+  }
+
+  /**
+   * Enters a field whose nested fields should not be rendered - ailments of the field and anything inside it
+   * are all attached to the field itself.
+   * @param name name of the field
+   */
+  public void pushTerminal(String name) {
+    push(name, TERMINAL);
+  }
+
+  /**
+   * Leaves the most recently entered field.
+   */
+  public void pop() {
+    names[--depth] = null;
+    builtDepth = Math.min(builtDepth, depth);
+    forgetFrom(memoStarts[depth]);
+  }
+
+  /**
+   * Looks up result of a rule applied to a patient at the current position of this path.
+   * @param rule applied rule
+   * @param patient patient the rule was applied to
+   * @return result {@link PathContext#remember(Object, Object, boolean) remembered} for the rule and the patient
+   * since the current position was entered, or null if there is none
+   */
+  public Boolean recall(Object rule, Object patient) {
+    int start = depth == 0 ? 0 : memoStarts[depth - 1];
+    for (int i = memoSize - 1; i >= start; i--) {
+      if (memoRules[i] == rule && memoPatients[i] == patient) {
+        return memoResults[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Remembers result of a rule applied to a patient at the current position of this path, until the position is left.
+   * @param rule applied rule
+   * @param patient patient the rule was applied to
+   * @param passed result of the rule
+   */
+  public void remember(Object rule, Object patient, boolean passed) {
+    if (memoSize == memoRules.length) {
+      int capacity = Math.max(INITIAL_MEMO_SIZE, memoSize * 2);
+      memoRules = Arrays.copyOf(memoRules, capacity);
+      memoPatients = Arrays.copyOf(memoPatients, capacity);
+      memoResults = Arrays.copyOf(memoResults, capacity);
+    }
+    memoRules[memoSize] = rule;
+    memoPatients[memoSize] = patient;
+    memoResults[memoSize] = passed;
+    memoSize++;
+  }
+
+  private void forgetFrom(int start) {
+    for (int i = start; i < memoSize; i++) {
+      memoRules[i] = null;
+      memoPatients[i] = null;
+    }
+    memoSize = start;
+  }
+
+  /**
+   * @return current depth of the path
+   */
+  public int depth() {
+    return depth;
+  }
+
+  /**
+   * @return path pointing at the same position and remembering the same results, to resume examination at this
+   * position after this path moves on
+   */
+  public PathContext copy() {
+    PathContext copy = new PathContext(root.getName());
+    copy.root = root;
+    copy.names = Arrays.copyOf(names, names.length);
+    copy.indexes = Arrays.copyOf(indexes, indexes.length);
+    copy.segments = Arrays.copyOf(segments, segments.length);
+    copy.depth = depth;
+    copy.builtDepth = builtDepth;
+    copy.memoStarts = Arrays.copyOf(memoStarts, memoStarts.length);
+    copy.memoRules = Arrays.copyOf(memoRules, memoRules.length);
+    copy.memoPatients = Arrays.copyOf(memoPatients, memoPatients.length);
+    copy.memoResults = Arrays.copyOf(memoResults, memoResults.length);
+    copy.memoSize = memoSize;
+    return copy;
+  }
+
+  /**
+   * Prepares this path for reuse in another examination.
+   * @param rootName name of the examined object
+   */
+  public void reset(String rootName) {
+    Arrays.fill(names, 0, depth, null);
+    forgetFrom(0);
+    depth = 0;
+    builtDepth = 0;
+    if (!Objects.equals(root.getName(), rootName)) {
+      root = FieldPath.root(rootName);
+    }
+  }
+
+  /**
+   * Builds immutable path this context points at. Segments built before for fields still on the path are reused,
+   * so paths of violations reported in the same object share their parents and are mostly identical when reported
+   * for the same field.
+   * @return path this context points at
+   */
+  public FieldPath toFieldPath() {
+    for (; builtDepth < depth; builtDepth++) {
+      FieldPath parent = parentSegment(builtDepth);
+      int index = indexes[builtDepth];
+      FieldPath segment;
+      if (parent.isTerminal()) {
+        segment = parent; //nested fields of terminal fields are not distinguished
+      } else if (index == TERMINAL) {
+        segment = parent.terminal(names[builtDepth]);
+      } else if (index == NO_INDEX) {
+        segment = parent.field(names[builtDepth]);
+      } else {
+        segment = parent.element(names[builtDepth], index);
+      }
+      segments[builtDepth] = segment;
+    }
+    return depth == 0 ? root : segments[depth - 1];
+  }
+
+  private boolean isBuilt(int depth, String name, int index) {
+    FieldPath segment = segments[depth];
+    FieldPath parent = parentSegment(depth);
+    if (segment == null || parent.isTerminal()) {
+      return segment == parent;
+    }
+    return segment.getParent() == parent && segment.getName() == name
+        && (index == TERMINAL ? segment.isTerminal() : !segment.isTerminal() && segment.getIndex() == index);
+  }
+
+  private FieldPath parentSegment(int depth) {
+    return depth == 0 ? root : segments[depth - 1];
+  }
+
+  /**
+   * @return dot-separated field name this path points at
+   */
+  public String render() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      String name = names[i];
+      int index = indexes[i];
+      if (name != null && !name.isEmpty() || index >= 0) {
+        if (builder.length() > 0) {
+          builder.append('.');
+        }
+        builder.append(name == null ? "" : name);
+        if (index >= 0) {
+          builder.append('[').append(index).append(']');
+        }
+      }
+      if (index == TERMINAL) {
+        break;
+      }
+    }
+    String relative = builder.length() == 0 ? null : builder.toString();
+    String rootName = root.getName();
+    if (rootName == null) {
+      return relative;
+    } else if (relative == null) {
+      return rootName;
+    } else {
+      return rootName.isEmpty() ? relative : rootName + "." + relative;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(render());
+  }
+}
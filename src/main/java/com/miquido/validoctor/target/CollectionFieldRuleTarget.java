@@ -1,31 +1,139 @@
 package com.miquido.validoctor.target;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.stream.BaseStream;
 
+/**
+ * Target extracting elements of a field holding an {@link Iterable}, {@link Iterator}, {@link BaseStream stream}
+ * or an array.<br>
+ * Elements are not copied - iterators and streams are consumed by the examination, so lazily produced sequences
+ * can be examined in constant memory.
+ */
 public class CollectionFieldRuleTarget<T, P> implements RuleTarget<T, P> {
 
-  private final String fieldName;
   private final String fieldDisplayName;
-  private final Class<T> enclosingClass;
+  private final FieldAccessor accessor;
 
   public CollectionFieldRuleTarget(String fieldName, String fieldDisplayName, Class<T> enclosingClass) {
-    this.fieldName = fieldName;
+    this(fieldName, fieldDisplayName, enclosingClass, null);
+  }
+
+  public CollectionFieldRuleTarget(String fieldName, String fieldDisplayName, Class<T> enclosingClass,
+                                   MethodHandles.Lookup lookup) {
     this.fieldDisplayName = fieldDisplayName;
-    this.enclosingClass = enclosingClass;
+    this.accessor = FieldAccessor.of(enclosingClass, fieldName, lookup);
+    Class<?> type = accessor.getType();
+    if ((type.isPrimitive() || Modifier.isFinal(type.getModifiers())) && !isElementsType(type)) {
+      throw new IllegalArgumentException("Field " + fieldName + " of " + enclosingClass.getName() + " is of type "
+          + type.getName() + ", which is neither Iterable, Iterator, Stream nor array");
+    }
   }
 
+  /**
+   * Copies elements to a list. Executions iterate over {@link CollectionFieldRuleTarget#getElements(Object)} instead.
+   */
   @Override
   public List<P> getPatients(T object) {
-    Object fieldValue = readField(enclosingClass, fieldName, object);
-    return fieldValue == null ? Collections.emptyList()
-        : new ArrayList<>((Collection<P>) fieldValue); //TODO handle class cast exc
+    Object elements = getElements(object);
+    if (elements == null) {
+      return Collections.emptyList();
+    }
+    if (elements instanceof Collection) {
+      return new ArrayList<>((Collection<P>) elements);
+    }
+    List<P> patients = new ArrayList<>();
+    CollectionFieldRuleTarget.<P>iterator(elements).forEachRemaining(patients::add);
+    return patients;
+  }
+
+  /**
+   * @return value of the field itself, without copying it - {@link Iterable}, {@link Iterator}, {@link BaseStream},
+   * array or null
+   * @throws IllegalArgumentException if the field holds value of other type
+   */
+  public Object getElements(T object) {
+    Object elements = accessor.read(object);
+    if (elements != null && !isElementsType(elements.getClass())) {
+      throw new IllegalArgumentException("Field " + accessor.getName() + " holds "
+          + elements.getClass().getName() + ", which is neither Iterable, Iterator, Stream nor array");
+    }
+    return elements;
+  }
+
+  /**
+   * @param elements non-null value returned by {@link CollectionFieldRuleTarget#getElements(Object)}
+   * @return iterator over the elements, boxing elements of primitive arrays
+   */
+  public static <P> Iterator<P> iterator(Object elements) {
+    if (elements instanceof Iterable) {
+      return ((Iterable<P>) elements).iterator();
+    }
+    if (elements instanceof Iterator) {
+      return (Iterator<P>) elements;
+    }
+    if (elements instanceof BaseStream) {
+      return ((BaseStream<P, ?>) elements).iterator();
+    }
+    if (elements instanceof Object[]) {
+      return Arrays.asList((P[]) elements).iterator();
+    }
+    return new Iterator<P>() {
+      private final int length = Array.getLength(elements);
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return index < length;
+      }
+
+      @Override
+      public P next() {
+        if (index >= length) {
+          throw new NoSuchElementException();
+        }
+        return (P) Array.get(elements, index++);
+      }
+    };
+  }
+
+  private static boolean isElementsType(Class<?> type) {
+    return Iterable.class.isAssignableFrom(type) || Iterator.class.isAssignableFrom(type)
+        || BaseStream.class.isAssignableFrom(type) || type.isArray();
+  }
+
+  public FieldAccessor getAccessor() {
+    return accessor;
+  }
+
+  public String getFieldName() {
+    return fieldDisplayName;
   }
 
   @Override
   public List<String> getFieldNames() {
     return Collections.singletonList(fieldDisplayName);
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    CollectionFieldRuleTarget<?, ?> that = (CollectionFieldRuleTarget<?, ?>) o;
+    return accessor.equals(that.accessor) && Objects.equals(fieldDisplayName, that.fieldDisplayName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(accessor, fieldDisplayName);
+  }
 }
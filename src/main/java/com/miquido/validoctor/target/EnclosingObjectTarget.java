@@ -2,6 +2,7 @@ package com.miquido.validoctor.target;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 public class EnclosingObjectTarget<T> implements RuleTarget<T, T> {
 
@@ -20,4 +21,17 @@ public class EnclosingObjectTarget<T> implements RuleTarget<T, T> {
   public List<String> getFieldNames() {
     return Collections.singletonList(fieldName);
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    EnclosingObjectTarget<?> that = (EnclosingObjectTarget<?>) o;
+    return Objects.equals(fieldName, that.fieldName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(fieldName);
+  }
 }
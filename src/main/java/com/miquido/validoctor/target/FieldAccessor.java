@@ -0,0 +1,198 @@
+package com.miquido.validoctor.target;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+/**
+ * Read access to a single field, resolved once when rules are built and reused on every examination.<br>
+ * Fields are read through a {@link MethodHandle}, so no reflective lookup nor access check happens per read.
+ * If a {@link MethodHandles.Lookup} is supplied, it is used to resolve the field instead of
+ * {@link Field#setAccessible(boolean)}, which allows reading private fields of classes in modules that are not
+ * open to validoctor. Private fields are only accessible to a lookup obtained in the class declaring them, or one made
+ * with {@code MethodHandles.privateLookupIn} on Java 9+.<br>
+ * Fields of numeric primitive types can also be read without boxing, with {@link FieldAccessor#readInt(Object)},
+ * {@link FieldAccessor#readLong(Object)} and {@link FieldAccessor#readDouble(Object)}.
+ */
+public final class FieldAccessor {
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final MethodType INT_GETTER_TYPE = MethodType.methodType(int.class, Object.class);
+  private static final MethodType LONG_GETTER_TYPE = MethodType.methodType(long.class, Object.class);
+  private static final MethodType DOUBLE_GETTER_TYPE = MethodType.methodType(double.class, Object.class);
+  private static final MethodHandle IS_NULL;
+  private static final MethodHandle NULL =
+      MethodHandles.dropArguments(MethodHandles.constant(Object.class, null), 0, Object.class);
+
+  static {
+    try {
+      IS_NULL = MethodHandles.lookup().findStatic(Objects.class, "isNull",
+          MethodType.methodType(boolean.class, Object.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final Class<?> declaringClass;
+  private final String name;
+  private final Class<?> type;
+  private final MethodHandle getter;
+  private final MethodHandle intGetter;
+  private final MethodHandle longGetter;
+  private final MethodHandle doubleGetter;
+
+  private FieldAccessor(Field field, MethodHandle getter) {
+    this.declaringClass = field.getDeclaringClass();
+    this.name = field.getName();
+    this.type = field.getType();
+    this.getter = getter.asType(GETTER_TYPE);
+    boolean isInt = type == int.class || type == short.class || type == byte.class;
+    boolean isLong = isInt || type == long.class;
+    boolean isDouble = isLong || type == float.class || type == double.class;
+    this.intGetter = isInt ? getter.asType(INT_GETTER_TYPE) : null;
+    this.longGetter = isLong ? getter.asType(LONG_GETTER_TYPE) : null;
+    this.doubleGetter = isDouble ? getter.asType(DOUBLE_GETTER_TYPE) : null;
+  }
+
+  /**
+   * Resolves accessor for field declared directly in specified class.
+   * @param enclosingClass class declaring the field
+   * @param fieldName name of the field
+   * @param lookup lookup to resolve the field with, or null to use reflection with suppressed access checks
+   * @return accessor
+   * @throws IllegalArgumentException if there is no such field or it cannot be accessed
+   */
+  public static FieldAccessor of(Class<?> enclosingClass, String fieldName, MethodHandles.Lookup lookup) {
+    try {
+      return of(enclosingClass.getDeclaredField(fieldName), lookup);
+    } catch (NoSuchFieldException e) {
+      throw new IllegalArgumentException("No field " + fieldName + " in " + enclosingClass.getName(), e);
+    }
+  }
+
+  /**
+   * Resolves accessor for specified field.
+   * @param field field to read
+   * @param lookup lookup to resolve the field with, or null to use reflection with suppressed access checks
+   * @return accessor
+   * @throws IllegalArgumentException if the field cannot be accessed
+   */
+  public static FieldAccessor of(Field field, MethodHandles.Lookup lookup) {
+    try {
+      MethodHandle getter;
+      if (lookup == null) {
+        field.setAccessible(true);
+        getter = MethodHandles.lookup().unreflectGetter(field);
+      } else {
+        getter = lookup.unreflectGetter(field);
+      }
+      if (Modifier.isStatic(field.getModifiers())) {
+        getter = MethodHandles.dropArguments(getter, 0, Object.class);
+      }
+      return new FieldAccessor(field, getter);
+    } catch (IllegalAccessException | RuntimeException e) {
+      String fieldName = field.getName() + " of " + field.getDeclaringClass().getName();
+      if (lookup == null) {
+        throw new IllegalArgumentException("Cannot access field " + fieldName
+            + ", consider passing a MethodHandles.Lookup obtained in " + field.getDeclaringClass().getSimpleName(), e);
+      }
+      throw new IllegalArgumentException("Lookup of " + lookup.lookupClass().getName() + " has no access to field "
+          + fieldName + ", pass MethodHandles.lookup() called in " + field.getDeclaringClass().getSimpleName()
+          + " itself, or MethodHandles.privateLookupIn on Java 9+", e);
+    }
+  }
+
+  /**
+   * @param object object to read the field from
+   * @return value of the field, or null if object is null
+   */
+  public Object read(Object object) {
+    if (object == null) {
+      return null;
+    }
+    try {
+      return (Object) getter.invokeExact(object);
+    } catch (Throwable e) {
+      throw new RuntimeException("Could not read field " + name, e);
+    }
+  }
+
+  /**
+   * @param object non-null object to read the field from
+   * @return value of {@code byte}, {@code short} or {@code int} field
+   * @throws IllegalStateException if the field is of other type
+   */
+  public int readInt(Object object) {
+    if (intGetter == null) {
+      throw new IllegalStateException("Field " + name + " of type " + type.getName() + " cannot be read as int");
+    }
+    try {
+      return (int) intGetter.invokeExact(object);
+    } catch (Throwable e) {
+      throw new RuntimeException("Could not read field " + name, e);
+    }
+  }
+
+  /**
+   * @param object non-null object to read the field from
+   * @return value of {@code byte}, {@code short}, {@code int} or {@code long} field
+   * @throws IllegalStateException if the field is of other type
+   */
+  public long readLong(Object object) {
+    if (longGetter == null) {
+      throw new IllegalStateException("Field " + name + " of type " + type.getName() + " cannot be read as long");
+    }
+    try {
+      return (long) longGetter.invokeExact(object);
+    } catch (Throwable e) {
+      throw new RuntimeException("Could not read field " + name, e);
+    }
+  }
+
+  /**
+   * @param object non-null object to read the field from
+   * @return value of field of any numeric primitive type
+   * @throws IllegalStateException if the field is of other type
+   */
+  public double readDouble(Object object) {
+    if (doubleGetter == null) {
+      throw new IllegalStateException("Field " + name + " of type " + type.getName() + " cannot be read as double");
+    }
+    try {
+      return (double) doubleGetter.invokeExact(object);
+    } catch (Throwable e) {
+      throw new RuntimeException("Could not read field " + name, e);
+    }
+  }
+
+  /**
+   * @return handle of type {@code (Object)Object} reading the field like {@link FieldAccessor#read(Object)}
+   */
+  public MethodHandle getReadHandle() {
+    return MethodHandles.guardWithTest(IS_NULL, NULL, getter);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Class<?> getType() {
+    return type;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    FieldAccessor that = (FieldAccessor) o;
+    return declaringClass.equals(that.declaringClass) && name.equals(that.name);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(declaringClass, name);
+  }
+}
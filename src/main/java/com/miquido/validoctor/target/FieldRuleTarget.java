@@ -1,27 +1,65 @@
 package com.miquido.validoctor.target;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 public class FieldRuleTarget<T, P> implements RuleTarget<T, P> {
 
-  private final String fieldName;
   private final String fieldDisplayName;
-  private final Class<T> enclosingClass;
+  private final FieldAccessor accessor;
 
   public FieldRuleTarget(String fieldName, String fieldDisplayName, Class<T> enclosingClass) {
-    this.fieldName = fieldName;
+    this(fieldName, fieldDisplayName, enclosingClass, null);
+  }
+
+  public FieldRuleTarget(String fieldName, String fieldDisplayName, Class<T> enclosingClass,
+                         MethodHandles.Lookup lookup) {
     this.fieldDisplayName = fieldDisplayName;
-    this.enclosingClass = enclosingClass;
+    this.accessor = FieldAccessor.of(enclosingClass, fieldName, lookup);
   }
 
   @Override
   public List<P> getPatients(T object) {
-    return Collections.singletonList(readField(enclosingClass, fieldName, object));
+    return Collections.singletonList(getPatient(object));
+  }
+
+  public P getPatient(T object) {
+    return (P) accessor.read(object);
+  }
+
+  /**
+   * @return handle of type {@code (Object)Object} extracting patient like {@link FieldRuleTarget#getPatient(Object)}
+   */
+  public MethodHandle getPatientHandle() {
+    return accessor.getReadHandle();
+  }
+
+  public FieldAccessor getAccessor() {
+    return accessor;
+  }
+
+  public String getFieldName() {
+    return fieldDisplayName;
   }
 
   @Override
   public List<String> getFieldNames() {
     return Collections.singletonList(fieldDisplayName);
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    FieldRuleTarget<?, ?> that = (FieldRuleTarget<?, ?>) o;
+    return accessor.equals(that.accessor) && Objects.equals(fieldDisplayName, that.fieldDisplayName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(accessor, fieldDisplayName);
+  }
 }
@@ -1,27 +1,68 @@
 package com.miquido.validoctor.target;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class MultipleFieldsRuleTarget<T, P> implements RuleTarget<T, P> {
 
   private final List<String> fieldNames;
-  private final Class<T> enclosingClass;
+  private final List<FieldAccessor> accessors;
 
   public MultipleFieldsRuleTarget(List<String> fieldNames, Class<T> enclosingClass) {
+    this(fieldNames, enclosingClass, null);
+  }
+
+  public MultipleFieldsRuleTarget(List<String> fieldNames, Class<T> enclosingClass, MethodHandles.Lookup lookup) {
     this.fieldNames = fieldNames;
-    this.enclosingClass = enclosingClass;
+    this.accessors = fieldNames.stream()
+        .map(field -> FieldAccessor.of(enclosingClass, field, lookup))
+        .collect(Collectors.toList());
   }
 
   @Override
   public List<P> getPatients(T object) {
-    return fieldNames.stream()
-        .map(field -> readField(enclosingClass, field, object))
+    return accessors.stream()
+        .map(accessor -> (P) accessor.read(object))
         .collect(Collectors.toList());
   }
 
+  public int size() {
+    return accessors.size();
+  }
+
+  public P getPatient(T object, int index) {
+    return (P) accessors.get(index).read(object);
+  }
+
+  /**
+   * @return handle of type {@code (Object)Object} extracting patient like {@link MultipleFieldsRuleTarget#getPatient(Object, int)}
+   */
+  public MethodHandle getPatientHandle(int index) {
+    return accessors.get(index).getReadHandle();
+  }
+
+  public FieldAccessor getAccessor(int index) {
+    return accessors.get(index);
+  }
+
   @Override
   public List<String> getFieldNames() {
     return fieldNames;
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    MultipleFieldsRuleTarget<?, ?> that = (MultipleFieldsRuleTarget<?, ?>) o;
+    return accessors.equals(that.accessors);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(accessors);
+  }
 }
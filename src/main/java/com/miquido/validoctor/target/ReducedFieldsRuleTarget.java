@@ -1,33 +1,64 @@
 package com.miquido.validoctor.target;
 
+import java.lang.invoke.MethodHandles;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.function.BinaryOperator;
+import java.util.stream.Collectors;
 
 public class ReducedFieldsRuleTarget<T, P> implements RuleTarget<T, P> {
 
   private final List<String> fieldNames;
-  private final Class<T> enclosingClass;
+  private final List<FieldAccessor> accessors;
   private final BinaryOperator<P> reducer;
 
   public ReducedFieldsRuleTarget(List<String> fieldNames, Class<T> enclosingClass,
                                  BinaryOperator<P> reducer) {
+    this(fieldNames, enclosingClass, reducer, null);
+  }
+
+  public ReducedFieldsRuleTarget(List<String> fieldNames, Class<T> enclosingClass,
+                                 BinaryOperator<P> reducer, MethodHandles.Lookup lookup) {
     this.fieldNames = fieldNames;
-    this.enclosingClass = enclosingClass;
+    this.accessors = fieldNames.stream()
+        .map(field -> FieldAccessor.of(enclosingClass, field, lookup))
+        .collect(Collectors.toList());
     this.reducer = reducer;
   }
 
   @Override
   public List<P> getPatients(T object) {
-    return fieldNames.stream()
-        .map(field -> readField(enclosingClass, field, object))
+    return accessors.stream()
+        .map(accessor -> (P) accessor.read(object))
         .reduce(reducer)
         .map(Collections::singletonList)
         .orElse(Collections.emptyList());
   }
 
+  public P getReducedPatient(T object) {
+    P reduced = (P) accessors.get(0).read(object);
+    for (int i = 1; i < accessors.size(); i++) {
+      reduced = reducer.apply(reduced, (P) accessors.get(i).read(object));
+    }
+    return reduced;
+  }
+
   @Override
   public List<String> getFieldNames() {
     return fieldNames;
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    ReducedFieldsRuleTarget<?, ?> that = (ReducedFieldsRuleTarget<?, ?>) o;
+    return accessors.equals(that.accessors) && reducer.equals(that.reducer);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(accessors, reducer);
+  }
 }
@@ -1,43 +1,81 @@
 package com.miquido.validoctor.target;
 
-import java.lang.reflect.Field;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class TypeRuleTarget<T, P> implements RuleTarget<T, P> {
 
-  private final List<Field> fields;
+  private final List<FieldAccessor> accessors;
+  private final List<String> fieldNames;
 
   public TypeRuleTarget(Class<T> enclosingClass, Class<? extends P> fieldsClass, boolean strictMatch) {
-    this.fields = findFields(enclosingClass, fieldsClass, strictMatch);
+    this(enclosingClass, fieldsClass, strictMatch, null);
+  }
+
+  public TypeRuleTarget(Class<T> enclosingClass, Class<? extends P> fieldsClass, boolean strictMatch,
+                        MethodHandles.Lookup lookup) {
+    this.accessors = findFields(enclosingClass, fieldsClass, strictMatch, lookup);
+    this.fieldNames = accessors.stream()
+        .map(FieldAccessor::getName)
+        .collect(Collectors.toList());
   }
 
   @Override
   public List<P> getPatients(T object) {
-    return fields.stream().map(field -> {
-      try {
-        field.setAccessible(true); //TODO should we revert accessible setting after reading?
-        return (P) field.get(object);
-      } catch (IllegalAccessException | ClassCastException e) {
-        throw new RuntimeException("Can't read field " + field.getName(), e);
-      }
-    }).collect(Collectors.toList());
+    return accessors.stream()
+        .map(accessor -> (P) accessor.read(object))
+        .collect(Collectors.toList());
+  }
+
+  public int size() {
+    return accessors.size();
+  }
+
+  public P getPatient(T object, int index) {
+    return (P) accessors.get(index).read(object);
+  }
+
+  /**
+   * @return handle of type {@code (Object)Object} extracting patient like {@link TypeRuleTarget#getPatient(Object, int)}
+   */
+  public MethodHandle getPatientHandle(int index) {
+    return accessors.get(index).getReadHandle();
+  }
+
+  public FieldAccessor getAccessor(int index) {
+    return accessors.get(index);
   }
 
   @Override
   public List<String> getFieldNames() {
-    return fields.stream()
-        .map(Field::getName)
-        .collect(Collectors.toList());
+    return fieldNames;
   }
 
-  private List<Field> findFields(Class<T> enclosingClass, Class<? extends P> fieldsClass, boolean strictMatch) {
+  private List<FieldAccessor> findFields(Class<T> enclosingClass, Class<? extends P> fieldsClass, boolean strictMatch,
+                                         MethodHandles.Lookup lookup) {
     return Arrays.stream(enclosingClass.getDeclaredFields())
         .filter(field -> strictMatch
             ? field.getType().equals(fieldsClass)
             : fieldsClass.isAssignableFrom(field.getType())
         )
+        .map(field -> FieldAccessor.of(field, lookup))
         .collect(Collectors.toList());
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    TypeRuleTarget<?, ?> that = (TypeRuleTarget<?, ?>) o;
+    return accessors.equals(that.accessors);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(accessors);
+  }
 }
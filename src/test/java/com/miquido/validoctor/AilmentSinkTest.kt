@@ -0,0 +1,85 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.TestClasses.TestClass
+import com.miquido.validoctor.TestClasses.TestInsideClass
+import com.miquido.validoctor.definition.Rules.notNull
+import com.miquido.validoctor.definition.Rules.numberPositive
+import com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty
+import com.miquido.validoctor.result.Ailment
+import com.miquido.validoctor.result.FieldPath
+import com.miquido.validoctor.result.PathContext
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class AilmentSinkTest {
+
+  private val insideRule = Validoctor.rulesFor(TestInsideClass::class.java)
+    .field("name", notNull(), stringTrimmedNotEmpty())
+    .field("score", numberPositive())
+    .build()
+
+  private val rule = Validoctor.rulesFor(TestClass::class.java)
+    .field("inside", notNull(), insideRule)
+    .elements("insideList", insideRule)
+    .build()
+
+  private val patient = TestClass(null, null, null, null, 1f, null, TestInsideClass(" ", 1.0), null,
+    listOf(TestInsideClass("a", 1.0), TestInsideClass(null, -1.0)))
+
+  @Test
+  fun nestedRulesReportIntoOneSink() {
+    val reported = mutableListOf<Pair<String?, String>>()
+    val passed = rule.apply(patient, PathContext("p")) { path, ailment -> reported.add(path.render() to ailment) }
+    assertFalse(passed)
+    assertEquals(setOf(
+      "p.inside.name" to "NOT_EMPTY_NOR_WHITESPACE_ONLY_REQUIRED",
+      "p.insideList[1].name" to "NOT_NULL_REQUIRED",
+      "p.insideList[1].score" to "POSITIVE_REQUIRED"
+    ), reported.toSet())
+  }
+
+  @Test
+  fun validPatientReportsNothing() {
+    val valid = TestClass(null, null, null, null, 1f, null, TestInsideClass("a", 1.0), null, null)
+    assertTrue(rule.apply(valid, PathContext()) { _, _ -> throw AssertionError() })
+  }
+
+  @Test
+  fun setAdapterMatchesSink() {
+    assertEquals(setOf(
+      Ailment("inside.name", "NOT_EMPTY_NOR_WHITESPACE_ONLY_REQUIRED"),
+      Ailment("insideList[1].name", "NOT_NULL_REQUIRED"),
+      Ailment("insideList[1].score", "POSITIVE_REQUIRED")
+    ), rule.apply(patient))
+  }
+
+  @Test
+  fun fieldPathsShareSegmentsAndCompareByStructure() {
+    val paths = mutableListOf<FieldPath>()
+    rule.apply(patient, PathContext("p")) { path, _ -> paths.add(path.toFieldPath()) }
+    val name = paths.first { it.render() == "p.insideList[1].name" }
+    val score = paths.first { it.render() == "p.insideList[1].score" }
+    assertSame(name.parent, score.parent)
+    assertEquals(FieldPath.root("p").element("insideList", 1).field("name"), name)
+    assertEquals(FieldPath.root("p").element("insideList", 1).field("name").hashCode(), name.hashCode())
+    assertNotEquals(FieldPath.root("p").element("insideList", 0).field("name"), name)
+    assertEquals("p.insideList[1]", name.parent.toString())
+  }
+
+  @Test
+  fun diagnosisRendersPathsOnDemand() {
+    Validoctor.setThrowing(false)
+    val diagnosis = Validoctor.examine(patient, rule)
+    assertEquals(setOf(
+      FieldPath.root("").field("inside").field("name"),
+      FieldPath.root("").element("insideList", 1).field("name"),
+      FieldPath.root("").element("insideList", 1).field("score")
+    ), diagnosis.pathAilments.keys)
+    assertEquals(setOf("inside.name", "insideList[1].name", "insideList[1].score"), diagnosis.ailments.keys)
+    assertEquals(setOf("POSITIVE_REQUIRED"), diagnosis.ailments["insideList[1].score"])
+  }
+}
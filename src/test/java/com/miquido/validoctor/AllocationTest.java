@@ -0,0 +1,165 @@
+package com.miquido.validoctor;
+
+import com.miquido.validoctor.ReadMeCaseTest.Comment;
+import com.miquido.validoctor.ReadMeCaseTest.NutritionFacts;
+import com.miquido.validoctor.ReadMeCaseTest.Product;
+import com.miquido.validoctor.TestClasses.ArrayTestClass;
+import com.miquido.validoctor.TestClasses.PrimitiveTestClass;
+import com.miquido.validoctor.TestClasses.SimpleTestClass;
+import com.miquido.validoctor.definition.Rule;
+import com.miquido.validoctor.definition.Rules;
+import com.miquido.validoctor.result.Diagnosis;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Run by the allocationTest task in a JVM of its own, as results depend on what the JIT compiled before.
+ */
+public class AllocationTest {
+
+  private static final int WARMUP = 200_000;
+  private static final int ITERATIONS = 10_000;
+  private static final int ROUNDS = 5;
+  private static final long TOLERANCE = 16; //bytes per call, covering allocations the JIT failed to eliminate at times
+
+  private volatile Diagnosis lastDiagnosis; //keeps diagnoses from being optimized away
+
+  private final Product product = new Product("name", "sku1234567", "description", 1.0f, 1000f,
+      new NutritionFacts(150, 34.6, 12.7, 5.6), false, true,
+      Arrays.asList(new Comment(1L, "ok")), Arrays.asList(1, 2, 3)); //random access lists are examined without iterators
+
+  @Before
+  public void setNonThrowing() {
+    Validoctor.setThrowing(false);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void validPatientAllocatesNothingButDiagnosis() {
+    com.sun.management.ThreadMXBean threads = threadMXBean();
+    if (threads == null) {
+      return; //allocation measurement is not supported on this JVM
+    }
+    ReadMeCaseTest readMe = new ReadMeCaseTest();
+    Rule<Product>[] rules = new Rule[] {readMe.nullityRules(product), readMe.validityRules(product)};
+
+    long examineBytes = measure(threads, () -> {
+      lastDiagnosis = Validoctor.examine(product, rules);
+    });
+    assertTrue(lastDiagnosis.isValid());
+    long diagnosisBytes = measure(threads, () -> lastDiagnosis = new Diagnosis(Collections.emptySet()));
+
+    assertTrue("examination allocated " + examineBytes + " bytes, valid Diagnosis takes " + diagnosisBytes,
+        examineBytes <= diagnosisBytes + TOLERANCE);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void validityCheckAllocatesNothing() {
+    com.sun.management.ThreadMXBean threads = threadMXBean();
+    if (threads == null) {
+      return; //allocation measurement is not supported on this JVM
+    }
+    ReadMeCaseTest readMe = new ReadMeCaseTest();
+    Rule<Product>[] rules = new Rule[] {readMe.nullityRules(product), readMe.validityRules(product)};
+
+    long checkBytes = measure(threads, () -> assertTrue(Validoctor.isValid(product, rules)));
+
+    assertWithinTolerance(checkBytes);
+  }
+
+  @Test
+  public void primitiveFieldsAreNotBoxed() {
+    com.sun.management.ThreadMXBean threads = threadMXBean();
+    if (threads == null) {
+      return; //allocation measurement is not supported on this JVM
+    }
+    PrimitiveTestClass patient = new PrimitiveTestClass(1000, (short) 1000, 100_000L, 0.5f, 1000.5);
+    Rule<PrimitiveTestClass> rule = Validoctor.rulesFor(PrimitiveTestClass.class)
+        .field("count", Rules.intPositive())
+        .field("total", Rules.longInRange(0, 1_000_000))
+        .allTyped(double.class, Rules.doublePositive())
+        .build();
+
+    long checkBytes = measure(threads, () -> assertTrue(rule.passes(patient)));
+
+    assertWithinTolerance(checkBytes);
+  }
+
+  @Test
+  public void primitiveArrayElementsAreNotBoxed() {
+    com.sun.management.ThreadMXBean threads = threadMXBean();
+    if (threads == null) {
+      return; //allocation measurement is not supported on this JVM
+    }
+    int[] ints = new int[1000];
+    Arrays.fill(ints, 1000);
+    ArrayTestClass patient = new ArrayTestClass(ints, new long[] {1000L}, new double[] {1000.5}, null);
+    Rule<ArrayTestClass> rule = Validoctor.rulesFor(ArrayTestClass.class)
+        .elements("ints", Rules.numberInRange(0, 10_000), Rules.numberPositive())
+        .elements("longs", Rules.numberNonNegative())
+        .elements("doubles", Rules.doubleInRange(0, 10_000))
+        .build();
+
+    long checkBytes = measure(threads, () -> assertTrue(rule.passes(patient)));
+
+    assertWithinTolerance(checkBytes);
+  }
+
+  @Test
+  public void validReducedFieldsAllocateNothingButDiagnosis() {
+    com.sun.management.ThreadMXBean threads = threadMXBean();
+    if (threads == null) {
+      return; //allocation measurement is not supported on this JVM
+    }
+    SimpleTestClass patient = new SimpleTestClass(1, "name", "title", true);
+    Rule<SimpleTestClass> rule = Validoctor.rulesFor(SimpleTestClass.class)
+        .reducedFields("name", "title", (String a, String b) -> a.length() >= b.length() ? a : b,
+            Rules.stringMaxLength(8), Rules.stringAlphanumeric())
+        .build();
+
+    long examineBytes = measure(threads, () -> lastDiagnosis = Validoctor.examine(patient, rule));
+    assertTrue(lastDiagnosis.isValid());
+    long diagnosisBytes = measure(threads, () -> lastDiagnosis = new Diagnosis(Collections.emptySet()));
+
+    assertTrue("examination allocated " + examineBytes + " bytes, valid Diagnosis takes " + diagnosisBytes,
+        examineBytes <= diagnosisBytes + TOLERANCE);
+  }
+
+  private void assertWithinTolerance(long checkBytes) {
+    assertTrue("check allocated " + checkBytes + " bytes", checkBytes <= TOLERANCE);
+  }
+
+  private long measure(com.sun.management.ThreadMXBean threads, Runnable examination) {
+    for (int i = 0; i < WARMUP; i++) {
+      examination.run();
+    }
+    long threadId = Thread.currentThread().getId();
+    long minBytes = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) { //recompilations triggered by other tests can distort single round
+      long before = threads.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < ITERATIONS; i++) {
+        examination.run();
+      }
+      minBytes = Math.min(minBytes, (threads.getThreadAllocatedBytes(threadId) - before) / ITERATIONS);
+    }
+    return minBytes;
+  }
+
+  private com.sun.management.ThreadMXBean threadMXBean() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+      if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+        return sunThreads;
+      }
+    }
+    return null;
+  }
+}
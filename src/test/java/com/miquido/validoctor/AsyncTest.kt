@@ -0,0 +1,149 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.TestClasses.TestInsideClass
+import com.miquido.validoctor.definition.Rules.async
+import com.miquido.validoctor.definition.Rules.asyncLookup
+import com.miquido.validoctor.definition.Rules.chained
+import com.miquido.validoctor.definition.Rules.named
+import com.miquido.validoctor.definition.Rules.stringMinLength
+import com.miquido.validoctor.result.AsyncDiagnosisSink
+import org.junit.Before
+import org.junit.Test
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+class AsyncTest {
+
+  @Before
+  fun setNonThrowing() {
+    Validoctor.setThrowing(false)
+  }
+
+  private fun onPool(test: () -> Unit) {
+    val executor = Executors.newFixedThreadPool(4)
+    Validoctor.setAsyncExecutor(executor)
+    try {
+      test()
+    } finally {
+      Validoctor.setAsyncExecutor(null)
+      executor.shutdownNow()
+    }
+  }
+
+  @Test
+  fun asyncRulesRunConcurrently() = onPool {
+    val latch = CountDownLatch(3)
+    val rule = async<String>("NOT_KNOWN") {
+      latch.countDown()
+      latch.await(5, TimeUnit.SECONDS) //passes only if all three run at once
+    }
+    val diagnosis = Validoctor.examineAsync("aaa", rule, rule, rule).get(5, TimeUnit.SECONDS)
+    assertTrue(diagnosis.isValid)
+  }
+
+  @Test
+  fun asyncFieldRulesMatchSyncExamination() = onPool {
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("name", stringMinLength(3), async("NOT_KNOWN") { it == "known" })
+      .elements("list", asyncLookup<String>("NOT_UNIQUE") { CompletableFuture.completedFuture(it != "b") })
+      .build()
+    val patient = TestInsideClass("ab", 0.0, 0.0, listOf("a", "b", "c"))
+
+    val asyncDiagnosis = Validoctor.examineAsync(patient, rule).get(5, TimeUnit.SECONDS)
+    val syncDiagnosis = Validoctor.examine(patient, rule)
+    assertFalse(asyncDiagnosis.isValid)
+    assertEquals(syncDiagnosis.ailments, asyncDiagnosis.ailments)
+    assertEquals(setOf("TOO_SHORT", "NOT_KNOWN"), asyncDiagnosis.ailments["name"])
+    assertEquals(setOf("NOT_UNIQUE"), asyncDiagnosis.ailments["list[1]"])
+  }
+
+  @Test
+  fun asyncRulesOfNamedDefinitionRunConcurrently() = onPool {
+    val latch = CountDownLatch(2)
+    val waitedInTurn = AtomicBoolean()
+    val known = { message: String ->
+      async<String>(message) {
+        latch.countDown()
+        if (!latch.await(2, TimeUnit.SECONDS)) {
+          waitedInTurn.set(true)
+        }
+        it == "known"
+      }
+    }
+    val rule = named("INVALID_NAME", Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("name", known("NOT_KNOWN"), known("NOT_FOUND"))
+      .build())
+
+    val diagnosis = Validoctor.examineAsync(TestInsideClass("unknown", 0.0), rule).get(5, TimeUnit.SECONDS)
+    assertFalse(waitedInTurn.get())
+    assertEquals(mapOf("name" to setOf("INVALID_NAME")), diagnosis.ailments)
+  }
+
+  @Test
+  fun asyncRulesPastDeadlineTimeOut() {
+    val never = asyncLookup<String>("NOT_KNOWN") { CompletableFuture() }
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("name", never, stringMinLength(3))
+      .build()
+
+    val diagnosis = Validoctor.examineAsync(TestInsideClass("ab", 0.0), Duration.ofMillis(50), rule)
+      .get(5, TimeUnit.SECONDS)
+    assertEquals(setOf(AsyncDiagnosisSink.TIMED_OUT, "TOO_SHORT"), diagnosis.ailments["name"])
+  }
+
+  @Test
+  fun chainedAsyncRulesPastDeadlineTimeOut() = onPool {
+    val slow = async<String>("NOT_KNOWN") { Thread.sleep(2000); true }
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("name", chained(slow, stringMinLength(1)))
+      .build()
+
+    val start = System.nanoTime()
+    val diagnosis = Validoctor.examineAsync(TestInsideClass("ab", 0.0), Duration.ofMillis(100), rule)
+      .get(5, TimeUnit.SECONDS)
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1))
+    assertEquals(mapOf("name" to setOf(AsyncDiagnosisSink.TIMED_OUT)), diagnosis.ailments)
+  }
+
+  @Test
+  fun rulesChainedAfterAsyncRulesAreAppliedOnceTheyPass() = onPool {
+    val known = async<String>("NOT_KNOWN") { it != "x" }
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("name", chained(known, stringMinLength(3)))
+      .build()
+
+    val examine = { name: String -> Validoctor.examineAsync(TestInsideClass(name, 0.0), rule).get(5, TimeUnit.SECONDS) }
+    assertEquals(mapOf("name" to setOf("NOT_KNOWN")), examine("x").ailments)
+    assertEquals(mapOf("name" to setOf("TOO_SHORT")), examine("ab").ailments)
+    assertTrue(examine("abc").isValid)
+  }
+
+  @Test
+  fun asyncRulesThrowOnViolationsWhenThrowing() {
+    Validoctor.setThrowing(true)
+    try {
+      val future = Validoctor.examineAsync("aaa", async<String>("NOT_KNOWN") { false })
+      try {
+        future.get(5, TimeUnit.SECONDS)
+        assertTrue(false)
+      } catch (e: java.util.concurrent.ExecutionException) {
+        assertTrue(e.cause is com.miquido.validoctor.result.DiagnosisException)
+      }
+    } finally {
+      Validoctor.setThrowing(false)
+    }
+  }
+
+  @Test
+  fun asyncRulesAreWaitedForInSyncExamination() {
+    val diagnosis = Validoctor.examine("aaa", async<String>("NOT_KNOWN") { false })
+    assertEquals(setOf("NOT_KNOWN"), diagnosis.ailments[""])
+  }
+}
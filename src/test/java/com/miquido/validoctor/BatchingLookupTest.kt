@@ -0,0 +1,167 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.TestClasses.TestInsideClass
+import com.miquido.validoctor.definition.Rule
+import com.miquido.validoctor.definition.Rules.batchedLookup
+import com.miquido.validoctor.definition.Rules.chained
+import com.miquido.validoctor.definition.Rules.stringMinLength
+import com.miquido.validoctor.definition.SimpleRule
+import org.junit.Before
+import org.junit.Test
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import java.util.Collections
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.TimeUnit
+
+class BatchingLookupTest {
+
+  private val stock = mapOf("a" to 3, "b" to 0, "c" to 7, "d" to 1)
+  private val calls = Collections.synchronizedList(ArrayList<Set<String>>())
+
+  private fun inStock(maxBatchSize: Int = 100) = batchedLookup<String, Int>("OUT_OF_STOCK", { keys ->
+    calls.add(HashSet(keys))
+    stock.filterKeys { it in keys }
+  }, { count -> count != null && count > 0 }, maxBatchSize)
+
+  @Before
+  fun setNonThrowing() {
+    Validoctor.setThrowing(false)
+  }
+
+  @Test
+  fun elementLookupsAreLoadedWithOneCall() {
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .elements("list", inStock())
+      .build()
+
+    val diagnosis = Validoctor.examine(TestInsideClass("x", 0.0, 0.0, listOf("a", "b", "c", "e", "a")), rule)
+    assertEquals(listOf(setOf("a", "b", "c", "e")), calls)
+    assertEquals(setOf("list[1]", "list[3]"), diagnosis.ailments.keys)
+    assertEquals(setOf("OUT_OF_STOCK"), diagnosis.ailments["list[3]"])
+  }
+
+  @Test
+  fun lookupsAreSplitIntoBatchesOfMaxSize() {
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .elements("list", inStock(2))
+      .build()
+
+    val valid = Validoctor.isValid(TestInsideClass("x", 0.0, 0.0, listOf("a", "c", "a", "d", "b")), rule)
+    assertFalse(valid)
+    assertEquals(listOf(setOf("a", "c"), setOf("d", "b")), calls)
+  }
+
+  @Test
+  fun rulesAreNotRepeatedForLookups() {
+    var applications = 0
+    val counting: Rule<Double> = SimpleRule("COUNTED") { _ -> applications++; true }
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("score", counting)
+      .elements("list", inStock())
+      .build()
+    val patient = TestInsideClass("x", 0.0, 0.0, listOf("a", "b", "e"))
+
+    assertEquals(setOf("list[1]", "list[2]"), Validoctor.examine(patient, rule).ailments.keys)
+    assertEquals(1, applications)
+    assertFalse(Validoctor.isValid(patient, rule))
+    assertEquals(2, applications)
+    assertEquals(2, calls.size)
+  }
+
+  @Test
+  fun onlyRulesDependingOnLookupsAreAppliedAgain() {
+    var applications = 0
+    var tested = 0
+    val counting: Rule<Double> = SimpleRule("COUNTED") { _ -> applications++; true }
+    val longKey: Rule<String> = SimpleRule("TOO_SHORT") { key -> tested++; key.length >= 2 }
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("score", counting)
+      .elements("list", chained(inStock(), longKey))
+      .build()
+
+    val diagnosis = Validoctor.examine(TestInsideClass("x", 0.0, 0.0, listOf("a", "b", "cc", "e")), rule)
+    assertEquals(mapOf("list[0]" to setOf("TOO_SHORT"), "list[1]" to setOf("OUT_OF_STOCK"),
+      "list[2]" to setOf("OUT_OF_STOCK"), "list[3]" to setOf("OUT_OF_STOCK")), diagnosis.ailments)
+    assertEquals(1, applications)
+    assertEquals(1, calls.size)
+    assertEquals(1, tested) //only keys in stock are tested
+  }
+
+  @Test
+  fun rulesDependingOnLookupsSeeLoadedValues() {
+    val inStockName = Validoctor.rulesFor(TestInsideClass::class.java).field("name", inStock()).build()
+    val longName = Validoctor.rulesFor(TestInsideClass::class.java).field("name", stringMinLength(3)).build()
+    val rule = chained(inStockName, longName)
+
+    assertEquals(mapOf("name" to setOf("OUT_OF_STOCK")), Validoctor.examine(TestInsideClass("b", 0.0), rule).ailments)
+    assertEquals(mapOf("name" to setOf("TOO_SHORT")), Validoctor.examine(TestInsideClass("a", 0.0), rule).ailments)
+  }
+
+  @Test
+  fun lookupsOfParallelElementsAreLoadedTogether() {
+    val pool = ForkJoinPool(4)
+    try {
+      val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+        .parallelElements("list", "list", 100, pool, inStock())
+        .build()
+      val patient = TestInsideClass("x", 0.0, 0.0, (0 until 1000).map { listOf("a", "b", "c", "d", "e")[it % 5] + it })
+
+      val diagnosis = Validoctor.examine(patient, rule)
+      assertEquals(1000, diagnosis.ailments.size) //none of the keys is in stock
+      assertEquals(10, calls.size)
+      assertFalse(Validoctor.isValid(patient, rule))
+      assertEquals(20, calls.size)
+    } finally {
+      pool.shutdown()
+    }
+  }
+
+  @Test
+  fun lookupsOfParallelElementsInAsyncExaminationAreLoadedTogether() {
+    val pool = ForkJoinPool(4)
+    try {
+      val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+        .parallelElements("list", "list", 100, pool, inStock(1000))
+        .build()
+      val patient = TestInsideClass("x", 0.0, 0.0, (0 until 1000).map { listOf("a", "b", "c", "d", "e")[it % 5] + it })
+
+      val diagnosis = Validoctor.examineAsync(patient, rule).get(5, TimeUnit.SECONDS)
+      assertEquals(1000, diagnosis.ailments.size)
+      assertEquals(setOf("OUT_OF_STOCK"), diagnosis.ailments["list[999]"])
+      assertEquals(1, calls.size)
+    } finally {
+      pool.shutdown()
+    }
+  }
+
+  @Test
+  fun lookupsOfBulkExaminationAreBatchedPerChunk() {
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("name", stringMinLength(1), inStock())
+      .build()
+    val patients = (0 until 200).map { TestInsideClass(listOf("a", "b", "c", "d", "e")[it % 5], 0.0) }
+
+    val bulk = Validoctor.examineAll(patients, rule)
+    for (i in patients.indices) {
+      assertEquals(i % 5 != 1 && i % 5 != 4, bulk.isValid(i))
+    }
+    assertEquals(setOf("OUT_OF_STOCK"), bulk.getDiagnosis(4).ailments["name"])
+    assertTrue(calls.size < patients.size)
+  }
+
+  @Test
+  fun lookupsOfAsyncExaminationAreLoadedWithOneCall() {
+    val lookup = inStock()
+    val rule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("name", lookup)
+      .elements("list", lookup)
+      .build()
+
+    val diagnosis = Validoctor.examineAsync(TestInsideClass("b", 0.0, 0.0, listOf("a", "c", "e")), rule)
+      .get(5, TimeUnit.SECONDS)
+    assertEquals(listOf(setOf("b", "a", "c", "e")), calls)
+    assertEquals(setOf("name", "list[2]"), diagnosis.ailments.keys)
+  }
+}
@@ -0,0 +1,125 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.TestClasses.SimpleTestClass
+import com.miquido.validoctor.definition.Rule
+import com.miquido.validoctor.definition.Rules.batchedLookup
+import com.miquido.validoctor.definition.Rules.equalTo
+import com.miquido.validoctor.definition.Rules.notEqualTo
+import com.miquido.validoctor.definition.Rules.notNull
+import com.miquido.validoctor.definition.Rules.numberInRange
+import com.miquido.validoctor.definition.Rules.numberNonNegative
+import com.miquido.validoctor.definition.Rules.numberPositive
+import com.miquido.validoctor.definition.Rules.stringAlphabetic
+import com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.BitSet
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class BulkTest {
+
+  private val rule = Validoctor.rulesFor(SimpleTestClass::class.java)
+    .field("id", notNull(), numberPositive())
+    .field("name", stringTrimmedNotEmpty())
+    .build()
+
+  private val patients = (0 until 10_000).map { i ->
+    SimpleTestClass(if (i % 97 == 0) -i else i + 1, if (i % 1000 == 1) " " else "name$i", null, null)
+  }
+
+  @Before
+  fun setThrowing() {
+    Validoctor.setThrowing(true)
+  }
+
+  @Test
+  fun examineAllMatchesSingleExaminations() {
+    val bulk = Validoctor.examineAll(patients, rule)
+    assertEquals(patients.size, bulk.size())
+    assertFalse(bulk.isValid)
+    Validoctor.setThrowing(false)
+    patients.forEachIndexed { i, patient ->
+      val diagnosis = Validoctor.examine(patient, rule)
+      assertEquals(diagnosis.isValid, bulk.isValid(i))
+      assertEquals(diagnosis.ailments, bulk.getDiagnosis(i).ailments)
+    }
+    assertEquals(bulk.invalidDiagnoses.size, bulk.invalidIndexes.cardinality())
+    assertEquals("POSITIVE_REQUIRED", bulk.getDiagnosis(97).ailments["id"]?.first())
+    assertEquals("NOT_EMPTY_NOR_WHITESPACE_ONLY_REQUIRED", bulk.getDiagnosis(1001).ailments["name"]?.first())
+  }
+
+  @Test
+  fun examineAllOnCustomExecutor() {
+    val executor = Executors.newFixedThreadPool(3)
+    try {
+      val fromList = Validoctor.examineAll(patients, executor, rule)
+      val fromArray = Validoctor.examineAll(patients.toTypedArray(), executor, rule)
+      val fromSpliterator = Validoctor.examineAll(patients.spliterator(), executor, rule)
+      val fromUnsizedSpliterator = Validoctor.examineAll(patients.stream().filter { true }.spliterator(), executor, rule)
+      assertEquals(fromList.invalidIndexes, fromArray.invalidIndexes)
+      assertEquals(fromList.invalidIndexes, fromSpliterator.invalidIndexes)
+      assertEquals(fromList.invalidIndexes, fromUnsizedSpliterator.invalidIndexes)
+      assertEquals(Validoctor.examineAll(patients, rule).invalidIndexes, fromList.invalidIndexes)
+    } finally {
+      executor.shutdown()
+    }
+  }
+
+  @Test
+  fun examineAllOfValidPatients() {
+    val bulk = Validoctor.examineAll(patients.filterIndexed { i, _ -> i % 97 != 0 && i % 1000 != 1 }, rule)
+    assertTrue(bulk.isValid)
+    assertTrue(bulk.getDiagnosis(0).isValid)
+    assertTrue(Validoctor.examineAll(emptyList<SimpleTestClass>(), rule).isValid)
+  }
+
+  @Test
+  fun examineAllLoadsLookupsInFullBatches() {
+    val calls = AtomicInteger()
+    val known = Validoctor.rulesFor(SimpleTestClass::class.java)
+      .field("name", batchedLookup<String, Boolean>("UNKNOWN", { keys ->
+        calls.incrementAndGet()
+        Thread.sleep(1) //loading dominates the cost of examining a patient
+        keys.associateWith { true }
+      }, { found -> found == true }, 100))
+      .build()
+    val named = (0 until 20_000).map { i -> SimpleTestClass(i, "name$i", null, null) }
+
+    assertTrue(Validoctor.examineAll(named, known).isValid)
+    assertEquals(1 + (named.size - 16 + 99) / 100, calls.get()) //sampled patients, then full batches of the rest
+  }
+
+  @Test
+  fun examineColumnMatchesSingleExaminations() {
+    Validoctor.setThrowing(false)
+    val doubles = doubleArrayOf(0.0, -1.0, 5.0, 10.5, Double.NaN, -0.0, 1e300)
+    val doubleRules = arrayOf(numberNonNegative<Double>(), numberInRange(0, 10), equalTo(5.0))
+    assertEquals(violatingIndexes(doubles.toTypedArray(), doubleRules), Validoctor.examineColumn(doubles, *doubleRules))
+
+    val longs = longArrayOf(0, -1, 5, Long.MAX_VALUE, Long.MIN_VALUE)
+    val longRules = arrayOf(numberPositive<Long>(), numberInRange(-1, 5.5))
+    assertEquals(violatingIndexes(longs.toTypedArray(), longRules), Validoctor.examineColumn(longs, *longRules))
+
+    val ints = intArrayOf(0, -1, 5, Int.MAX_VALUE)
+    val intRules = arrayOf(numberInRange<Int>(0, 5), notEqualTo(0))
+    assertEquals(violatingIndexes(ints.toTypedArray(), intRules), Validoctor.examineColumn(ints, *intRules))
+
+    val bytes = byteArrayOf(0, 1, -1, 2)
+    val byteRules = arrayOf(numberInRange<Byte>(0, 1))
+    assertEquals(violatingIndexes(bytes.toTypedArray(), byteRules), Validoctor.examineColumn(bytes, *byteRules))
+
+    val strings = arrayOf("a", " ", null, "ab c")
+    val stringRules = arrayOf(stringTrimmedNotEmpty(), stringAlphabetic())
+    assertEquals(violatingIndexes(strings, stringRules), Validoctor.examineColumn(strings, *stringRules))
+  }
+
+  private fun <T> violatingIndexes(values: Array<T>, rules: Array<Rule<T>>): BitSet {
+    val violations = BitSet()
+    values.forEachIndexed { i, value -> if (!Validoctor.examine(value, *rules).isValid) violations.set(i) }
+    return violations
+  }
+}
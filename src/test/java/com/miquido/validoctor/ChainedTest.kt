@@ -2,17 +2,22 @@ package com.miquido.validoctor
 
 import com.miquido.validoctor.TestClasses.TestClass
 import com.miquido.validoctor.TestClasses.TestInsideClass
+import com.miquido.validoctor.definition.Rule
 import com.miquido.validoctor.definition.Rules.chained
+import com.miquido.validoctor.definition.Rules.conditional
 import com.miquido.validoctor.definition.Rules.collectionMinSize
 import com.miquido.validoctor.definition.Rules.collectionNotEmpty
 import com.miquido.validoctor.definition.Rules.notNull
 import com.miquido.validoctor.definition.Rules.numberPositive
+import com.miquido.validoctor.definition.Rules.stringAlphanumeric
 import com.miquido.validoctor.definition.Rules.stringExactLength
 import com.miquido.validoctor.definition.Rules.stringMaxLength
 import com.miquido.validoctor.definition.Rules.stringMinLength
 import com.miquido.validoctor.definition.Rules.stringNoSpacePadding
 import com.miquido.validoctor.definition.Rules.stringNotEmpty
 import com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty
+import com.miquido.validoctor.definition.SimpleRule
+import com.miquido.validoctor.result.Ailment
 import org.junit.Before
 import org.junit.Test
 import org.junit.Assert.assertEquals
@@ -122,4 +127,66 @@ class ChainedTest {
     assertEquals(1, diagnosis.ailments["insideList[1].name"]?.size)
     assertEquals(2, diagnosis.ailments.size)
   }
-}
\ No newline at end of file
+
+  @Test
+  fun sharedChainStartAppliedOncePerPatient() {
+    var applications = 0
+    val shared: Rule<String> = SimpleRule("NOT_EMPTY_REQUIRED") { p -> applications++; p.isNotEmpty() }
+    val diagnosis = Validoctor.examine("aaa", chained(shared, stringMinLength(5)), chained(shared, stringMaxLength(2)),
+      chained(shared, stringNoSpacePadding()))
+    assertEquals(1, applications)
+    assertEquals(setOf("TOO_SHORT", "TOO_LONG"), diagnosis.ailments[""])
+
+    applications = 0
+    val emptyDiagnosis = Validoctor.examine("", chained(shared, stringMinLength(5)), chained(shared, stringMaxLength(2)))
+    assertEquals(1, applications)
+    assertEquals(setOf("NOT_EMPTY_REQUIRED"), emptyDiagnosis.ailments[""])
+  }
+
+  @Test
+  fun sharedChainStartAppliedToEachElement() {
+    var applications = 0
+    val shared: Rule<TestInsideClass> = SimpleRule("NOT_NULL_REQUIRED") { p -> applications++; p != null }
+    val rule = Validoctor.rulesFor(TestClass::class.java)
+      .elements("insideList", chained(shared, Validoctor.rulesFor(TestInsideClass::class.java)
+        .field("score", numberPositive()).build()))
+      .elements("insideList", chained(shared, Validoctor.rulesFor(TestInsideClass::class.java)
+        .field("name", stringTrimmedNotEmpty()).build()))
+      .build()
+    val patient = TestClass(null, null, null, null, -2.0f, null, null, null,
+      listOf(null, TestInsideClass("", -1.0), TestInsideClass("a", 1.0)))
+    val diagnosis = Validoctor.examine(patient, rule)
+    assertEquals(3, applications)
+    assertEquals(setOf("NOT_NULL_REQUIRED"), diagnosis.ailments["insideList[0]"])
+    assertEquals(setOf("POSITIVE_REQUIRED"), diagnosis.ailments["insideList[1].score"])
+    assertEquals(setOf("NOT_EMPTY_NOR_WHITESPACE_ONLY_REQUIRED"), diagnosis.ailments["insideList[1].name"])
+    assertEquals(3, diagnosis.ailments.size)
+  }
+
+  @Test
+  fun unmetConditionOfLaterRuleSkipsEarlierRules() {
+    val chain = chained(stringMinLength(5), conditional({ false }, stringAlphanumeric()))
+    assertEquals(emptySet<Ailment>(), chain.apply("abc"))
+    assertTrue(chain.passes("abc"))
+    assertTrue(Validoctor.examine("abc", chain).isValid)
+
+    val withCondition = chained(stringMinLength(5), stringAlphanumeric().withCondition { false })
+    assertTrue(Validoctor.examine("abc", withCondition).isValid)
+    assertTrue(Validoctor.isValid("abc", withCondition))
+  }
+
+  @Test
+  fun metConditionOfLaterRuleKeepsEarlierRules() {
+    var applications = 0
+    val counted: Rule<String> = SimpleRule("NOT_EMPTY_REQUIRED") { p -> applications++; p.isNotEmpty() }
+    val chain = chained(counted, stringMinLength(5), conditional({ p -> p.startsWith("a") }, stringAlphanumeric()),
+      stringMaxLength(10))
+
+    assertEquals(setOf("TOO_SHORT"), Validoctor.examine("abc", chain).ailments[""])
+    assertEquals(1, applications)
+    //condition of the third rule is not met, so only the last one is applied
+    assertTrue(Validoctor.examine("bc", chain).isValid)
+    assertEquals(setOf("TOO_LONG"), Validoctor.examine("bcdefghijkl", chain).ailments[""])
+    assertEquals(1, applications)
+  }
+}
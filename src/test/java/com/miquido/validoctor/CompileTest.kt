@@ -0,0 +1,95 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.ReadMeCaseTest.Comment
+import com.miquido.validoctor.ReadMeCaseTest.NutritionFacts
+import com.miquido.validoctor.ReadMeCaseTest.Product
+import com.miquido.validoctor.TestClasses.TestClass
+import com.miquido.validoctor.TestClasses.TestInsideClass
+import com.miquido.validoctor.definition.Rules.batch
+import com.miquido.validoctor.definition.Rules.chained
+import com.miquido.validoctor.definition.Rules.conditional
+import com.miquido.validoctor.definition.Rules.named
+import com.miquido.validoctor.definition.Rules.notNull
+import com.miquido.validoctor.definition.Rules.numberInRange
+import com.miquido.validoctor.definition.Rules.numberPositive
+import com.miquido.validoctor.definition.Rules.stringAlphanumeric
+import com.miquido.validoctor.definition.Rules.stringMaxLength
+import com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+
+class CompileTest {
+
+  private val insideRule = Validoctor.rulesFor(TestInsideClass::class.java)
+    .field("name", chained(notNull(), stringTrimmedNotEmpty()))
+    .field("score", numberPositive())
+    .build()
+
+  private val rule = Validoctor.rulesFor(TestClass::class.java)
+    .field("name", conditional({ it != null }, stringAlphanumeric()))
+    .field("inside", conditional({ it != null }, insideRule))
+    .field("skuId", batch(notNull(), stringMaxLength(3)))
+    .elements("intSet", numberInRange(1, 5))
+    .elements("insideList", notNull(), insideRule)
+    .allTyped(Float::class.java, numberPositive())
+    .fields(listOf("name", "skuId"), stringMaxLength(5))
+    .rule("NO_DESCRIPTION", "description", { it.description == null })
+    .build()
+
+  @Before
+  fun setNonThrowing() {
+    Validoctor.setThrowing(false)
+  }
+
+  @Test
+  fun compiledRuleGivesIdenticalResults() {
+    val patients = listOf(
+      TestClass("abc", "d", null, 1f, 1f, null, TestInsideClass("a", 1.0), setOf(1, 5), listOf(TestInsideClass("a", 1.0))),
+      TestClass("ab!", "d", null, 1f, 1f, null, null, null, null),
+      TestClass("abc", "d", null, 1f, 1f, null, TestInsideClass(null, -1.0), null, null),
+      TestClass("abc", null, null, 1f, 1f, null, null, null, null),
+      TestClass("abc", "defg", null, 1f, 1f, null, null, null, null),
+      TestClass("abc", "d", null, 1f, 1f, null, null, setOf(1, 6), null),
+      TestClass("abc", "d", null, 1f, 1f, null, null, null, listOf(TestInsideClass("a", 1.0), null)),
+      TestClass("abc", "d", null, -1f, 1f, null, null, null, null),
+      TestClass("abcdef", "d", null, 1f, 1f, null, null, null, null),
+      TestClass("abc", "d", "description", 1f, 1f, null, null, null, null)
+    )
+    val wrapped = batch(named("NAMED", rule), chained(rule, rule))
+    val compiled = Validoctor.compile(rule)
+    val compiledWrapped = Validoctor.compile(wrapped)
+    patients.forEach { patient ->
+      assertEquals(Validoctor.examine(patient, rule).ailments, Validoctor.examine(patient, compiled).ailments)
+      assertEquals(Validoctor.isValid(patient, rule), Validoctor.isValid(patient, compiled))
+      assertEquals(rule.apply(patient), compiled.apply(patient))
+      assertEquals(Validoctor.examine(patient, wrapped).ailments, Validoctor.examine(patient, compiledWrapped).ailments)
+      assertEquals(Validoctor.isValid(patient, wrapped), Validoctor.isValid(patient, compiledWrapped))
+    }
+  }
+
+  @Test
+  fun compiledReadMeRulesGiveIdenticalResults() {
+    val readMe = ReadMeCaseTest()
+    val products = listOf(
+      Product("name", "sku1234567", "description", 1.0f, 1000f, NutritionFacts(150, 34.6, 12.7, 5.6), false, true,
+        listOf(Comment(1, "ok")), listOf(1, 2, 3)),
+      Product(" ", "sku-1", null, -1.0f, null, NutritionFacts(-150, 34.6, -12.7, 5.6), null, true,
+        listOf(Comment(-1, " "), Comment(null, "fine")), listOf(1, 0, 7)),
+      Product("name", null, "description", 1.0f, 1000f, NutritionFacts(150, 34.6, 12.7, 5.6), false, true, null, null)
+    )
+    products.forEach { product ->
+      val nullityRules = readMe.nullityRules(product)
+      val validityRules = readMe.validityRules(product)
+      assertEquals(Validoctor.examine(product, nullityRules, validityRules).ailments,
+        Validoctor.examine(product, Validoctor.compile(nullityRules), Validoctor.compile(validityRules)).ailments)
+    }
+  }
+
+  @Test
+  fun compilingCompiledRuleReturnsIt() {
+    val compiled = Validoctor.compile(rule)
+    assertSame(compiled, Validoctor.compile(compiled))
+  }
+}
@@ -4,6 +4,7 @@ import com.miquido.validoctor.TestClasses.TestClass
 import com.miquido.validoctor.definition.Rules.chained
 import com.miquido.validoctor.definition.Rules.conditional
 import com.miquido.validoctor.definition.Rules.notNull
+import com.miquido.validoctor.definition.Rules.numberPositive
 import com.miquido.validoctor.definition.Rules.stringAlphanumeric
 import com.miquido.validoctor.definition.Rules.stringMaxLength
 import com.miquido.validoctor.definition.Rules.stringMinLength
@@ -89,4 +90,49 @@ class ConditionalTest {
     assertEquals(1, d3.ailments[""]?.size)
     assertEquals("ALPHANUMERIC_REQUIRED", d3.ailments[""]?.first())
   }
-}
\ No newline at end of file
+
+  @Test
+  fun sharedConditionTestedOncePerPatient() {
+    var tests = 0
+    val rules = conditional({ _: String -> tests++; true }, notNull(), stringAlphanumeric(), stringMinLength(5))
+    val diagnosis = Validoctor.examine("a!c", *rules)
+    assertEquals(1, tests)
+    assertEquals(setOf("ALPHANUMERIC_REQUIRED", "TOO_SHORT"), diagnosis.ailments[""])
+
+    tests = 0
+    val rule = Validoctor.rulesFor(TestClass::class.java)
+      .field("name", *rules)
+      .field("skuId", *rules)
+      .build()
+    val patient = TestClass("abcdef", "a!c", null, null, 1.0f, null, null, null, null)
+    val fieldsDiagnosis = Validoctor.examine(patient, rule)
+    assertEquals(2, tests)
+    assertEquals(setOf("ALPHANUMERIC_REQUIRED", "TOO_SHORT"), fieldsDiagnosis.ailments["skuId"])
+    assertEquals(1, fieldsDiagnosis.ailments.size)
+  }
+
+  @Test
+  fun whenGroup() {
+    var tests = 0
+    var met = false
+    val rule = Validoctor.rulesFor(TestClass::class.java)
+      .field("name", notNull<String>())
+      .`when`({ _ -> tests++; met }) { group -> group
+        .field("skuId", notNull<String>(), stringMinLength(5))
+        .field("weightKg", notNull<Float>(), numberPositive())
+      }
+      .build()
+    val patient = TestClass(null, "abc", null, -1.0f, 1.0f, null, null, null, null)
+    val skipped = Validoctor.examine(patient, rule)
+    assertEquals(1, tests)
+    assertEquals(setOf("name"), skipped.ailments.keys)
+
+    met = true
+    val examined = Validoctor.examine(patient, rule)
+    assertEquals(2, tests)
+    assertEquals(setOf("NOT_NULL_REQUIRED"), examined.ailments["name"])
+    assertEquals(setOf("TOO_SHORT"), examined.ailments["skuId"])
+    assertEquals(setOf("POSITIVE_REQUIRED"), examined.ailments["weightKg"])
+    assertEquals(3, examined.ailments.size)
+  }
+}
@@ -0,0 +1,81 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.TestClasses.SimpleTestClass
+import com.miquido.validoctor.definition.Rule
+import com.miquido.validoctor.definition.Rules.named
+import com.miquido.validoctor.definition.Rules.notNull
+import com.miquido.validoctor.definition.Rules.stringNotEmpty
+import com.miquido.validoctor.result.Ailment
+import com.miquido.validoctor.result.Diagnosis
+import com.miquido.validoctor.result.MessageCodes
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.function.Predicate
+
+class DiagnosisTest {
+
+  @Before
+  fun setNonThrowing() {
+    Validoctor.setThrowing(false)
+  }
+
+  @Test
+  fun messageCodesAreStable() {
+    val code = MessageCodes.register("DIAGNOSIS_TEST_MESSAGE")
+    assertEquals(code, MessageCodes.codeOf(String("DIAGNOSIS_TEST_MESSAGE".toCharArray())))
+    assertEquals(code, MessageCodes.register("DIAGNOSIS_TEST_MESSAGE"))
+    assertEquals("DIAGNOSIS_TEST_MESSAGE", MessageCodes.messageOf(code))
+    assertEquals(-1, MessageCodes.codeOf(null))
+  }
+
+  @Test
+  fun messagesReportedByRulesGetNoNewCodes() {
+    val builder = Validoctor.rulesFor(SimpleTestClass::class.java)
+    val rule = object : Rule<String> {
+      override fun apply(patient: String?): Set<Ailment> = setOf(Ailment("", setOf("DYNAMIC_$patient")))
+      override fun withCondition(condition: Predicate<String>?): Rule<String> = this
+      override fun withDependency(previousRule: Rule<String>?): Rule<String> = this
+      override fun withViolationMessage(violationMessage: String?): Rule<String> = this
+    }
+    val diagnosis = Validoctor.examine(SimpleTestClass(1, "x", null, true), builder.field("name", rule).build())
+    assertEquals(setOf("DYNAMIC_x"), diagnosis.ailments["name"])
+    assertEquals(-1, MessageCodes.codeOf("DYNAMIC_x"))
+  }
+
+  @Test
+  fun diagnosisHoldsManyMessagesPerField() {
+    val builder = Validoctor.rulesFor(SimpleTestClass::class.java)
+    val messages = (0 until 150).map { "DIAGNOSIS_TEST_$it" }
+    messages.forEach { builder.field("name", named(it, notNull<String>())) }
+    builder.field("title", stringNotEmpty())
+    val rule = builder.build()
+
+    val diagnosis = Validoctor.examine(SimpleTestClass(1, null, "", true), rule)
+    assertFalse(diagnosis.isValid)
+    assertEquals(messages.toSet(), diagnosis.ailments["name"])
+    assertEquals(setOf("NOT_EMPTY_REQUIRED"), diagnosis.ailments["title"])
+    assertEquals(2, diagnosis.ailments.size)
+    assertSame(diagnosis.ailments, diagnosis.ailments)
+    assertEquals(diagnosis.ailments.keys, diagnosis.pathAilments.keys.map { it.render() }.toSet())
+  }
+
+  @Test
+  fun diagnosisFromAilments() {
+    val diagnosis = Diagnosis(setOf(Ailment("a", "FIRST"), Ailment("a", "SECOND"), Ailment("b.c", "FIRST")))
+    assertFalse(diagnosis.isValid)
+    assertEquals(mapOf("a" to setOf("FIRST", "SECOND"), "b.c" to setOf("FIRST")), diagnosis.ailments)
+    assertTrue(Diagnosis(emptySet()).isValid)
+    assertTrue(Diagnosis(emptySet()).ailments.isEmpty())
+  }
+
+  @Test
+  fun ailmentMessagesCanBeAdded() {
+    val ailment = Ailment("a", "FIRST")
+    ailment.ailments.add("SECOND")
+    assertEquals(setOf("FIRST", "SECOND"), ailment.ailments)
+  }
+}
@@ -1,19 +1,29 @@
 package com.miquido.validoctor
 
+import com.miquido.validoctor.TestClasses.ArrayTestClass
+import com.miquido.validoctor.TestClasses.StreamingTestClass
 import com.miquido.validoctor.TestClasses.TestClass
 import com.miquido.validoctor.TestClasses.TestInsideClass
 import com.miquido.validoctor.definition.Rules.chained
 import com.miquido.validoctor.definition.Rules.collectionNotEmpty
 import com.miquido.validoctor.definition.Rules.conditional
+import com.miquido.validoctor.definition.Rules.longInRange
+import com.miquido.validoctor.definition.Rules.named
 import com.miquido.validoctor.definition.Rules.notNull
+import com.miquido.validoctor.definition.Rules.numberNonNegative
 import com.miquido.validoctor.definition.Rules.numberInRange
 import com.miquido.validoctor.definition.Rules.numberPositive
 import com.miquido.validoctor.definition.Rules.stringNotEmpty
 import com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty
+import com.miquido.validoctor.definition.Rules.valueNotIn
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
+import java.util.LinkedList
+import java.util.concurrent.ForkJoinPool
+import java.util.stream.Stream
 
 class ElementsTest {
 
@@ -80,4 +90,121 @@ class ElementsTest {
     assertEquals("NOT_EMPTY_NOR_WHITESPACE_ONLY_REQUIRED", diagnosis.ailments["insideList[0].name"]?.first())
     assertEquals(null, diagnosis.ailments["insideList[0].score"])
   }
-}
\ No newline at end of file
+
+  @Test
+  fun parallelElementsMatchSequential() {
+    val insideRule = Validoctor.rulesFor(TestInsideClass::class.java)
+      .field("name", notNull(), stringTrimmedNotEmpty())
+      .field("score", numberPositive())
+      .build()
+    val sequential = Validoctor.rulesFor(TestClass::class.java)
+      .elements("insideList", notNull(), insideRule)
+      .build()
+    val pool = ForkJoinPool(4)
+    try {
+      val parallel = Validoctor.rulesFor(TestClass::class.java)
+        .parallelElements("insideList", "insideList", 100, pool, notNull(), insideRule)
+        .build()
+      val elements = (0 until 5_000).map { i ->
+        if (i % 101 == 0) null else TestInsideClass(if (i % 7 == 0) " " else "name", if (i % 13 == 0) -1.0 else 1.0)
+      }
+      for (list in listOf(elements, LinkedList(elements), elements.subList(0, 50))) {
+        val patient = TestClass(null, null, null, null, 1f, null, null, null, list)
+        val expected = Validoctor.examine(patient, sequential)
+        val diagnosis = Validoctor.examine(patient, parallel)
+        assertFalse(diagnosis.isValid)
+        assertEquals(expected.ailments, diagnosis.ailments)
+        assertFalse(Validoctor.isValid(patient, parallel))
+      }
+      assertEquals("NOT_NULL_REQUIRED", Validoctor.examine(
+        TestClass(null, null, null, null, 1f, null, null, null, elements), parallel).ailments["insideList[4949]"]?.first())
+
+      val valid = TestClass(null, null, null, null, 1f, null, null, null,
+        (0 until 5_000).map { TestInsideClass("name", 1.0) })
+      assertTrue(Validoctor.examine(valid, parallel).isValid)
+      assertTrue(Validoctor.isValid(valid, parallel))
+    } finally {
+      pool.shutdown()
+    }
+  }
+
+  @Test
+  fun elementsStreamedFromIterableIteratorAndStream() {
+    val rule = Validoctor.rulesFor(StreamingTestClass::class.java)
+      .elements("iterable", numberPositive())
+      .elements("iterator", numberPositive())
+      .elements("stream", numberPositive())
+      .elements("other", numberPositive())
+      .build()
+    val patient = StreamingTestClass(Iterable { listOf(1, -2, 3).iterator() }, listOf(-1, 2).iterator(),
+      Stream.of(1, 2, -3), listOf(-4))
+    val diagnosis = Validoctor.examine(patient, rule)
+    assertEquals(setOf("POSITIVE_REQUIRED"), diagnosis.ailments["iterable[1]"])
+    assertEquals(setOf("POSITIVE_REQUIRED"), diagnosis.ailments["iterator[0]"])
+    assertEquals(setOf("POSITIVE_REQUIRED"), diagnosis.ailments["stream[2]"])
+    assertEquals(setOf("POSITIVE_REQUIRED"), diagnosis.ailments["other[0]"])
+    assertEquals(4, diagnosis.ailments.size)
+  }
+
+  @Test
+  fun elementsOfLazySequenceAreNotMaterialized() {
+    var produced = 0
+    val sequence = generateSequence { if (produced < 100_000) ++produced else null }
+    val rule = Validoctor.rulesFor(StreamingTestClass::class.java)
+      .elements("iterator", numberInRange(1, 99_999))
+      .build()
+    val diagnosis = Validoctor.examine(StreamingTestClass(null, sequence.iterator(), null, null), rule)
+    assertEquals(setOf("TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["iterator[99999]"])
+    assertEquals(1, diagnosis.ailments.size)
+    assertEquals(100_000, produced)
+  }
+
+  @Test
+  fun elementsOfNonIterableValue() {
+    val rule = Validoctor.rulesFor(StreamingTestClass::class.java)
+      .elements("other", notNull<Any>())
+      .build()
+    assertFailsWithIllegalArgument { Validoctor.examine(StreamingTestClass(null, null, null, "not iterable"), rule) }
+  }
+
+  @Test
+  fun elementsOfNonIterableField() {
+    assertFailsWithIllegalArgument { Validoctor.rulesFor(TestClass::class.java).elements("name", notNull<Any>()) }
+  }
+
+  @Test
+  fun elementsOfArrays() {
+    val rule = Validoctor.rulesFor(ArrayTestClass::class.java)
+      .elements("ints", numberInRange(1, 5))
+      .elements("longs", numberNonNegative(), longInRange(0, Long.MAX_VALUE - 1))
+      .elements("doubles", numberPositive(), named("NOT_ONE", valueNotIn(1.0)))
+      .elements("strings", stringNotEmpty())
+      .build()
+    val valid = ArrayTestClass(intArrayOf(1, 5), longArrayOf(0, Long.MAX_VALUE - 1), doubleArrayOf(0.5),
+      arrayOf("a", null))
+    assertTrue(Validoctor.examine(valid, rule).isValid)
+    assertTrue(Validoctor.isValid(valid, rule))
+
+    val invalid = ArrayTestClass(intArrayOf(1, 6, 0), longArrayOf(-1, Long.MAX_VALUE), doubleArrayOf(1.0, -0.0),
+      arrayOf("a", ""))
+    val diagnosis = Validoctor.examine(invalid, rule)
+    assertEquals(setOf("TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["ints[1]"])
+    assertEquals(setOf("TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["ints[2]"])
+    assertEquals(setOf("NON_NEGATIVE_REQUIRED", "TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["longs[0]"])
+    assertEquals(setOf("TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["longs[1]"])
+    assertEquals(setOf("NOT_ONE"), diagnosis.ailments["doubles[0]"])
+    assertEquals(setOf("POSITIVE_REQUIRED"), diagnosis.ailments["doubles[1]"])
+    assertEquals(setOf("NOT_EMPTY_REQUIRED"), diagnosis.ailments["strings[1]"])
+    assertEquals(7, diagnosis.ailments.size)
+    assertFalse(Validoctor.isValid(invalid, rule))
+  }
+
+  private fun assertFailsWithIllegalArgument(action: () -> Unit) {
+    try {
+      action()
+    } catch (e: IllegalArgumentException) {
+      return
+    }
+    throw AssertionError("Expected IllegalArgumentException")
+  }
+}
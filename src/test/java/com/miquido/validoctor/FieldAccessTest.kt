@@ -0,0 +1,66 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.TestClasses.LookupTestClass
+import com.miquido.validoctor.TestClasses.TestClass
+import com.miquido.validoctor.definition.Rules.notNull
+import com.miquido.validoctor.definition.Rules.numberPositive
+import com.miquido.validoctor.definition.Rules.stringNotEmpty
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.lang.invoke.MethodHandles
+
+class FieldAccessTest {
+
+  @Before
+  fun setNonThrowing() {
+    Validoctor.setThrowing(false)
+  }
+
+  @Test
+  fun unknownFieldFailsWhileBuilding() {
+    assertBuildFails { Validoctor.rulesFor(TestClass::class.java).field("nope", notNull<Any>()) }
+    assertBuildFails { Validoctor.rulesFor(TestClass::class.java).elements("nope", notNull<Any>()) }
+    assertBuildFails { Validoctor.rulesFor(TestClass::class.java).fields(listOf("name", "nope"), notNull<Any>()) }
+    assertBuildFails {
+      Validoctor.rulesFor(TestClass::class.java).reducedFields("name", "nope", String::plus, notNull<String>())
+    }
+  }
+
+  @Test
+  fun privateFieldsReadWithLookup() {
+    val rule = Validoctor.rulesFor(LookupTestClass::class.java, LookupTestClass.lookup())
+      .field("name", notNull(), stringNotEmpty())
+      .allTyped(Int::class.java, numberPositive())
+      .build()
+    assertTrue(Validoctor.examine(LookupTestClass("a", 1), rule).isValid)
+    val diagnosis = Validoctor.examine(LookupTestClass("", 0), rule)
+    assertFalse(diagnosis.isValid)
+    assertEquals("NOT_EMPTY_REQUIRED", diagnosis.ailments["name"]?.first())
+    assertEquals("POSITIVE_REQUIRED", diagnosis.ailments["count"]?.first())
+  }
+
+  @Test
+  fun inaccessibleFieldFailsWhileBuilding() {
+    assertBuildFails { Validoctor.rulesFor(LookupTestClass::class.java, MethodHandles.publicLookup()).field("name", notNull<Any>()) }
+  }
+
+  @Test
+  fun lookupOfOtherClassInPackageCannotReadPrivateFields() {
+    val failure = assertBuildFails {
+      Validoctor.rulesFor(LookupTestClass::class.java, MethodHandles.lookup()).field("name", notNull<Any>())
+    }
+    assertTrue(failure.message!!.startsWith("Lookup of " + FieldAccessTest::class.java.name + " has no access"))
+  }
+
+  private fun assertBuildFails(definition: () -> Unit): IllegalArgumentException {
+    try {
+      definition()
+    } catch (e: IllegalArgumentException) {
+      return e
+    }
+    throw AssertionError("Expected rule definition to fail")
+  }
+}
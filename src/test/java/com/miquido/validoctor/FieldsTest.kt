@@ -1,6 +1,7 @@
 package com.miquido.validoctor
 
 import com.miquido.validoctor.TestClasses.TestClass
+import com.miquido.validoctor.definition.Rule
 import com.miquido.validoctor.definition.Rules.chained
 import com.miquido.validoctor.definition.Rules.collectionMinSize
 import com.miquido.validoctor.definition.Rules.collectionNotEmpty
@@ -14,6 +15,7 @@ import com.miquido.validoctor.definition.Rules.stringMaxLength
 import com.miquido.validoctor.definition.Rules.stringNoSpacePadding
 import com.miquido.validoctor.definition.Rules.stringNotEmpty
 import com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty
+import com.miquido.validoctor.definition.SimpleRule
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
 import org.junit.Assert.assertTrue
@@ -66,4 +68,60 @@ class FieldsTest {
     assertEquals(1, diagnosis.ailments["insideList"]?.size)
     assertTrue(diagnosis.ailments["insideList"]?.contains("SIZE_TOO_LITTLE")!!)
   }
-}
\ No newline at end of file
+
+  @Test
+  fun duplicateRulesExecutedOnce() {
+    var applications = 0
+    val counting: Rule<String> = SimpleRule("COUNTED") { _ -> applications++; false }
+    val rule = Validoctor.rulesFor(TestClass::class.java)
+      .field("name", counting, stringNotEmpty())
+      .field("name", counting)
+      .fields(listOf("name", "skuId"), counting)
+      .field("name", "displayedName", counting)
+      .build()
+    val patient = TestClass("", "", null, null, 1.0f, null, null, null, null)
+    val diagnosis = Validoctor.examine(patient, rule)
+    assertEquals(3, applications)
+    assertEquals(setOf("COUNTED", "NOT_EMPTY_REQUIRED"), diagnosis.ailments["name"])
+    assertEquals(setOf("COUNTED"), diagnosis.ailments["skuId"])
+    assertEquals(setOf("COUNTED"), diagnosis.ailments["displayedName"])
+    assertEquals(3, diagnosis.ailments.size)
+  }
+
+  @Test
+  fun simpleRulesOfTypedFieldsExecutedOnce() {
+    var applications = 0
+    val counting: Rule<String> = SimpleRule("COUNTED") { _ -> applications++; false }
+    val rule = Validoctor.rulesFor(TestClass::class.java)
+      .field("name", counting, stringNotEmpty())
+      .allTyped(String::class.java, counting)
+      .build()
+    val patient = TestClass("", "", "", null, 1.0f, null, null, null, null)
+    val diagnosis = Validoctor.examine(patient, rule)
+    assertEquals(3, applications)
+    assertEquals(setOf("COUNTED", "NOT_EMPTY_REQUIRED"), diagnosis.ailments["name"])
+    assertEquals(setOf("COUNTED"), diagnosis.ailments["skuId"])
+    assertEquals(setOf("COUNTED"), diagnosis.ailments["description"])
+    assertEquals(3, diagnosis.ailments.size)
+  }
+
+  @Test
+  fun cheapRulesFailFirst() {
+    var applications = 0
+    val expensive: Rule<String> = SimpleRule("EXPENSIVE", { _ -> applications++; true }, Rule.EXPENSIVE_COST)
+    val rule = Validoctor.rulesFor(TestClass::class.java)
+      .field("name", expensive, stringMaxLength(3))
+      .field("description", expensive)
+      .field("skuId", notNull<String>())
+      .build()
+    val patient = TestClass("abcd", null, "abc", null, 1.0f, null, null, null, null)
+    assertFalse(rule.passes(patient))
+    assertEquals(0, applications)
+
+    val diagnosis = Validoctor.examine(patient, rule)
+    assertEquals(2, applications)
+    assertEquals(setOf("TOO_LONG"), diagnosis.ailments["name"])
+    assertEquals(setOf("NOT_NULL_REQUIRED"), diagnosis.ailments["skuId"])
+    assertEquals(2, diagnosis.ailments.size)
+  }
+}
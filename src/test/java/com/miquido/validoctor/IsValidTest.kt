@@ -0,0 +1,100 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.TestClasses.TestClass
+import com.miquido.validoctor.TestClasses.TestInsideClass
+import com.miquido.validoctor.definition.Rule
+import com.miquido.validoctor.definition.Rules.adaptive
+import com.miquido.validoctor.definition.Rules.batch
+import com.miquido.validoctor.definition.Rules.chained
+import com.miquido.validoctor.definition.Rules.conditional
+import com.miquido.validoctor.definition.Rules.named
+import com.miquido.validoctor.definition.Rules.notNull
+import com.miquido.validoctor.definition.Rules.numberInRange
+import com.miquido.validoctor.definition.Rules.numberPositive
+import com.miquido.validoctor.definition.Rules.stringAlphanumeric
+import com.miquido.validoctor.definition.Rules.stringMaxLength
+import com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty
+import com.miquido.validoctor.definition.SimpleRule
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class IsValidTest {
+
+  private val insideRule = Validoctor.rulesFor(TestInsideClass::class.java)
+    .field("name", chained(notNull(), stringTrimmedNotEmpty()))
+    .field("score", numberPositive())
+    .build()
+
+  private val rule = Validoctor.rulesFor(TestClass::class.java)
+    .field("name", conditional({ it != null }, stringAlphanumeric()))
+    .elements("intSet", numberInRange(1, 5))
+    .elements("insideList", notNull(), insideRule)
+    .allTyped(Float::class.java, numberPositive())
+    .fields(listOf("name", "skuId"), stringMaxLength(5))
+    .reducedFields("name", "skuId", { a: String?, b: String? -> a + b }, stringMaxLength(8))
+    .rule("NO_DESCRIPTION", "description", { it.description == null })
+    .build()
+
+  @Before
+  fun setThrowing() {
+    Validoctor.setThrowing(true)
+  }
+
+  @Test
+  fun isValidAgreesWithExamine() {
+    Validoctor.setThrowing(false)
+    val patients = listOf(
+      TestClass("abc", "d", null, 1f, 1f, null, null, setOf(1, 5), listOf(TestInsideClass("a", 1.0))),
+      TestClass("ab!", "d", null, 1f, 1f, null, null, null, null),
+      TestClass("abc", "d", null, 1f, 1f, null, null, setOf(1, 6), null),
+      TestClass("abc", "d", null, 1f, 1f, null, null, null, listOf(TestInsideClass("a", 1.0), null)),
+      TestClass("abc", "d", null, 1f, 1f, null, null, null, listOf(TestInsideClass(" ", 1.0))),
+      TestClass("abc", "d", null, -1f, 1f, null, null, null, null),
+      TestClass("abcdef", "d", null, 1f, 1f, null, null, null, null),
+      TestClass("abcde", "defgh", null, 1f, 1f, null, null, null, null),
+      TestClass("abc", "d", "description", 1f, 1f, null, null, null, null)
+    )
+    patients.forEach { patient ->
+      val wrapped = batch(named("NAMED", rule), chained(rule, rule))
+      assertEquals(Validoctor.examine(patient, rule).isValid, Validoctor.isValid(patient, rule))
+      assertEquals(Validoctor.examine(patient, wrapped).isValid, Validoctor.isValid(patient, wrapped))
+    }
+  }
+
+  @Test
+  fun stopsAtFirstViolationAndNeverThrows() {
+    var evaluated = 0
+    val counting = SimpleRule<String>("COUNTED") { evaluated++; true }
+    assertFalse(Validoctor.isValid("", stringTrimmedNotEmpty(), counting))
+    assertFalse(Validoctor.isValid("", batch(stringTrimmedNotEmpty(), counting)))
+    assertEquals(0, evaluated)
+    assertTrue(Validoctor.isValid("a", stringTrimmedNotEmpty(), counting))
+    assertEquals(1, evaluated)
+  }
+
+  @Test
+  fun adaptiveOrderMovesFailingPartsFirst() {
+    var evaluated = 0
+    val passing: Rule<String> = SimpleRule("COUNTED", { _ -> evaluated++; true }, Rule.CHEAP_COST)
+    val failing: Rule<String> = SimpleRule("FAILED", { _ -> false }, Rule.EXPENSIVE_COST)
+    val built = Validoctor.rulesFor(TestClass::class.java)
+      .field("name", failing)
+      .field("skuId", passing)
+      .build()
+    val patient = TestClass("a", "b", null, null, 1.0f, null, null, null, null)
+    assertAdapts(adaptive(built), patient) { evaluated }
+    assertAdapts(adaptive(batch(passing, failing)), "a") { evaluated }
+  }
+
+  private fun <T> assertAdapts(rule: Rule<T>, patient: T, evaluated: () -> Int) {
+    repeat(20000) { assertFalse(rule.passes(patient)) } //passing part is cheaper, so it is tested first at the start
+    val evaluatedBefore = evaluated()
+    repeat(1000) { assertFalse(rule.passes(patient)) }
+    assertEquals(evaluatedBefore, evaluated())
+    assertEquals(setOf("FAILED"), rule.apply(patient).flatMap { it.ailments }.toSet())
+    assertEquals(evaluatedBefore + 1, evaluated())
+  }
+}
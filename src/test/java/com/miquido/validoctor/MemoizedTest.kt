@@ -0,0 +1,73 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.TestClasses.TestInsideClass
+import com.miquido.validoctor.definition.Rules.collectionNotEmpty
+import com.miquido.validoctor.definition.Rules.memoized
+import com.miquido.validoctor.definition.Rules.stringMatches
+import com.miquido.validoctor.definition.SimpleRule
+import org.junit.Before
+import org.junit.Test
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import java.util.concurrent.atomic.AtomicInteger
+
+class MemoizedTest {
+
+  @Before
+  fun setNonThrowing() {
+    Validoctor.setThrowing(false)
+  }
+
+  @Test
+  fun repeatedValuesAreTestedOnce() {
+    val tests = AtomicInteger()
+    val rule = memoized(SimpleRule<String>("NOT_A_CODE") { tests.incrementAndGet(); it.startsWith("P-") }, 100)
+
+    for (i in 0 until 50) {
+      val code = if (i % 5 == 0) "X-$i" else "P-${i % 3}"
+      val diagnosis = Validoctor.examine(code, rule)
+      assertEquals(i % 5 != 0, diagnosis.isValid)
+      assertEquals(i % 5 != 0, Validoctor.isValid(code, rule))
+    }
+    assertEquals(13, tests.get())
+    assertEquals(13L, rule.misses)
+    assertEquals(87L, rule.hits)
+    assertEquals(13, rule.size())
+  }
+
+  @Test
+  fun rememberedResultsAreBounded() {
+    val rule = memoized(stringMatches("[0-9]+"), 10)
+    for (i in 0 until 1000) {
+      Validoctor.isValid(i.toString(), rule)
+    }
+    assertTrue(rule.size() <= 10)
+    assertEquals(1000L, rule.misses)
+
+    for (i in 0 until 2) {
+      Validoctor.isValid("999", rule)
+    }
+    assertEquals(2L, rule.hits)
+  }
+
+  @Test
+  fun mutablePatientsAreNotRemembered() {
+    val rule = memoized(collectionNotEmpty(), 10)
+    val list = ArrayList<String>()
+    assertEquals(false, Validoctor.isValid<Collection<*>>(list, rule))
+    list.add("a")
+    assertEquals(true, Validoctor.isValid<Collection<*>>(list, rule))
+    assertEquals(0L, rule.hits + rule.misses)
+  }
+
+  @Test
+  fun memoizedFieldRulesReportLikeOriginalOnes() {
+    val codeRule = stringMatches("[a-z]+")
+    val original = Validoctor.rulesFor(TestInsideClass::class.java).field("name", codeRule).build()
+    val memoized = Validoctor.rulesFor(TestInsideClass::class.java).field("name", memoized(codeRule, 16)).build()
+    for (name in listOf("abc", "a1", "abc", "a1", null)) {
+      val patient = TestInsideClass(name, 0.0)
+      assertEquals(Validoctor.examine(patient, original).ailments, Validoctor.examine(patient, memoized).ailments)
+    }
+  }
+}
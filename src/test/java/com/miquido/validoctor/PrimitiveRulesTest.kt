@@ -0,0 +1,131 @@
+package com.miquido.validoctor
+
+import com.miquido.validoctor.TestClasses.ArrayTestClass
+import com.miquido.validoctor.TestClasses.PrimitiveTestClass
+import com.miquido.validoctor.definition.Rule
+import com.miquido.validoctor.definition.RuleBuilder
+import com.miquido.validoctor.definition.Rules.*
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.math.BigDecimal
+import java.math.BigInteger
+
+class PrimitiveRulesTest {
+
+  @Before
+  fun setNonThrowing() {
+    Validoctor.setThrowing(false)
+  }
+
+  @Test
+  fun primitiveRules_boxed() {
+    assertTrue(intPositive<Int>().passes(1))
+    assertFalse(intPositive<Int>().passes(0))
+    assertTrue(intPositive<Int>().passes(null))
+    assertFalse(longNonNegative<Long>().passes(-1L))
+    assertTrue(longInRange<Long>(Long.MAX_VALUE - 1, Long.MAX_VALUE).passes(Long.MAX_VALUE))
+    assertFalse(longInRange<Long>(Long.MAX_VALUE - 1, Long.MAX_VALUE).passes(Long.MAX_VALUE - 2))
+    assertFalse(doublePositive<Double>().passes(-0.0))
+    assertFalse(doubleInRange<Double>(0.0, 1.0).passes(Double.NaN))
+    assertEquals(setOf("POSITIVE_REQUIRED"), intPositive<Int>().apply(-5).flatMap { it.ailments }.toSet())
+  }
+
+  @Test
+  fun primitiveRules_field() {
+    val rule = Validoctor.rulesFor(PrimitiveTestClass::class.java)
+      .field("count", intPositive())
+      .field("level", intInRange(1, 10))
+      .field("total", longNonNegative(), longInRange(0, 100))
+      .field("ratio", doubleInRange(0.0, 1.0))
+      .field("score", doublePositive(), doubleInRange(1.0, 10.0))
+      .build()
+    assertTrue(Validoctor.examine(PrimitiveTestClass(1, 5, 100, 0.5f, 1.5), rule).isValid)
+    assertTrue(Validoctor.isValid(PrimitiveTestClass(1, 5, 100, 0.5f, 1.5), rule))
+
+    val diagnosis = Validoctor.examine(PrimitiveTestClass(0, 11, -1, 1.5f, 0.5), rule)
+    assertFalse(diagnosis.isValid)
+    assertEquals(setOf("POSITIVE_REQUIRED"), diagnosis.ailments["count"])
+    assertEquals(setOf("TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["level"])
+    assertEquals(setOf("NON_NEGATIVE_REQUIRED", "TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["total"])
+    assertEquals(setOf("TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["ratio"])
+    assertEquals(setOf("TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["score"])
+    assertFalse(Validoctor.isValid(PrimitiveTestClass(0, 11, -1, 1.5f, 0.5), rule))
+    assertFalse(Validoctor.compile(rule).passes(PrimitiveTestClass(0, 11, -1, 1.5f, 0.5)))
+  }
+
+  @Test
+  fun primitiveRules_sameAsBoxed() {
+    val patients = listOf(
+      PrimitiveTestClass(1, 5, 100, 0.5f, 1.5),
+      PrimitiveTestClass(-1, -5, -100, -0.5f, -1.5),
+      PrimitiveTestClass(0, 0, 0, -0.0f, -0.0),
+      PrimitiveTestClass(Int.MAX_VALUE, Short.MAX_VALUE, Long.MAX_VALUE, Float.NaN, Double.POSITIVE_INFINITY),
+      PrimitiveTestClass(Int.MIN_VALUE, Short.MIN_VALUE, Long.MIN_VALUE, Float.MAX_VALUE, 1e300)
+    )
+    val primitive = Validoctor.rulesFor(PrimitiveTestClass::class.java)
+      .fields(listOf("count", "level"), intPositive())
+      .fields(listOf("count", "level", "total", "ratio", "score"), longInRange(-100, 100), doubleNonNegative())
+      .build()
+    val boxed = Validoctor.rulesFor(PrimitiveTestClass::class.java)
+      .fields(listOf("count", "level"), boxed(intPositive()))
+      .fields(listOf("count", "level", "total", "ratio", "score"),
+        boxed(longInRange(-100, 100)), boxed(doubleNonNegative()))
+      .build()
+    for (patient in patients) {
+      assertEquals(Validoctor.examine(patient, boxed).ailments, Validoctor.examine(patient, primitive).ailments)
+      assertEquals(Validoctor.isValid(patient, boxed), Validoctor.isValid(patient, primitive))
+    }
+  }
+
+  @Test
+  fun primitiveRules_allTyped() {
+    val rule = Validoctor.rulesFor(PrimitiveTestClass::class.java)
+      .allTyped(Int::class.javaPrimitiveType!!, intPositive())
+      .allTyped(Double::class.javaPrimitiveType!!, doubleInRange(0.0, 1.0))
+      .build()
+    assertTrue(Validoctor.examine(PrimitiveTestClass(1, 0, 0, 5f, 0.5), rule).isValid)
+    val diagnosis = Validoctor.examine(PrimitiveTestClass(0, 0, 0, 5f, 1.5), rule)
+    assertEquals(setOf("POSITIVE_REQUIRED"), diagnosis.ailments["count"])
+    assertEquals(setOf("TOO_LOW_OR_TOO_HIGH"), diagnosis.ailments["score"])
+    assertEquals(2, diagnosis.ailments.size)
+  }
+
+  @Test
+  fun intRulesRejectedForValuesNotFittingInInt() {
+    val builders = listOf<() -> RuleBuilder<*>>(
+      { Validoctor.rulesFor(PrimitiveTestClass::class.java).field("total", intInRange(0, 10)) },
+      { Validoctor.rulesFor(PrimitiveTestClass::class.java).field("score", intPositive()) },
+      { Validoctor.rulesFor(PrimitiveTestClass::class.java).fields(listOf("count", "ratio"), intPositive()) },
+      { Validoctor.rulesFor(PrimitiveTestClass::class.java).allTyped(Long::class.javaPrimitiveType!!, intPositive()) },
+      { Validoctor.rulesFor(ArrayTestClass::class.java).elements("longs", intNonNegative()) },
+      { Validoctor.rulesFor(ArrayTestClass::class.java).elements("doubles", numberPositive(), intPositive()) }
+    )
+    for (builder in builders) {
+      try {
+        builder().build()
+        throw AssertionError("Expected build to fail")
+      } catch (e: IllegalArgumentException) {
+        assertTrue(e.message!!.startsWith("Int rule cannot be applied to field "))
+      }
+    }
+    Validoctor.rulesFor(PrimitiveTestClass::class.java).fields(listOf("count", "level"), intPositive()).build()
+    Validoctor.rulesFor(ArrayTestClass::class.java).elements("ints", intPositive()).build()
+  }
+
+  @Test
+  fun predefinedRule_numberInRange_precise() {
+    assertTrue(numberInRange<Long>(Long.MAX_VALUE - 1, Long.MAX_VALUE).passes(Long.MAX_VALUE))
+    assertFalse(numberInRange<Long>(Long.MAX_VALUE - 1, Long.MAX_VALUE).passes(Long.MAX_VALUE - 2))
+    assertFalse(numberInRange<BigDecimal>(BigDecimal("0.1"), 1).passes(BigDecimal("0.09999999999999999999")))
+    assertTrue(numberInRange<BigInteger>(0, Long.MAX_VALUE).passes(BigInteger.valueOf(Long.MAX_VALUE)))
+    assertFalse(numberInRange<BigInteger>(0, Long.MAX_VALUE).passes(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE)))
+    assertTrue(numberInRange<Double>(0, 1).passes(-0.0))
+    assertFalse(numberInRange<Double>(0, 1).passes(Double.NaN))
+    assertFalse(numberInRange<Double>(BigDecimal.ZERO, 1).passes(Double.POSITIVE_INFINITY))
+  }
+
+  private fun <T : Number> boxed(rule: Rule<T>): Rule<T> = rule.withCondition { true }
+}
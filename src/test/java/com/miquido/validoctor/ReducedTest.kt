@@ -1,16 +1,20 @@
 package com.miquido.validoctor
 
 import com.miquido.validoctor.TestClasses.TestClass
+import com.miquido.validoctor.definition.Rule
 import com.miquido.validoctor.definition.Rules.chained
 import com.miquido.validoctor.definition.Rules.conditional
 import com.miquido.validoctor.definition.Rules.numberInRange
 import com.miquido.validoctor.definition.Rules.stringAlphanumeric
 import com.miquido.validoctor.definition.Rules.stringMaxLength
 import com.miquido.validoctor.definition.Rules.stringNoSpacePadding
+import com.miquido.validoctor.definition.SimpleRule
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
+import java.util.function.BinaryOperator
 
 class ReducedTest {
 
@@ -52,4 +56,38 @@ class ReducedTest {
     assertEquals("TOO_LONG", diagnosis.ailments["skuId"]?.first())
     assertEquals("TOO_LONG", diagnosis.ailments["name"]?.first())
   }
-}
\ No newline at end of file
+
+  @Test
+  fun reducedValueComputedOncePerExamination() {
+    var reductions = 0
+    val reducer = BinaryOperator<String> { a, b -> reductions++; a + b }
+    val rule = Validoctor.rulesFor(TestClass::class.java)
+      .reducedFields("name", "skuId", reducer, stringMaxLength(6))
+      .reducedFields("name", "skuId", reducer, stringAlphanumeric(), stringNoSpacePadding())
+      .build()
+    val patient = TestClass("abcd!", "sku1 ", null, 7.0f, 4.0f, null, null, null, null)
+    val diagnosis = Validoctor.examine(patient, rule)
+    assertEquals(1, reductions)
+    assertEquals(3, diagnosis.ailments["name"]?.size)
+    assertEquals(3, diagnosis.ailments["skuId"]?.size)
+  }
+
+  @Test
+  fun rulesOfReducedValueAppliedOncePerField() {
+    var applications = 0
+    val counted: Rule<String> = SimpleRule("TOO_LONG") { p -> applications++; p.length <= 6 }
+    val rule = Validoctor.rulesFor(TestClass::class.java)
+      .reducedFields("name", "skuId", String::plus, counted)
+      .build()
+    val valid = Validoctor.examine(TestClass("ab", "sku", null, 7.0f, 4.0f, null, null, null, null), rule)
+    assertTrue(valid.isValid)
+    assertEquals(1, applications)
+
+    applications = 0
+    val patient = TestClass("abcd!", "sku1 ", null, 7.0f, 4.0f, null, null, null, null)
+    val diagnosis = Validoctor.examine(patient, rule)
+    assertEquals(2, applications) //checked, then applied once for both fields
+    assertEquals(setOf("TOO_LONG"), diagnosis.ailments["name"])
+    assertEquals(setOf("TOO_LONG"), diagnosis.ailments["skuId"])
+  }
+}
@@ -23,13 +23,17 @@ import com.miquido.validoctor.definition.Rules.stringContains
 import com.miquido.validoctor.definition.Rules.stringExactLength
 import com.miquido.validoctor.definition.Rules.stringLengthInRange
 import com.miquido.validoctor.definition.Rules.stringMatches
+import com.miquido.validoctor.definition.Rules.stringMatchesLinear
 import com.miquido.validoctor.definition.Rules.stringMaxLength
 import com.miquido.validoctor.definition.Rules.stringMinLength
 import com.miquido.validoctor.definition.Rules.stringNoSpacePadding
 import com.miquido.validoctor.definition.Rules.stringNotEmpty
 import com.miquido.validoctor.definition.Rules.stringTrimmedNotEmpty
 import com.miquido.validoctor.definition.Rules.valueIn
+import com.miquido.validoctor.definition.Rules.valueInSnapshot
 import com.miquido.validoctor.definition.Rules.valueNotIn
+import com.miquido.validoctor.definition.Rules.valueNotInSnapshot
+import com.miquido.validoctor.definition.Rule
 import com.miquido.validoctor.definition.SimpleRule
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
@@ -225,6 +229,50 @@ class SimpleRulesTest {
     assertTrue(examine("10-10-2010", stringMatches("[0-9]{2}-[0-9]{2}-[0-9]{4}")).isValid)
   }
 
+  @Test
+  fun predefinedRule_stringMatchesLinear() {
+    assertFalse(examine("abc1", stringMatchesLinear("[a-z]*")).isValid)
+    assertFalse(examine("9-09-2009", stringMatchesLinear("[0-9]{2}-[0-9]{2}-[0-9]{4}")).isValid)
+    assertTrue(examine("abc", stringMatchesLinear("[a-z]*")).isValid)
+    assertTrue(examine("10-10-2010", stringMatchesLinear("[0-9]{2}-[0-9]{2}-[0-9]{4}")).isValid)
+    assertTrue(examine(null, stringMatchesLinear("[a-z]+")).isValid)
+  }
+
+  @Test
+  fun predefinedRule_stringMatchesLinearAgreesWithJavaRegex() {
+    val regexes = listOf("[a-z]*", "^a(b|c)*d?$", "(a|ab)(c|bcd)(d*)", "\\d{2,4}-\\w+", "[^\\s.]+\\.?", "x{0,3}y{2,}",
+      "(?:ab)+?c", "(?<name>a|b)c?", "[]a-c]+", "[-a]\\x41\\u0042\\t?", ".*\\..*", "(a*)*b",
+      "[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,}", "\\D\\W\\S", "a|", "()", "\uD83D\uDE00+.")
+    val inputs = listOf("", "a", "ab", "abd", "abcd", "acbd", "12-ab", "1234-_", "12345-x", "abc.", "xxyy", "yy", "xxxxyy",
+      "ababc", "abc", "ac", "]]a", "-AB\t", "aB", "a.b", "\n.", "aaab", "b", "NAME@EXAMPLE.COM", "name@example.com",
+      "a-?", "1 a", "\uD83D\uDE00\uD83D\uDE00x", "\uD83D\uDE00\n", "\u2028")
+    for (regex in regexes) {
+      val rule = stringMatchesLinear(regex)
+      for (input in inputs) {
+        assertEquals("$regex on $input", input.matches(Regex(regex)), examine(input, rule).isValid)
+      }
+    }
+  }
+
+  @Test
+  fun predefinedRule_stringMatchesLinearDoesNotBacktrack() {
+    val rule = stringMatchesLinear("(a+)+b")
+    val start = System.nanoTime()
+    assertFalse(examine("a".repeat(10_000) + "!", rule).isValid)
+    assertTrue(System.nanoTime() - start < 5_000_000_000)
+  }
+
+  @Test
+  fun predefinedRule_stringMatchesLinearRejectsNonRegularRegex() {
+    for (regex in listOf("(a)\\1", "a(?=b)", "a++", "a^b", "[a[b]]", "(a", "a{2")) {
+      try {
+        stringMatchesLinear(regex)
+        throw AssertionError("$regex should be rejected")
+      } catch (expected: IllegalArgumentException) {
+      }
+    }
+  }
+
   @Test
   fun predefinedRule_stringNoSpacePadding() {
     assertFalse(examine(" c ", stringNoSpacePadding()).isValid)
@@ -312,6 +360,37 @@ class SimpleRulesTest {
       valueIn(listOf(SimpleTestClass(2, "a", "1", true), SimpleTestClass(1, "a", "1", false)))).isValid)
   }
 
+  @Test
+  fun predefinedRule_valueIn_reflectsChangesOfCollection() {
+    val allowed = mutableListOf("a", "b", "c", "d", "e")
+    val valueIn = valueIn(allowed)
+    val valueNotIn = valueNotIn(allowed)
+    allowed.add("f")
+    assertTrue(examine("f", valueIn).isValid)
+    assertFalse(examine("f", valueNotIn).isValid)
+    allowed.remove("a")
+    assertFalse(examine("a", valueIn).isValid)
+    assertTrue(examine("a", valueNotIn).isValid)
+  }
+
+  @Test
+  fun predefinedRule_valueIn_snapshot() {
+    val allowed = mutableListOf<Any?>("a", 765, DayOfWeek.FRIDAY, null, "e")
+    val valueIn = valueInSnapshot(allowed)
+    val valueNotIn = valueNotInSnapshot(allowed)
+    allowed.add("f")
+    assertTrue(examine("a", valueIn).isValid)
+    assertTrue(examine(765, valueIn).isValid)
+    assertTrue(examine(null, valueIn).isValid)
+    assertFalse(examine("f", valueIn).isValid)
+    assertFalse(examine(DayOfWeek.FRIDAY, valueNotIn).isValid)
+    assertTrue(examine("f", valueNotIn).isValid)
+    assertEquals(Rule.CHEAP_COST, valueIn.estimatedCost())
+    assertEquals(Rule.CHEAP_COST, valueIn(setOf("a")).estimatedCost())
+    assertEquals(Rule.DEFAULT_COST, valueIn(listOf("a")).estimatedCost())
+    assertEquals(Rule.DEFAULT_COST, valueNotIn(listOf("a")).estimatedCost())
+  }
+
   @Test
   fun predefinedRule_valueNotIn() {
     assertTrue(examine("a", valueNotIn("b", "c", "d")).isValid)
@@ -349,6 +428,30 @@ class SimpleRulesTest {
     assertFalse(examine(null, valueNotIn(listOf<String?>(null))).isValid)
   }
 
+  @Test
+  fun predefinedRule_valueIn_largeSets() {
+    val denseInts = (-50 until 950).toList()
+    val sparseInts = (0 until 1000).map { it * 7919 - 3_000_000 } + 0
+    val longs = (0 until 1000).map { it * 1_000_000_007L } + Long.MIN_VALUE
+    val strings = (0 until 1000).map { "code$it" }
+    for (values in listOf(denseInts, sparseInts, longs, strings, denseInts + strings)) {
+      val rule = valueIn(values)
+      val varargsRule = valueIn(*values.toTypedArray())
+      val notInRule = valueNotIn(values)
+      val candidates = values.take(50) + values.takeLast(50) + listOf(950, -51, 1, 7919, 1L, 7L, "code", "code1000",
+        Long.MAX_VALUE, 0.0, null)
+      for (candidate in candidates) {
+        assertEquals("$candidate", values.contains(candidate), examine(candidate, rule).isValid)
+        assertEquals("$candidate", values.contains(candidate), examine(candidate, varargsRule).isValid)
+        assertEquals("$candidate", !values.contains(candidate), examine(candidate, notInRule).isValid)
+      }
+    }
+    assertTrue(examine(null, valueIn(listOf(null) + denseInts)).isValid)
+    assertFalse(examine(null, valueNotIn(listOf(null) + strings)).isValid)
+    assertTrue(examine(null, valueIn(null, DayOfWeek.MONDAY)).isValid)
+    assertFalse(examine(DayOfWeek.FRIDAY, valueIn(null, DayOfWeek.MONDAY)).isValid)
+  }
+
   @Test
   fun predefinedRule_equalTo() {
     assertTrue(examine("a", equalTo("a")).isValid)
@@ -391,4 +494,17 @@ class SimpleRulesTest {
     val objectAilments = diagnosis.ailments["patient"]
     assertEquals(2, objectAilments!!.size.toLong())
   }
-}
\ No newline at end of file
+
+  @Test
+  fun stringCharRulesAgreeWithUnicodeData() {
+    val samples = listOf("", " ", "\u0001a\t", "abc", "ab1", "a b", " a", "a ", "\u00a0", "\u00e9\u00df\u00aa\u00b5",
+      "\u00d7", "\u00b2", "\u0416\u4e2d", "\u0663\u0664", "\ud835\udc00", "a\ud835", "\u2003x\u2003", "a\u0000")
+    for (sample in samples) {
+      assertEquals(sample, sample.chars().allMatch { Character.isLetter(it) }, stringAlphabetic().passes(sample))
+      assertEquals(sample, sample.chars().allMatch { Character.isLetterOrDigit(it) },
+        stringAlphanumeric().passes(sample))
+      assertEquals(sample, sample.trim { it <= ' ' }.isNotEmpty(), stringTrimmedNotEmpty().passes(sample)) //trims like Java
+      assertEquals(sample, sample.trim { it <= ' ' } == sample, stringNoSpacePadding().passes(sample))
+    }
+  }
+}
@@ -1,8 +1,11 @@
 package com.miquido.validoctor;
 
+import java.lang.invoke.MethodHandles;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Stream;
 
 public class TestClasses {
 
@@ -110,4 +113,65 @@ public class TestClasses {
       return Objects.hash(name, score);
     }
   }
+
+
+  public static class LookupTestClass {
+    private String name;
+    private int count;
+
+    public LookupTestClass(String name, int count) {
+      this.name = name;
+      this.count = count;
+    }
+
+    public static MethodHandles.Lookup lookup() {
+      return MethodHandles.lookup();
+    }
+  }
+
+
+  public static class PrimitiveTestClass {
+    private int count;
+    private short level;
+    private long total;
+    private float ratio;
+    private double score;
+
+    public PrimitiveTestClass(int count, short level, long total, float ratio, double score) {
+      this.count = count;
+      this.level = level;
+      this.total = total;
+      this.ratio = ratio;
+      this.score = score;
+    }
+  }
+
+  public static class StreamingTestClass {
+    private Iterable<Integer> iterable;
+    private Iterator<Integer> iterator;
+    private Stream<Integer> stream;
+    private Object other;
+
+    public StreamingTestClass(Iterable<Integer> iterable, Iterator<Integer> iterator, Stream<Integer> stream,
+                              Object other) {
+      this.iterable = iterable;
+      this.iterator = iterator;
+      this.stream = stream;
+      this.other = other;
+    }
+  }
+
+  public static class ArrayTestClass {
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private String[] strings;
+
+    public ArrayTestClass(int[] ints, long[] longs, double[] doubles, String[] strings) {
+      this.ints = ints;
+      this.longs = longs;
+      this.doubles = doubles;
+      this.strings = strings;
+    }
+  }
 }